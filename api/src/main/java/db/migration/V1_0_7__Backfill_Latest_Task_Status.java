@@ -0,0 +1,78 @@
+package db.migration;
+
+import dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @class: V1_0_7__Backfill_Latest_Task_Status
+ * @description: 计算历史流程实例最后启动的任务状态，查询时不再回写
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:30
+ **/
+public class V1_0_7__Backfill_Latest_Task_Status extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 100;
+
+    private final TaskInstanceListTypeHandler typeHandler = new TaskInstanceListTypeHandler();
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        var connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            // 按行存储的任务实例优先于task_instances字段中的数据
+            statement.executeUpdate("update workflow_instance set latest_task_status = coalesce((" +
+                    "select a.status from async_task_instance a " +
+                    "where a.workflow_instance_id = workflow_instance.id and a.start_time is not null " +
+                    "order by a.start_time desc, a.seq desc limit 1), '') " +
+                    "where latest_task_status is null " +
+                    "and exists (select 1 from async_task_instance a where a.workflow_instance_id = workflow_instance.id)");
+        }
+        // 每批处理后的数据不再为null，循环直到没有待处理的数据
+        int count;
+        do {
+            count = this.backfillBatch(connection);
+        } while (count == BATCH_SIZE);
+    }
+
+    private int backfillBatch(Connection connection) throws SQLException {
+        List<String[]> statuses = new ArrayList<>();
+        try (var ps = connection.prepareStatement("select id, task_instances from workflow_instance " +
+                "where latest_task_status is null order by id limit " + BATCH_SIZE);
+             var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                var taskInstances = this.typeHandler.getNullableResult(rs, "task_instances");
+                statuses.add(new String[]{rs.getString("id"), latestTaskStatus(taskInstances)});
+            }
+        }
+        try (var ps = connection.prepareStatement("update workflow_instance set latest_task_status = ? where id = ?")) {
+            for (String[] status : statuses) {
+                ps.setString(1, status[1]);
+                ps.setString(2, status[0]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+        return statuses.size();
+    }
+
+    // 与WorkflowInstance.findLatestAsyncTaskInstance一致，取启动时间最晚的任务，没有启动的任务时为空字符串
+    private static String latestTaskStatus(List<AsyncTaskInstance> taskInstances) {
+        if (taskInstances == null) {
+            return "";
+        }
+        return taskInstances.stream()
+                .filter(taskInstance -> Objects.nonNull(taskInstance.getStartTime()))
+                .max(Comparator.comparing(AsyncTaskInstance::getStartTime))
+                .map(taskInstance -> taskInstance.getStatus().name())
+                .orElse("");
+    }
+}
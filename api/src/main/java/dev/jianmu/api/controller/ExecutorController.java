@@ -0,0 +1,39 @@
+package dev.jianmu.api.controller;
+
+import dev.jianmu.infrastructure.executor.ExecutorMetrics;
+import dev.jianmu.infrastructure.executor.InstrumentedExecutor;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @class: ExecutorController
+ * @description: 异步执行器监控API
+ * @author: Ethan Liu
+ * @create: 2021-10-25 10:20
+ **/
+@RestController
+@RequestMapping("executors")
+@Tag(name = "执行器监控API", description = "按处理阶段查看异步执行器的队列深度、活动线程数与拒绝次数")
+@SecurityRequirement(name = "bearerAuth")
+public class ExecutorController {
+    private final List<InstrumentedExecutor> executors;
+
+    public ExecutorController(List<InstrumentedExecutor> executors) {
+        this.executors = executors;
+    }
+
+    @GetMapping
+    @Operation(summary = "执行器指标获取接口", description = "执行器指标获取接口")
+    public List<ExecutorMetrics> findAll() {
+        return this.executors.stream()
+                .map(InstrumentedExecutor::getMetrics)
+                .collect(Collectors.toList());
+    }
+}
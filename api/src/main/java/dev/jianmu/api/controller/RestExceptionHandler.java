@@ -101,6 +101,18 @@ public class RestExceptionHandler {
                 .build();
     }
 
+    @ExceptionHandler(DBException.OptimisticLocking.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorMessage optimisticLockingException(DBException.OptimisticLocking ex, WebRequest request) {
+        logger.warn("版本冲突: {}", ex.getMessage());
+        return ErrorMessage.builder()
+                .statusCode(HttpStatus.CONFLICT.value())
+                .timestamp(LocalDateTime.now())
+                .message("流程实例正在被其他操作更新，请稍后重试")
+                .description(request.getDescription(false))
+                .build();
+    }
+
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorMessage runtimeException(RuntimeException ex, WebRequest request) {
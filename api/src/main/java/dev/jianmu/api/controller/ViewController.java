@@ -5,6 +5,7 @@ import dev.jianmu.api.dto.EbDto;
 import dev.jianmu.api.dto.NamespaceSearchDto;
 import dev.jianmu.api.dto.PageDto;
 import dev.jianmu.api.dto.TransformerDto;
+import dev.jianmu.api.dto.WorkflowInstanceCursorDto;
 import dev.jianmu.api.mapper.*;
 import dev.jianmu.api.vo.*;
 import dev.jianmu.application.exception.DataNotFoundException;
@@ -18,8 +19,6 @@ import dev.jianmu.secret.aggregate.KVPair;
 import dev.jianmu.secret.aggregate.Namespace;
 import dev.jianmu.task.aggregate.InstanceParameter;
 import dev.jianmu.workflow.aggregate.parameter.Parameter;
-import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
-import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.core.io.FileSystemResource;
@@ -191,23 +190,21 @@ public class ViewController {
     @Operation(summary = "查询项目列表", description = "查询项目列表")
     public List<ProjectVo> findAll() {
         var projects = this.projectApplication.findAll();
-        return projects.stream().map(project -> this.instanceApplication
-                .findByRefAndSerialNoMax(project.getWorkflowRef())
-                .map(workflowInstance -> {
-                    var projectVo = ProjectMapper.INSTANCE.toProjectVo(project);
-                    projectVo.setLatestTime(workflowInstance.getEndTime());
-                    projectVo.setNextTime(this.projectApplication.getNextFireTime(project.getId()));
-                    if (workflowInstance.getStatus().equals(ProcessStatus.TERMINATED)) {
-                        projectVo.setStatus("FAILED");
-                    } else {
-                        projectVo.setStatus(workflowInstance.findLatestAsyncTaskInstance()
-                                .orElse(AsyncTaskInstance.Builder.anAsyncTaskInstance().build())
-                                .getStatus().name()
-                        );
-                    }
-                    return projectVo;
-                })
-                .orElseGet(() -> ProjectMapper.INSTANCE.toProjectVo(project))).collect(Collectors.toList());
+        // 执行摘要与下次触发时间均批量查询
+        var lastRuns = this.instanceApplication.findLastRuns(
+                projects.stream().map(Project::getWorkflowRef).collect(Collectors.toSet())
+        );
+        var nextFireTimes = this.projectApplication.findNextFireTimes();
+        return projects.stream().map(project -> {
+            var projectVo = ProjectMapper.INSTANCE.toProjectVo(project);
+            var lastRun = lastRuns.get(project.getWorkflowRef());
+            if (lastRun != null) {
+                projectVo.setLatestTime(lastRun.getEndTime());
+                projectVo.setNextTime(nextFireTimes.getOrDefault(project.getId(), ""));
+                projectVo.setStatus(lastRun.getStatus());
+            }
+            return projectVo;
+        }).collect(Collectors.toList());
     }
 
     @GetMapping("/projects/{projectId}")
@@ -226,9 +223,9 @@ public class ViewController {
 
     @GetMapping("/workflow_instances/{workflowRef}")
     @Operation(summary = "根据workflowRef查询流程实例列表", description = "根据workflowRef查询流程实例列表")
-    public List<WorkflowInstanceVo> findByWorkflowRef(@PathVariable String workflowRef) {
-        var instances = this.instanceApplication.findByWorkflowRef(workflowRef);
-        return WorkflowInstanceMapper.INSTANCE.toWorkflowInstanceVoList(instances);
+    public List<WorkflowInstanceVo> findByWorkflowRef(@PathVariable String workflowRef, WorkflowInstanceCursorDto dto) {
+        var instances = this.instanceApplication.findSummaryByWorkflowRef(workflowRef, dto.getLastSerialNo(), dto.getPageSize());
+        return WorkflowInstanceMapper.INSTANCE.toSummaryVoList(instances);
     }
 
     @GetMapping("/workflow/{ref}/{version}")
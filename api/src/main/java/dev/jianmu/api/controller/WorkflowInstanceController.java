@@ -7,6 +7,7 @@ import dev.jianmu.api.vo.PageUtils;
 import dev.jianmu.api.vo.WorkflowInstanceVo;
 import dev.jianmu.application.exception.DataNotFoundException;
 import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.application.service.WorkflowInstanceMailbox;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -25,14 +26,16 @@ import org.springframework.web.bind.annotation.*;
 @SecurityRequirement(name = "bearerAuth")
 public class WorkflowInstanceController {
     private final WorkflowInstanceApplication instanceApplication;
+    private final WorkflowInstanceMailbox workflowInstanceMailbox;
 
-    public WorkflowInstanceController(WorkflowInstanceApplication instanceApplication) {
+    public WorkflowInstanceController(WorkflowInstanceApplication instanceApplication, WorkflowInstanceMailbox workflowInstanceMailbox) {
         this.instanceApplication = instanceApplication;
+        this.workflowInstanceMailbox = workflowInstanceMailbox;
     }
 
     @GetMapping
     public PageInfo<WorkflowInstanceVo> findAll(WorkflowInstanceSearchDto searchDto) {
-        var page = this.instanceApplication.findAllPage(
+        var page = this.instanceApplication.findSummaryPage(
                 searchDto.getId(),
                 searchDto.getName(),
                 searchDto.getWorkflowVersion(),
@@ -41,7 +44,7 @@ public class WorkflowInstanceController {
                 searchDto.getPageSize()
         );
         var instances = page.getList();
-        var newInstances = WorkflowInstanceMapper.INSTANCE.toWorkflowInstanceVoList(instances);
+        var newInstances = WorkflowInstanceMapper.INSTANCE.toSummaryVoList(instances);
         PageInfo<WorkflowInstanceVo> newPage = PageUtils.pageInfo2PageInfoVo(page);
         newPage.setList(newInstances);
         return newPage;
@@ -61,7 +64,8 @@ public class WorkflowInstanceController {
             @Parameter(description = "流程实例ID") @PathVariable String instanceId,
             @Parameter(description = "启动节点定义名") @PathVariable String nodeRef
     ) {
-        this.instanceApplication.start(instanceId, nodeRef);
+        this.workflowInstanceMailbox.execute(instanceId, "start " + nodeRef,
+                () -> this.instanceApplication.start(instanceId, nodeRef));
     }
 
     @PutMapping("/stop/{instanceId}")
@@ -69,6 +73,7 @@ public class WorkflowInstanceController {
     public void stop(
             @Parameter(description = "流程实例ID") @PathVariable String instanceId
     ) {
-        this.instanceApplication.stop(instanceId);
+        this.workflowInstanceMailbox.execute(instanceId, "stop",
+                () -> this.instanceApplication.stop(instanceId));
     }
 }
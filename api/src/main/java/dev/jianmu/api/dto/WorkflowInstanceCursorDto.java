@@ -0,0 +1,25 @@
+package dev.jianmu.api.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * @class: WorkflowInstanceCursorDto
+ * @description: 流程实例游标分页DTO
+ * @author: Ethan Liu
+ * @create: 2021-10-22 17:10
+ **/
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(description = "流程实例游标分页DTO")
+public class WorkflowInstanceCursorDto {
+    @Schema(description = "上一页最后一条的执行顺序号，为空时从最新一条开始")
+    private Integer lastSerialNo;
+    @Schema(description = "每页数量，为空时返回全部")
+    private Integer pageSize;
+}
@@ -1,7 +1,9 @@
 package dev.jianmu.api.eventhandler;
 
+import dev.jianmu.application.service.EmbeddedWorkerApplication;
 import dev.jianmu.application.service.ProjectApplication;
 import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.infrastructure.AppConfig;
 import dev.jianmu.project.event.CreatedEvent;
 import dev.jianmu.project.event.DeletedEvent;
 import dev.jianmu.project.event.TriggerEvent;
@@ -21,18 +23,23 @@ import org.springframework.stereotype.Component;
 public class ProjectEventHandler {
     private final WorkflowInstanceApplication workflowInstanceApplication;
     private final ProjectApplication projectApplication;
+    private final EmbeddedWorkerApplication embeddedWorkerApplication;
 
     public ProjectEventHandler(
             WorkflowInstanceApplication workflowInstanceApplication,
-            ProjectApplication projectApplication
+            ProjectApplication projectApplication,
+            EmbeddedWorkerApplication embeddedWorkerApplication
     ) {
         this.workflowInstanceApplication = workflowInstanceApplication;
         this.projectApplication = projectApplication;
+        this.embeddedWorkerApplication = embeddedWorkerApplication;
     }
 
-    @Async
+    @Async(AppConfig.TRIGGER_EXECUTOR)
     @EventListener
     public void handleTriggerEvent(TriggerEvent triggerEvent) {
+        // 流程启动前在后台预拉取节点使用的镜像，后续任务不再等待下载
+        this.embeddedWorkerApplication.prePullImages(triggerEvent.getWorkflowRef(), triggerEvent.getWorkflowVersion());
         // 使用project id与WorkflowVersion作为triggerId,用于参数引用查询，参见WorkerApplication#getEnvironmentMap
         this.workflowInstanceApplication.createAndStart(
                 triggerEvent.getTriggerId(),
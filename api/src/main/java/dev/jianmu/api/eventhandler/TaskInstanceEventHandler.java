@@ -1,13 +1,17 @@
 package dev.jianmu.api.eventhandler;
 
 import dev.jianmu.api.mapper.TaskResultMapper;
+import dev.jianmu.application.exception.DataNotFoundException;
 import dev.jianmu.application.service.TaskInstanceApplication;
 import dev.jianmu.application.service.WorkerApplication;
 import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.application.service.WorkflowInstanceMailbox;
+import dev.jianmu.infrastructure.AppConfig;
 import dev.jianmu.infrastructure.docker.TaskFailedEvent;
 import dev.jianmu.infrastructure.docker.TaskFinishedEvent;
 import dev.jianmu.infrastructure.docker.TaskRunningEvent;
-import dev.jianmu.task.aggregate.TaskInstance;
+import dev.jianmu.task.aggregate.InstanceStatus;
+import dev.jianmu.task.event.TaskInstanceCreatedEvent;
 import dev.jianmu.task.event.TaskInstanceFailedEvent;
 import dev.jianmu.task.event.TaskInstanceRunningEvent;
 import dev.jianmu.task.event.TaskInstanceSucceedEvent;
@@ -18,8 +22,6 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.event.TransactionalEventListener;
 
 /**
  * @class: TaskInstanceEventHandler
@@ -33,15 +35,18 @@ public class TaskInstanceEventHandler {
     private final TaskInstanceApplication taskInstanceApplication;
     private final WorkflowInstanceApplication workflowInstanceApplication;
     private final WorkerApplication workerApplication;
+    private final WorkflowInstanceMailbox workflowInstanceMailbox;
 
     public TaskInstanceEventHandler(
             TaskInstanceApplication taskInstanceApplication,
             WorkflowInstanceApplication workflowInstanceApplication,
-            WorkerApplication workerApplication
+            WorkerApplication workerApplication,
+            WorkflowInstanceMailbox workflowInstanceMailbox
     ) {
         this.taskInstanceApplication = taskInstanceApplication;
         this.workflowInstanceApplication = workflowInstanceApplication;
         this.workerApplication = workerApplication;
+        this.workflowInstanceMailbox = workflowInstanceMailbox;
     }
 
     @EventListener
@@ -75,48 +80,61 @@ public class TaskInstanceEventHandler {
         this.taskInstanceApplication.executeFailed(taskFailedEvent.getTaskId());
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    public void handleTaskInstanceEvent(TaskInstance taskInstance) {
-//        this.taskInstanceQueue.put(taskInstance);
+    // 任务实例事件由DomainEventRelay从发件箱投递，分发失败时事件保留在发件箱中重新投递
+    @EventListener
+    public void handleTaskInstanceCreatedEvent(TaskInstanceCreatedEvent event) {
         // 任务上下文抛出事件通知Worker
+        var taskInstance = this.taskInstanceApplication.findById(event.getTaskInstanceId())
+                .orElseThrow(() -> new DataNotFoundException("未找到该任务实例"));
+        if (taskInstance.getStatus() != InstanceStatus.WAITING) {
+            // 重复投递时已开始执行的任务不再分发
+            logger.info("Task instance id: {}  ref: {} is already dispatched", taskInstance.getId(), taskInstance.getAsyncTaskRef());
+            return;
+        }
         this.workerApplication.dispatchTask(taskInstance, false);
         logger.info("Task instance id: {}  ref: {} is running", taskInstance.getId(), taskInstance.getAsyncTaskRef());
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    // 任务实例状态事件在流程实例邮箱中通知流程上下文
+    @EventListener
     public void handleTaskInstanceRunningEvent(TaskInstanceRunningEvent event) {
         // 任务上下文抛出事件通知流程上下文
         logger.info("get TaskInstanceRunningEvent: {}", event);
-        this.workflowInstanceApplication.taskRun(event.getTaskInstanceId());
+        this.workflowInstanceMailbox.submit(event.getBusinessId(), "taskRun " + event.getAsyncTaskRef(),
+                () -> this.workflowInstanceApplication.taskRun(event.getTaskInstanceId()));
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    @EventListener
     public void handleTaskInstanceSucceedEvent(TaskInstanceSucceedEvent event) {
         // 任务上下文抛出事件通知流程上下文
         logger.info("get TaskInstanceSucceedEvent: {}", event);
-        this.workflowInstanceApplication.taskSucceed(event.getTaskInstanceId());
+        this.workflowInstanceMailbox.submit(event.getBusinessId(), "taskSucceed " + event.getAsyncTaskRef(),
+                () -> this.workflowInstanceApplication.taskSucceed(event.getTaskInstanceId()));
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    @EventListener
     public void handleTaskInstanceFailedEvent(TaskInstanceFailedEvent event) {
         // 任务上下文抛出事件通知流程上下文
         logger.info("get TaskInstanceFailedEvent: {}", event);
-        this.workflowInstanceApplication.taskFail(event.getTaskInstanceId());
+        this.workflowInstanceMailbox.submit(event.getBusinessId(), "taskFail " + event.getAsyncTaskRef(),
+                () -> this.workflowInstanceApplication.taskFail(event.getTaskInstanceId()));
     }
 
     @EventListener
-    @Async
+    @Async(AppConfig.WORKER_EXECUTOR)
     public void handleApplicationReadyEvent(ApplicationReadyEvent event) {
         var taskInstances = this.taskInstanceApplication.findRunningTask();
         logger.info("恢复仍在运行中的任务数量：{}", taskInstances.size());
+        // 批量分发，节点定义、参数与密钥按类别批量查询
+        var failures = this.workerApplication.dispatchTasks(taskInstances, true);
         taskInstances.forEach(taskInstance -> {
-            try {
-                this.workerApplication.dispatchTask(taskInstance, true);
+            var e = failures.get(taskInstance.getId());
+            if (e == null) {
                 logger.info("Task instance id: {}  ref: {} is resumed", taskInstance.getId(), taskInstance.getAsyncTaskRef());
-            } catch (Exception e) {
-                logger.warn("Task instance id: {}  ref: {} is resume failed, due to: {}", taskInstance.getId(), taskInstance.getAsyncTaskRef(), e.getMessage());
-                this.taskInstanceApplication.executeFailed(taskInstance.getId());
+                return;
             }
+            logger.warn("Task instance id: {}  ref: {} is resume failed, due to: {}", taskInstance.getId(), taskInstance.getAsyncTaskRef(), e.getMessage());
+            this.taskInstanceApplication.executeFailed(taskInstance.getId());
         });
     }
 }
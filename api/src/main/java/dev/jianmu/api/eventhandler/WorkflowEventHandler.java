@@ -3,12 +3,13 @@ package dev.jianmu.api.eventhandler;
 import dev.jianmu.application.service.TaskInstanceApplication;
 import dev.jianmu.application.service.WorkerApplication;
 import dev.jianmu.application.service.WorkflowInstanceApplication;
-import dev.jianmu.workflow.aggregate.AggregateRoot;
+import dev.jianmu.application.service.WorkflowInstanceMailbox;
+import dev.jianmu.infrastructure.AppConfig;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import dev.jianmu.workflow.event.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
@@ -28,26 +29,22 @@ public class WorkflowEventHandler {
     private final WorkflowInstanceApplication instanceApplication;
     private final TaskInstanceApplication taskInstanceApplication;
     private final WorkerApplication workerApplication;
-    private final ApplicationEventPublisher publisher;
+    private final WorkflowInstanceMailbox workflowInstanceMailbox;
 
-    public WorkflowEventHandler(WorkflowInstanceApplication instanceApplication, TaskInstanceApplication taskInstanceApplication, WorkerApplication workerApplication, ApplicationEventPublisher publisher) {
+    public WorkflowEventHandler(WorkflowInstanceApplication instanceApplication, TaskInstanceApplication taskInstanceApplication, WorkerApplication workerApplication, WorkflowInstanceMailbox workflowInstanceMailbox) {
         this.instanceApplication = instanceApplication;
         this.taskInstanceApplication = taskInstanceApplication;
         this.workerApplication = workerApplication;
-        this.publisher = publisher;
+        this.workflowInstanceMailbox = workflowInstanceMailbox;
     }
 
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    public void handleAggregateRootEvents(AggregateRoot aggregateRoot) {
-        logger.info("Get AggregateRoot here -------------------------");
-        aggregateRoot.getUncommittedDomainEvents().forEach(event -> {
-            logger.info("publishEvent here");
-            this.publisher.publishEvent(event);
-        });
-        logger.info("-----------------------------------------------------");
+    // 与流程实例在同一事务中更新项目执行摘要，每次保存都从流程实例状态计算，写入失败时流程实例一同回滚
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void handleLastRun(WorkflowInstance workflowInstance) {
+        this.instanceApplication.updateLastRun(workflowInstance);
     }
 
-    @Async
+    // 领域事件由DomainEventRelay从发件箱投递，任务实例创建与事件确认在同一事务中完成
     @EventListener
     public void handleTaskActivatingEvent(TaskActivatingEvent event) {
         MDC.put("triggerId", event.getTriggerId());
@@ -95,26 +92,30 @@ public class WorkflowEventHandler {
         logger.info(event.getName());
         logger.info(event.getNodeRef());
         logger.info("-----------------------------------------------------");
-        this.instanceApplication.stop(event.getWorkflowInstanceId());
+        this.workflowInstanceMailbox.submit(event.getWorkflowInstanceId(), "stop",
+                () -> this.instanceApplication.stop(event.getWorkflowInstanceId()));
         this.workerApplication.cleanupWorkspace(event.getTriggerId());
     }
 
-    @Async
+    // 同一流程实例的状态变更通过邮箱按顺序执行，避免乐观锁冲突
     @EventListener
     public void handleNodeActivatingEvent(NodeActivatingEvent event) {
         MDC.put("triggerId", event.getTriggerId());
         logger.info("Get NodeActivatingEvent here -------------------------");
         logger.info(event.getNodeRef());
-        this.instanceApplication.activateNode(event.getWorkflowInstanceId(), event.getNodeRef());
+        this.workflowInstanceMailbox.submit(event.getWorkflowInstanceId(), "activateNode " + event.getNodeRef(),
+                () -> this.instanceApplication.activateNode(event.getWorkflowInstanceId(), event.getNodeRef()));
         logger.info("handle NodeActivatingEvent end-----------------------------------------------------");
     }
 
+    // 网关激活时已在同一次保存中跳过未选中分支，这里只处理升级前写入发件箱的跳过事件
     @EventListener
     public void handleNodeSkipEvent(NodeSkipEvent event) {
         MDC.put("triggerId", event.getTriggerId());
         logger.info("Get NodeSkipEvent here -------------------------");
         logger.info(event.getNodeRef());
-        this.instanceApplication.skipNode(event.getWorkflowInstanceId(), event.getNodeRef());
+        this.workflowInstanceMailbox.submit(event.getWorkflowInstanceId(), "skipNode " + event.getNodeRef(),
+                () -> this.instanceApplication.skipNode(event.getWorkflowInstanceId(), event.getNodeRef()));
         logger.info("handle NodeSkipEvent end-----------------------------------------------------");
     }
 
@@ -129,14 +130,16 @@ public class WorkflowEventHandler {
         logger.info("-----------------------------------------------------");
     }
 
-    @Async
-    @EventListener
+    // 清理无法随事务回滚，事件确认提交后才执行，投递失败回滚时不会重复清理
+    @Async(AppConfig.CLEANUP_EXECUTOR)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void handleWorkflowEndEvent(WorkflowEndEvent event) {
         MDC.put("triggerId", event.getTriggerId());
         logger.info("Get WorkflowEndEvent here -------------------------");
         logger.info(event.getName());
         logger.info(event.getWorkflowInstanceId());
         logger.info(event.getTriggerId());
+        this.instanceApplication.releaseContext(event.getWorkflowInstanceId());
         logger.info("Delete Volume here -------------------------");
         this.workerApplication.cleanupWorkspace(event.getTriggerId());
         logger.info("-----------------------------------------------------");
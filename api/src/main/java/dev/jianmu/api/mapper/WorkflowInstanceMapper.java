@@ -1,6 +1,7 @@
 package dev.jianmu.api.mapper;
 
 import dev.jianmu.api.vo.WorkflowInstanceVo;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceSummary;
 import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
 import dev.jianmu.workflow.aggregate.process.TaskStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
@@ -24,4 +25,8 @@ public interface WorkflowInstanceMapper {
     WorkflowInstanceVo toWorkflowInstanceVo(WorkflowInstance workflowInstance);
 
     List<WorkflowInstanceVo> toWorkflowInstanceVoList(List<WorkflowInstance> workflowInstanceList);
+
+    WorkflowInstanceVo toWorkflowInstanceVo(WorkflowInstanceSummary summary);
+
+    List<WorkflowInstanceVo> toSummaryVoList(List<WorkflowInstanceSummary> summaries);
 }
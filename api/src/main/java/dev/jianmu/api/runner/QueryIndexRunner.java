@@ -0,0 +1,100 @@
+package dev.jianmu.api.runner;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @class: QueryIndexRunner
+ * @description: 启动时对高频查询执行EXPLAIN，未使用索引时输出告警
+ * @author: Ethan Liu
+ * @create: 2021-10-21 14:20
+ **/
+@Component
+public class QueryIndexRunner implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(QueryIndexRunner.class);
+
+    // 与Mapper中的查询条件保持一致，参数只用于生成执行计划
+    private static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+
+    static {
+        HOT_QUERIES.put("WorkflowInstanceMapper.findByRefAndVersionAndStatus",
+                "select * from workflow_instance where workflow_ref = 'ref' and workflow_version = 'v' and status = 'RUNNING'");
+        HOT_QUERIES.put("WorkflowInstanceMapper.findByRefAndSerialNoMax",
+                "select * from workflow_instance where workflow_ref = 'ref' order by serial_no desc limit 1");
+        HOT_QUERIES.put("WorkflowInstanceMapper.findSummaryByWorkflowRef",
+                "select id from workflow_instance where workflow_ref = 'ref' and serial_no < 10 order by serial_no desc limit 10");
+        HOT_QUERIES.put("TaskInstanceMapper.findByBusinessId",
+                "select * from task_instance where business_id = 'id' order by start_time asc");
+        HOT_QUERIES.put("TaskInstanceMapper.findRunningTask",
+                "select * from task_instance where status = 'RUNNING'");
+        HOT_QUERIES.put("TaskInstanceMapper.findByAsyncTaskRefAndBusinessId",
+                "select * from task_instance where async_task_ref = 'ref' and business_id = 'id'");
+        HOT_QUERIES.put("InstanceParameterMapper.findByBusinessId",
+                "select * from task_instance_parameter where business_id = 'id'");
+        HOT_QUERIES.put("InstanceParameterMapper.findByInstanceId",
+                "select * from task_instance_parameter where instance_id = 'id'");
+        HOT_QUERIES.put("InstanceParameterMapper.findByInstanceIdAndType",
+                "select * from task_instance_parameter where instance_id = 'id' and type = 'OUTPUT'");
+        HOT_QUERIES.put("InstanceParameterMapper.findOutputParamByBusinessIdAndTriggerId",
+                "select * from task_instance_parameter where business_id = 'id' and trigger_id = 'id' and type = 'OUTPUT'");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public QueryIndexRunner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        this.findUnindexedQueries().forEach(name -> logger.warn("查询 {} 没有可用的索引，数据量大时会全表扫描", name));
+    }
+
+    /**
+     * 返回没有可用索引的查询名称
+     *
+     * @return
+     */
+    public List<String> findUnindexedQueries() {
+        List<String> names = new ArrayList<>();
+        HOT_QUERIES.forEach((name, sql) -> {
+            try {
+                if (!this.hasIndex(this.jdbcTemplate.queryForList("explain " + sql))) {
+                    names.add(name);
+                }
+            } catch (RuntimeException e) {
+                // 检查失败不影响启动
+                logger.debug("无法获取查询 {} 的执行计划: {}", name, e.getMessage());
+            }
+        });
+        return names;
+    }
+
+    private boolean hasIndex(List<Map<String, Object>> plan) {
+        for (Map<String, Object> row : plan) {
+            // MySQL按表返回一行，possible_keys为空表示没有可用索引
+            if (row.containsKey("possible_keys")) {
+                if (row.get("possible_keys") == null && row.get("key") == null) {
+                    return false;
+                }
+                continue;
+            }
+            // H2返回查询计划文本，全表扫描时包含tableScan
+            for (Object value : row.values()) {
+                if (value != null && value.toString().toLowerCase().contains("tablescan")) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
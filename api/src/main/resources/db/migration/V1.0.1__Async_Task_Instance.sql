@@ -0,0 +1,17 @@
+CREATE TABLE `async_task_instance`
+(
+    `workflow_instance_id` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '流程实例ID',
+    `workflow_ref`         varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '流程定义唯一引用名称',
+    `async_task_ref`       varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '任务定义唯一引用名称',
+    `seq`                  int                                                           NOT NULL COMMENT '任务实例顺序',
+    `name`                 varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '显示名称',
+    `description`          varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '描述',
+    `async_task_type`      varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '任务定义类型',
+    `status`               varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '运行状态',
+    `start_time`           datetime(3)                                                   DEFAULT NULL COMMENT '开始时间',
+    `end_time`             datetime(3)                                                   DEFAULT NULL COMMENT '结束时间',
+    PRIMARY KEY (`workflow_instance_id`, `async_task_ref`),
+    KEY `idx_workflow_ref` (`workflow_ref`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci COMMENT ='异步任务实例表';
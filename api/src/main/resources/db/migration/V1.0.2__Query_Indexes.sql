@@ -0,0 +1,12 @@
+ALTER TABLE `workflow_instance`
+    ADD INDEX `idx_workflow_ref_serial_no` (`workflow_ref`, `serial_no`),
+    ADD INDEX `idx_workflow_ref_version_status` (`workflow_ref`, `workflow_version`, `status`);
+
+ALTER TABLE `task_instance`
+    ADD INDEX `idx_business_id_async_task_ref` (`business_id`, `async_task_ref`),
+    ADD INDEX `idx_status` (`status`),
+    ADD INDEX `idx_workflow_ref` (`workflow_ref`);
+
+ALTER TABLE `task_instance_parameter`
+    ADD INDEX `idx_instance_id_type` (`instance_id`, `type`),
+    ADD INDEX `idx_business_id_trigger_id_type` (`business_id`, `trigger_id`, `type`);
@@ -0,0 +1,12 @@
+CREATE TABLE `project_last_run`
+(
+    `workflow_ref`         varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '流程定义Ref',
+    `workflow_instance_id` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '流程实例ID',
+    `serial_no`            int                                                          NOT NULL COMMENT '执行顺序号',
+    `status`               varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '最后一次执行状态',
+    `start_time`           datetime DEFAULT NULL COMMENT '开始时间',
+    `end_time`             datetime DEFAULT NULL COMMENT '结束时间',
+    PRIMARY KEY (`workflow_ref`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci COMMENT ='项目最后一次执行摘要表';
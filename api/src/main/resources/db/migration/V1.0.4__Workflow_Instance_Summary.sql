@@ -0,0 +1,4 @@
+ALTER TABLE `workflow_instance`
+    ADD COLUMN `latest_task_status` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '最后启动的任务状态，为空时从任务实例列表计算' AFTER `task_instances`,
+    ADD INDEX `idx_name` (`name`),
+    ADD INDEX `idx_end_time` (`end_time`);
@@ -0,0 +1,13 @@
+CREATE TABLE `domain_event_outbox`
+(
+    `id`           bigint                                                        NOT NULL AUTO_INCREMENT COMMENT '投递顺序号',
+    `event_id`     varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '事件ID',
+    `aggregate_id` varchar(45) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci  NOT NULL COMMENT '流程实例ID',
+    `event_type`   varchar(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '事件类型',
+    `payload`      text CHARACTER SET utf8mb4 COLLATE utf8mb4_unicode_ci         NOT NULL COMMENT '事件内容',
+    `created_time` datetime                                                      NOT NULL COMMENT '写入时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_event_id` (`event_id`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci COMMENT ='领域事件发件箱表';
@@ -0,0 +1,16 @@
+INSERT INTO `project_last_run` (`workflow_ref`, `workflow_instance_id`, `serial_no`, `status`, `start_time`, `end_time`)
+SELECT w.`workflow_ref`,
+       w.`id`,
+       w.`serial_no`,
+       CASE
+           WHEN w.`status` = 'TERMINATED' THEN 'FAILED'
+           ELSE COALESCE(NULLIF(w.`latest_task_status`, ''), 'INIT') END,
+       w.`start_time`,
+       w.`end_time`
+FROM `workflow_instance` w
+WHERE w.`id` = (SELECT m.`id`
+                FROM `workflow_instance` m
+                WHERE m.`workflow_ref` = w.`workflow_ref`
+                ORDER BY m.`serial_no` DESC, m.`id` DESC
+                LIMIT 1)
+  AND NOT EXISTS(SELECT 1 FROM `project_last_run` p WHERE p.`workflow_ref` = w.`workflow_ref`);
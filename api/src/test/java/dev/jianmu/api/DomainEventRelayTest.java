@@ -0,0 +1,230 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.service.DomainEventRelay;
+import dev.jianmu.application.service.DomainEventRelayProperties;
+import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mybatis.outbox.DomainEventOutboxRepository;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
+import dev.jianmu.task.event.TaskInstanceSucceedEvent;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.event.TaskActivatingEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: DomainEventRelayTest
+ * @description: 领域事件发件箱与投递测试
+ * @author: Ethan Liu
+ * @create: 2021-10-27 11:10
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@Import(DomainEventRelayTest.Config.class)
+@DisplayName("领域事件发件箱与投递测试")
+public class DomainEventRelayTest {
+    private static final String INSTANCE_ID = "relay_instance";
+
+    @Resource
+    private DomainEventOutboxRepository domainEventOutboxRepository;
+    @Resource
+    private DomainEventRelay domainEventRelay;
+    @Resource
+    private DomainEventRelayProperties domainEventRelayProperties;
+    @Resource
+    private WorkflowInstanceRepositoryImpl workflowInstanceRepository;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+    @Resource
+    private Collector collector;
+
+    @BeforeEach
+    void setUp() {
+        // 测试配置中不自动投递，清除其他测试写入的事件
+        this.jdbcTemplate.update("delete from domain_event_outbox");
+        this.jdbcTemplate.update("delete from domain_event_dead_letter");
+        this.collector.reset();
+    }
+
+    private int outboxSize() {
+        return this.domainEventOutboxRepository.findFirst(1000).size();
+    }
+
+    @Test
+    @DisplayName("流程实例领域事件与聚合在同一事务中写入测试")
+    void workflowEventTest() {
+        WorkflowInstance instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_relay")
+                .triggerType("MANUAL")
+                .name("relay")
+                .workflowRef("relay_wl")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(AsyncTask.Builder.anAsyncTask().name("task_1").ref("task_1").type("shell:1.0").build());
+        var transactionTemplate = new TransactionTemplate(this.transactionManager);
+        // 回滚时事件不写入
+        transactionTemplate.executeWithoutResult(status -> {
+            this.workflowInstanceRepository.add(instance);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, this.outboxSize());
+
+        transactionTemplate.executeWithoutResult(status -> this.workflowInstanceRepository.add(instance));
+        var rows = this.domainEventOutboxRepository.findFirst(10);
+        assertEquals(1, rows.size());
+        var event = (TaskActivatingEvent) this.domainEventOutboxRepository.toEvent(rows.get(0));
+        assertEquals(instance.getId(), rows.get(0).getAggregateId());
+        assertEquals(instance.getId(), event.getWorkflowInstanceId());
+        assertEquals("task_1", event.getNodeRef());
+        assertEquals(rows.get(0).getEventId(), event.getIdentify());
+
+        // 重复写入同一事件时忽略
+        this.domainEventOutboxRepository.addAll(instance.getId(), instance.getUncommittedDomainEvents());
+        assertEquals(1, this.outboxSize());
+
+        this.jdbcTemplate.update("delete from domain_event_outbox");
+        this.workflowInstanceRepository.deleteByWorkflowRef("relay_wl");
+    }
+
+    @Test
+    @DisplayName("任务实例事件序列化测试")
+    void taskEventTest() {
+        var event = TaskInstanceSucceedEvent.Builder.aTaskInstanceSucceedEvent()
+                .taskInstanceId("task_instance_1")
+                .defKey("shell:1.0")
+                .asyncTaskRef("task_1")
+                .businessId(INSTANCE_ID)
+                .build();
+        this.domainEventOutboxRepository.add(INSTANCE_ID, event.getIdentify(), event);
+        var row = this.domainEventOutboxRepository.findFirst(10).get(0);
+        var restored = (TaskInstanceSucceedEvent) this.domainEventOutboxRepository.toEvent(row);
+        assertEquals("task_instance_1", restored.getTaskInstanceId());
+        assertEquals(INSTANCE_ID, restored.getBusinessId());
+        assertEquals("task_1", restored.getAsyncTaskRef());
+        assertEquals(event.getIdentify(), restored.getIdentify());
+        assertEquals(event.getOccurredTime(), restored.getOccurredTime());
+        assertTrue(this.domainEventOutboxRepository.deleteById(row.getId()));
+        assertFalse(this.domainEventOutboxRepository.deleteById(row.getId()));
+    }
+
+    private List<String> deadLetters() {
+        return this.jdbcTemplate.queryForList("select event_id from domain_event_dead_letter order by id", String.class);
+    }
+
+    @Test
+    @DisplayName("按顺序投递且冲突重试时不重复处理测试")
+    void drainTest() {
+        for (String value : List.of("a", "conflict", "b", "poison", "c")) {
+            var event = new RelayTestEvent(value);
+            this.domainEventOutboxRepository.add(INSTANCE_ID, value, event);
+        }
+        this.domainEventRelay.drain().join();
+        // 冲突的事件重新执行，已确认的事件跳过，处理失败的事件与同一流程实例的后续事件保留在发件箱中
+        assertEquals(List.of("a", "conflict", "b"), this.collector.values);
+        assertEquals(2, this.collector.conflictAttempts.get());
+        // 事务提交后的处理只在投递成功时执行一次
+        assertEquals(List.of("a", "conflict", "b"), this.collector.committed);
+        var rows = this.domainEventOutboxRepository.findFirst(10);
+        assertEquals(2, rows.size());
+        assertEquals("poison", rows.get(0).getEventId());
+        assertEquals(1, rows.get(0).getAttempts());
+
+        // 失败次数达到上限后移入死信表，后续事件继续投递
+        for (int i = 1; i < this.domainEventRelayProperties.getMaxAttempts(); i++) {
+            this.domainEventRelay.drain().join();
+        }
+        assertEquals(List.of("a", "conflict", "b", "c"), this.collector.values);
+        assertEquals(this.domainEventRelayProperties.getMaxAttempts(), this.collector.poisonAttempts.get());
+        assertEquals(0, this.outboxSize());
+        assertEquals(List.of("poison"), this.deadLetters());
+    }
+
+    @Test
+    @DisplayName("无法解析的事件直接移入死信表测试")
+    void unreadableEventTest() {
+        this.domainEventOutboxRepository.add(INSTANCE_ID, "a", new RelayTestEvent("a"));
+        this.domainEventOutboxRepository.add(INSTANCE_ID, "b", new RelayTestEvent("b"));
+        this.jdbcTemplate.update("update domain_event_outbox set event_type = 'dev.jianmu.NotExistEvent' where event_id = 'a'");
+        this.domainEventRelay.drain().join();
+        assertEquals(List.of("b"), this.collector.values);
+        assertEquals(0, this.outboxSize());
+        assertEquals(List.of("a"), this.deadLetters());
+    }
+
+    public static class RelayTestEvent {
+        private String value;
+
+        private RelayTestEvent() {
+        }
+
+        public RelayTestEvent(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    public static class Collector {
+        private final List<String> values = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> committed = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger conflictAttempts = new AtomicInteger();
+        private final AtomicInteger poisonAttempts = new AtomicInteger();
+
+        private void reset() {
+            this.values.clear();
+            this.committed.clear();
+            this.conflictAttempts.set(0);
+            this.poisonAttempts.set(0);
+        }
+
+        @EventListener
+        public void handle(RelayTestEvent event) {
+            if (event.getValue().equals("conflict") && this.conflictAttempts.getAndIncrement() == 0) {
+                throw new DBException.OptimisticLocking("版本冲突");
+            }
+            if (event.getValue().equals("poison")) {
+                this.poisonAttempts.incrementAndGet();
+                throw new IllegalStateException("无法处理");
+            }
+            this.values.add(event.getValue());
+        }
+
+        @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+        public void afterCommit(RelayTestEvent event) {
+            this.committed.add(event.getValue());
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        public Collector relayTestCollector() {
+            return new Collector();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.service.InstanceContextCache;
+import dev.jianmu.task.aggregate.InstanceParameter;
+import dev.jianmu.task.repository.InstanceParameterRepository;
+import dev.jianmu.workflow.aggregate.definition.End;
+import dev.jianmu.workflow.aggregate.definition.GlobalParameter;
+import dev.jianmu.workflow.aggregate.definition.Start;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.repository.ParameterRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: InstanceContextCacheTest
+ * @description: 流程实例表达式上下文快照缓存测试
+ * @author: Ethan Liu
+ * @create: 2021-10-22 11:10
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("流程实例表达式上下文快照缓存测试")
+public class InstanceContextCacheTest {
+    private static final String INSTANCE_ID = "ctx_instance";
+    private static final String TRIGGER_ID = "ctx_trigger";
+
+    @Resource
+    private InstanceContextCache instanceContextCache;
+    @Resource
+    private InstanceParameterRepository instanceParameterRepository;
+    @Resource
+    private ParameterRepository parameterRepository;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    private Workflow workflow() {
+        var start = Start.Builder.aStart().name("Start").ref("start").build();
+        var end = End.Builder.anEnd().name("End").ref("end").build();
+        return Workflow.Builder.aWorkflow()
+                .name("ctx")
+                .ref("ctx_wl")
+                .type(Workflow.Type.WORKFLOW)
+                .nodes(Set.of(start, end))
+                .globalParameters(Set.of(GlobalParameter.Builder.aGlobalParameter().name("env").value("test").build()))
+                .dslText("")
+                .build();
+    }
+
+    private Map<InstanceParameter, Parameter<?>> output(String taskRef, String ref, String value) {
+        var parameter = Parameter.Type.STRING.newParameter(value);
+        var instanceParameter = InstanceParameter.Builder.anInstanceParameter()
+                .instanceId(taskRef + "_instance")
+                .serialNo(1)
+                .asyncTaskRef(taskRef)
+                .defKey("shell:1.0")
+                .businessId(INSTANCE_ID)
+                .triggerId(TRIGGER_ID)
+                .ref(ref)
+                .type(InstanceParameter.Type.OUTPUT)
+                .parameterId(parameter.getId())
+                .build();
+        return Map.of(instanceParameter, parameter);
+    }
+
+    private Object save(Map<InstanceParameter, Parameter<?>> outputs) {
+        this.instanceParameterRepository.addAll(outputs.keySet());
+        this.parameterRepository.addAll(List.copyOf(outputs.values()));
+        // 返回从数据库读回的参数值
+        var ids = outputs.values().stream().map(Parameter::getId).collect(Collectors.toSet());
+        return this.parameterRepository.findByIds(ids).get(0).getValue();
+    }
+
+    @Test
+    @DisplayName("快照加载与增量追加测试")
+    void findContextTest() {
+        var workflow = this.workflow();
+        var value1 = this.save(this.output("task_1", "out", "a"));
+
+        var context = this.instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID);
+        assertEquals("test", context.getVariable("global.env"));
+        assertEquals(value1, context.getVariable("task_1.out"));
+        assertTrue(this.instanceContextCache.getSnapshotCache().getIfPresent(INSTANCE_ID).isLoaded());
+
+        // 快照加载后不再查询数据库
+        var value2 = this.save(this.output("task_2", "out", "b"));
+        context = this.instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID);
+        assertEquals("${task_2.out}", context.getVariable("task_2.out"));
+
+        // 任务输出参数增量追加
+        this.instanceContextCache.addOutputParameters(INSTANCE_ID, this.output("task_3", "out", "c"));
+        context = this.instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID);
+        assertEquals(value1, context.getVariable("task_1.out"));
+        assertEquals("c", context.getVariable("task_3.out"));
+
+        // 移除后重新加载
+        this.instanceContextCache.evict(INSTANCE_ID);
+        context = this.instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID);
+        assertEquals(value2, context.getVariable("task_2.out"));
+        this.instanceContextCache.evict(INSTANCE_ID);
+    }
+
+    @Test
+    @DisplayName("输出参数追加前不使用缓存快照测试")
+    void pendingAppendTest() {
+        var workflow = this.workflow();
+        this.instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID);
+        var outputs = this.output("task_4", "out", "d");
+        List<Object> values = new ArrayList<>();
+        new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+            var value = this.save(outputs);
+            values.add(value);
+            // 先于追加执行，模拟事务提交后立即处理后续事件
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    values.add(instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID).getVariable("task_4.out"));
+                }
+            });
+            this.instanceContextCache.addOutputParameters(INSTANCE_ID, outputs);
+        });
+        assertEquals(values.get(0), values.get(1));
+        // 追加完成后使用缓存快照
+        assertEquals("d", this.instanceContextCache.findContext(workflow, INSTANCE_ID, TRIGGER_ID).getVariable("task_4.out"));
+        this.instanceContextCache.evict(INSTANCE_ID);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.mybatis.parameter.ParameterRepositoryImpl;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: ParameterRepositoryTest
+ * @description: 参数仓储去重与缓存测试
+ * @author: Ethan Liu
+ * @create: 2021-10-22 14:50
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("参数仓储去重与缓存测试")
+public class ParameterRepositoryTest {
+    @Resource
+    private ParameterRepositoryImpl parameterRepository;
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    private int count(String id) {
+        return this.jdbcTemplate.queryForObject("select count(*) from parameter where id = ?", Integer.class, id);
+    }
+
+    @Test
+    @DisplayName("相同内容参数只存储一份测试")
+    void addAllTest() {
+        Parameter p1 = Parameter.Type.STRING.newParameter("dedup_value");
+        Parameter p2 = Parameter.Type.STRING.newParameter("dedup_value");
+        this.parameterRepository.addAll(List.of(p1, p2));
+        this.parameterRepository.addAll(List.of(Parameter.Type.STRING.newParameter("dedup_value")));
+        assertEquals(1, this.count(p1.getId()));
+    }
+
+    @Test
+    @DisplayName("按ID查询缓存测试")
+    void findByIdsTest() {
+        Parameter p1 = Parameter.Type.NUMBER.newParameter(20211022);
+        Parameter p2 = Parameter.Type.BOOL.newParameter(true);
+        this.parameterRepository.addAll(List.of(p1, p2));
+        var cache = this.parameterRepository.getParameterCache();
+        cache.clear();
+
+        assertEquals(2, this.parameterRepository.findByIds(Set.of(p1.getId(), p2.getId())).size());
+        long hitCount = cache.getHitCount();
+        var parameters = this.parameterRepository.findByIds(Set.of(p1.getId(), p2.getId()));
+        assertEquals(2, parameters.size());
+        assertEquals(hitCount + 2, cache.getHitCount());
+    }
+}
@@ -0,0 +1,112 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.service.WorkflowInstanceApplication;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
+import dev.jianmu.project.repository.ProjectLastRunRepository;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: ProjectLastRunTest
+ * @description: 项目执行摘要测试
+ * @author: Ethan Liu
+ * @create: 2021-10-22 14:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("项目执行摘要测试")
+public class ProjectLastRunTest {
+    @Resource
+    private WorkflowInstanceRepositoryImpl workflowInstanceRepository;
+    @Resource
+    private WorkflowInstanceApplication workflowInstanceApplication;
+    @Resource
+    private ProjectLastRunRepository projectLastRunRepository;
+    @Resource
+    private DataSource dataSource;
+
+    private WorkflowInstance instance(int serialNo) {
+        WorkflowInstance instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(serialNo)
+                .triggerId("trigger_last_run" + serialNo)
+                .triggerType("MANUAL")
+                .name("last_run")
+                .workflowRef("last_run_wl")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(AsyncTask.Builder.anAsyncTask().name("task_1").ref("task_1").type("shell:1.0").build());
+        return this.workflowInstanceRepository.add(instance);
+    }
+
+    @AfterEach
+    void clean() {
+        this.workflowInstanceRepository.deleteByWorkflowRef("last_run_wl");
+        this.projectLastRunRepository.deleteByWorkflowRef("last_run_wl");
+    }
+
+    @Test
+    @DisplayName("流程事件更新执行摘要测试")
+    void updateTest() {
+        var first = this.instance(1);
+        var second = this.instance(2);
+        second.taskRun("task_1");
+        this.workflowInstanceRepository.save(second);
+        var lastRun = this.projectLastRunRepository.findByWorkflowRefs(List.of("last_run_wl")).get(0);
+        assertEquals(2, lastRun.getSerialNo());
+        assertEquals("RUNNING", lastRun.getStatus());
+
+        // 较早的流程实例不会覆盖摘要
+        first.taskRun("task_1");
+        this.workflowInstanceRepository.save(first);
+        lastRun = this.projectLastRunRepository.findByWorkflowRefs(List.of("last_run_wl")).get(0);
+        assertEquals(second.getId(), lastRun.getWorkflowInstanceId());
+
+        second.terminate();
+        this.workflowInstanceRepository.save(second);
+        lastRun = this.projectLastRunRepository.findByWorkflowRefs(List.of("last_run_wl")).get(0);
+        assertEquals("FAILED", lastRun.getStatus());
+        assertNotNull(lastRun.getEndTime());
+    }
+
+    @Test
+    @DisplayName("只跳过任务时更新执行摘要测试")
+    void skipTest() {
+        var instance = this.instance(1);
+        instance.skipNodes(List.of(AsyncTask.Builder.anAsyncTask().name("task_2").ref("task_2").type("shell:1.0").build()));
+        this.workflowInstanceRepository.save(instance);
+        var lastRun = this.projectLastRunRepository.findByWorkflowRefs(List.of("last_run_wl")).get(0);
+        assertEquals("SKIPPED", lastRun.getStatus());
+    }
+
+    @Test
+    @DisplayName("历史数据执行摘要迁移测试")
+    void backfillTest() throws Exception {
+        this.instance(1);
+        this.instance(2);
+        // 模拟升级前的数据，查询不回写
+        this.projectLastRunRepository.deleteByWorkflowRef("last_run_wl");
+        assertTrue(this.workflowInstanceApplication.findLastRuns(List.of("last_run_wl", "last_run_none")).isEmpty());
+        assertTrue(this.projectLastRunRepository.findByWorkflowRefs(List.of("last_run_wl")).isEmpty());
+
+        try (var connection = this.dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("testdb/migration/V1.0.8__Backfill_Project_Last_Run.sql"));
+        }
+        var lastRuns = this.workflowInstanceApplication.findLastRuns(List.of("last_run_wl", "last_run_none"));
+        assertEquals(1, lastRuns.size());
+        assertEquals(2, lastRuns.get("last_run_wl").getSerialNo());
+        assertEquals("INIT", lastRuns.get("last_run_wl").getStatus());
+    }
+}
@@ -0,0 +1,48 @@
+package dev.jianmu.api;
+
+import dev.jianmu.api.runner.QueryIndexRunner;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: QueryIndexRunnerTest
+ * @description: 高频查询索引检查测试
+ * @author: Ethan Liu
+ * @create: 2021-10-21 15:10
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("高频查询索引检查测试")
+public class QueryIndexRunnerTest {
+    @Resource
+    private QueryIndexRunner queryIndexRunner;
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("高频查询均使用索引测试")
+    void indexedTest() {
+        assertTrue(this.queryIndexRunner.findUnindexedQueries().isEmpty());
+    }
+
+    @Test
+    @DisplayName("缺少索引时告警测试")
+    void unindexedTest() {
+        this.jdbcTemplate.execute("drop index `idx_task_instance_status`");
+        try {
+            assertEquals(List.of("TaskInstanceMapper.findRunningTask"), this.queryIndexRunner.findUnindexedQueries());
+        } finally {
+            this.jdbcTemplate.execute("create index `idx_task_instance_status` on `task_instance` (`status`)");
+        }
+    }
+}
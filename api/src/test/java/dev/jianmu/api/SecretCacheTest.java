@@ -0,0 +1,90 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.service.SecretApplication;
+import dev.jianmu.application.service.SecretCache;
+import dev.jianmu.application.service.SecretCacheProperties;
+import dev.jianmu.secret.aggregate.KVPair;
+import dev.jianmu.secret.aggregate.Namespace;
+import dev.jianmu.secret.repository.KVPairRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: SecretCacheTest
+ * @description: 密钥缓存测试
+ * @author: Ethan Liu
+ * @create: 2021-10-23 11:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("密钥缓存测试")
+public class SecretCacheTest {
+    @Resource
+    private SecretCache secretCache;
+    @Resource
+    private SecretApplication secretApplication;
+    @Resource
+    private KVPairRepository kvPairRepository;
+
+    private KVPair kvPair(String namespaceName, String key, String value) {
+        var kv = new KVPair();
+        kv.setNamespaceName(namespaceName);
+        kv.setKey(key);
+        kv.setValue(value);
+        return kv;
+    }
+
+    @Test
+    @DisplayName("缓存命中与修改失效测试")
+    void invalidateTest() {
+        var namespace = new Namespace();
+        namespace.setName("cache_ns");
+        this.secretApplication.createNamespace(namespace);
+        this.secretApplication.createKVPair(this.kvPair("cache_ns", "password", "p1"));
+
+        var refs = Set.of("cache_ns.password", "cache_ns.token");
+        long missCount = this.secretCache.getMissCount();
+        assertEquals(Map.of("cache_ns.password", "p1"), this.secretCache.findAll(refs));
+        assertEquals(missCount + 2, this.secretCache.getMissCount());
+
+        // 存在与不存在的结果均命中缓存
+        long hitCount = this.secretCache.getHitCount();
+        assertEquals(Map.of("cache_ns.password", "p1"), this.secretCache.findAll(refs));
+        assertEquals(hitCount + 2, this.secretCache.getHitCount());
+
+        // 新增与删除密钥后立即生效
+        this.secretApplication.createKVPair(this.kvPair("cache_ns", "token", "t1"));
+        this.secretApplication.deleteKVPair("cache_ns", "password");
+        assertEquals(Map.of("cache_ns.token", "t1"), this.secretCache.findAll(refs));
+
+        this.secretApplication.deleteNamespace("cache_ns");
+        assertEquals(Map.of(), this.secretCache.findAll(refs));
+    }
+
+    @Test
+    @DisplayName("缓存过期测试")
+    void ttlTest() {
+        var properties = new SecretCacheProperties();
+        properties.setTtl(Duration.ZERO);
+        var cache = new SecretCache(this.kvPairRepository, properties);
+        this.kvPairRepository.add(this.kvPair("ttl_ns", "password", "p1"));
+        assertEquals(Map.of("ttl_ns.password", "p1"), cache.findAll(Set.of("ttl_ns.password")));
+
+        // 绕过应用服务修改，过期后读取到新值
+        this.kvPairRepository.delete("ttl_ns", "password");
+        this.kvPairRepository.add(this.kvPair("ttl_ns", "password", "p2"));
+        assertEquals(Map.of("ttl_ns.password", "p2"), cache.findAll(Set.of("ttl_ns.password")));
+        assertEquals(0, cache.getHitCount());
+
+        this.kvPairRepository.delete("ttl_ns");
+    }
+}
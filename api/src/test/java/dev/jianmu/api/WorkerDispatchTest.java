@@ -0,0 +1,214 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.query.NodeDef;
+import dev.jianmu.application.query.NodeDefApi;
+import dev.jianmu.application.service.DomainEventRelay;
+import dev.jianmu.application.service.WorkerApplication;
+import dev.jianmu.infrastructure.mybatis.outbox.DomainEventOutboxRepository;
+import dev.jianmu.infrastructure.mybatis.parameter.ParameterRepositoryImpl;
+import dev.jianmu.secret.aggregate.KVPair;
+import dev.jianmu.secret.repository.KVPairRepository;
+import dev.jianmu.task.aggregate.InstanceParameter;
+import dev.jianmu.task.aggregate.NodeInfo;
+import dev.jianmu.task.aggregate.TaskInstance;
+import dev.jianmu.task.event.TaskInstanceCreatedEvent;
+import dev.jianmu.task.repository.InstanceParameterRepository;
+import dev.jianmu.task.repository.TaskInstanceRepository;
+import dev.jianmu.worker.aggregate.WorkerTask;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.Resource;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: WorkerDispatchTest
+ * @description: 任务批量分发测试
+ * @author: Ethan Liu
+ * @create: 2021-10-22 17:20
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@Import(WorkerDispatchTest.Config.class)
+@DisplayName("任务批量分发测试")
+public class WorkerDispatchTest {
+    private static final AtomicInteger nodeDefQueries = new AtomicInteger();
+    private static final List<WorkerTask> workerTasks = Collections.synchronizedList(new ArrayList<>());
+
+    @TestConfiguration
+    static class Config {
+        // 节点定义固定返回Docker类型，spec无法解析，内置Worker不会真正执行任务
+        @Bean
+        @Primary
+        public NodeDefApi testNodeDefApi() {
+            return new NodeDefApi() {
+                @Override
+                public List<NodeDef> findByTypes(Set<String> types) {
+                    return types.stream().map(this::findByType).collect(Collectors.toList());
+                }
+
+                @Override
+                public List<NodeDef> getByTypes(Set<String> types) {
+                    return this.findByTypes(types);
+                }
+
+                @Override
+                public NodeDef findByType(String type) {
+                    nodeDefQueries.incrementAndGet();
+                    return NodeDef.builder().type(type).workerType("DOCKER").spec("none").build();
+                }
+
+                @Override
+                public NodeDef getByType(String type) {
+                    return this.findByType(type);
+                }
+            };
+        }
+
+        @Bean
+        public Object workerTaskCollector() {
+            return new Object() {
+                @Order(0)
+                @EventListener
+                public void collect(WorkerTask workerTask) {
+                    workerTasks.add(workerTask);
+                }
+            };
+        }
+    }
+
+    @Resource
+    private WorkerApplication workerApplication;
+    @Resource
+    private InstanceParameterRepository instanceParameterRepository;
+    @Resource
+    private ParameterRepositoryImpl parameterRepository;
+    @Resource
+    private KVPairRepository kvPairRepository;
+    @Resource
+    private TaskInstanceRepository taskInstanceRepository;
+    @Resource
+    private DomainEventOutboxRepository domainEventOutboxRepository;
+    @Resource
+    private DomainEventRelay domainEventRelay;
+    @Resource
+    private PlatformTransactionManager transactionManager;
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    private TaskInstance taskInstance(String ref) {
+        return TaskInstance.Builder.anInstance()
+                .serialNo(1)
+                .defKey("shell:1.0")
+                .asyncTaskRef(ref)
+                .workflowRef("dispatch_wl")
+                .workflowVersion("v1")
+                .businessId("dispatch_instance")
+                .triggerId("dispatch_trigger")
+                .build();
+    }
+
+    private InstanceParameter input(TaskInstance taskInstance, String ref, Parameter<?> parameter) {
+        // H2中参数值以二进制存储，直接放入缓存保证读取到原始值
+        this.parameterRepository.getParameterCache().put(parameter.getId(), parameter);
+        return InstanceParameter.Builder.anInstanceParameter()
+                .instanceId(taskInstance.getId())
+                .triggerId(taskInstance.getTriggerId())
+                .defKey(taskInstance.getDefKey())
+                .asyncTaskRef(taskInstance.getAsyncTaskRef())
+                .businessId(taskInstance.getBusinessId())
+                .ref(ref)
+                .parameterId(parameter.getId())
+                .type(InstanceParameter.Type.INPUT)
+                .build();
+    }
+
+    @Test
+    @DisplayName("批量分发参数与密钥替换测试")
+    void dispatchTasksTest() {
+        var kv = new KVPair();
+        kv.setNamespaceName("dispatch_ns");
+        kv.setKey("token");
+        kv.setValue("s3cr3t");
+        this.kvPairRepository.add(kv);
+
+        var task1 = this.taskInstance("task_1");
+        var task2 = this.taskInstance("task_2");
+        this.instanceParameterRepository.addAll(Set.of(
+                this.input(task1, "cmd", Parameter.Type.STRING.newParameter("echo 1")),
+                this.input(task1, "token", Parameter.Type.SECRET.newParameter("dispatch_ns.token")),
+                this.input(task2, "cmd", Parameter.Type.STRING.newParameter("echo 2")),
+                this.input(task2, "missing", Parameter.Type.SECRET.newParameter("dispatch_ns.missing"))
+        ));
+
+        nodeDefQueries.set(0);
+        workerTasks.clear();
+        var failures = this.workerApplication.dispatchTasks(List.of(task1, task2), false);
+
+        // 相同类型的节点定义只查询一次
+        assertEquals(1, nodeDefQueries.get());
+        assertEquals(2, workerTasks.size());
+        var parameterMaps = workerTasks.stream()
+                .collect(Collectors.toMap(WorkerTask::getTaskInstanceId, WorkerTask::getParameterMap));
+        assertEquals(Map.of("cmd", "echo 1", "token", "s3cr3t"), parameterMaps.get(task1.getId()));
+        // 密钥不存在时保留原值
+        assertEquals(Map.of("cmd", "echo 2", "missing", "dispatch_ns.missing"), parameterMaps.get(task2.getId()));
+        // 内置Worker无法解析spec，两个任务均分发失败且互不影响
+        assertEquals(Set.of(task1.getId(), task2.getId()), failures.keySet());
+
+        this.kvPairRepository.delete("dispatch_ns");
+    }
+
+    @Test
+    @DisplayName("任务实例创建事件从发件箱投递并分发测试")
+    void createdEventTest() {
+        this.jdbcTemplate.update("delete from domain_event_outbox");
+        var taskInstance = TaskInstance.Builder.anInstance()
+                .serialNo(1)
+                .defKey("shell:1.0")
+                .nodeInfo(NodeInfo.Builder.aNodeDef().name("shell").type("shell:1.0").workerType("DOCKER").build())
+                .asyncTaskRef("task_created")
+                .workflowRef("dispatch_wl")
+                .workflowVersion("v1")
+                .businessId("dispatch_instance")
+                .triggerId("dispatch_trigger")
+                .build();
+        new TransactionTemplate(this.transactionManager)
+                .executeWithoutResult(status -> this.taskInstanceRepository.add(taskInstance));
+
+        // 事务提交后只写入发件箱，由投递程序分发
+        var rows = this.domainEventOutboxRepository.findFirst(10);
+        assertEquals(1, rows.size());
+        assertEquals(taskInstance.getBusinessId(), rows.get(0).getAggregateId());
+        var event = (TaskInstanceCreatedEvent) this.domainEventOutboxRepository.toEvent(rows.get(0));
+        assertEquals(taskInstance.getId(), event.getTaskInstanceId());
+
+        workerTasks.clear();
+        this.domainEventRelay.drain().join();
+        assertEquals(1, workerTasks.size());
+        assertEquals(taskInstance.getId(), workerTasks.get(0).getTaskInstanceId());
+        // 内置Worker无法解析spec，分发失败时事件保留在发件箱中重新投递
+        rows = this.domainEventOutboxRepository.findFirst(10);
+        assertEquals(1, rows.size());
+        assertEquals(1, rows.get(0).getAttempts());
+
+        this.jdbcTemplate.update("delete from domain_event_outbox");
+        this.taskInstanceRepository.deleteByWorkflowRef("dispatch_wl");
+    }
+}
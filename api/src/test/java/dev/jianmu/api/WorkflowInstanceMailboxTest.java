@@ -0,0 +1,159 @@
+package dev.jianmu.api;
+
+import dev.jianmu.application.service.WorkflowInstanceMailbox;
+import dev.jianmu.infrastructure.exception.DBException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: WorkflowInstanceMailboxTest
+ * @description: 流程实例命令邮箱测试
+ * @author: Ethan Liu
+ * @create: 2021-10-26 10:30
+ **/
+@DisplayName("流程实例命令邮箱测试")
+public class WorkflowInstanceMailboxTest {
+    private ExecutorService executor;
+    private WorkflowInstanceMailbox mailbox;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = Executors.newFixedThreadPool(4);
+        this.mailbox = new WorkflowInstanceMailbox(this.executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.mailbox.shutdown();
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("同一流程实例的命令按顺序逐个执行测试")
+    void orderTest() {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            var index = i;
+            futures.add(this.mailbox.submit("instance_1", "command " + i, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(index);
+                running.decrementAndGet();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        assertEquals(1, maxRunning.get());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("不同流程实例的命令并行执行测试")
+    void parallelTest() throws InterruptedException {
+        var started = new CountDownLatch(2);
+        var release = new CountDownLatch(1);
+        Runnable command = () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        var first = this.mailbox.submit("instance_1", "block", command);
+        var second = this.mailbox.submit("instance_2", "block", command);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        release.countDown();
+        CompletableFuture.allOf(first, second).join();
+    }
+
+    @Test
+    @DisplayName("版本冲突时重新执行测试")
+    void retryTest() {
+        var attempts = new AtomicInteger();
+        this.mailbox.execute("instance_1", "conflict", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new DBException.OptimisticLocking("版本冲突");
+            }
+        });
+        assertEquals(3, attempts.get());
+
+        var failed = this.mailbox.submit("instance_1", "always", () -> {
+            throw new DBException.OptimisticLocking("版本冲突");
+        });
+        // 延迟重新执行仍然冲突时命令失败
+        assertThrows(RuntimeException.class, failed::join);
+        // 等待执行的调用方收到版本冲突异常
+        assertThrows(DBException.OptimisticLocking.class, () -> this.mailbox.execute("instance_1", "always", () -> {
+            throw new DBException.OptimisticLocking("版本冲突");
+        }));
+        // 失败的命令不影响后续命令
+        var next = new AtomicInteger();
+        this.mailbox.execute("instance_1", "next", next::incrementAndGet);
+        assertEquals(1, next.get());
+    }
+
+    @Test
+    @DisplayName("连续版本冲突时延迟重新执行且保持命令顺序测试")
+    void delayedRetryTest() {
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        var attempts = new AtomicInteger();
+        var start = System.currentTimeMillis();
+        var conflict = this.mailbox.submit("instance_1", "conflict", () -> {
+            if (attempts.incrementAndGet() <= WorkflowInstanceMailbox.MAX_ATTEMPTS + 1) {
+                throw new DBException.OptimisticLocking("版本冲突");
+            }
+            order.add("conflict");
+        });
+        var next = this.mailbox.submit("instance_1", "next", () -> order.add("next"));
+        CompletableFuture.allOf(conflict, next).join();
+        assertEquals(WorkflowInstanceMailbox.MAX_ATTEMPTS + 2, attempts.get());
+        assertTrue(System.currentTimeMillis() - start >= WorkflowInstanceMailbox.RETRY_DELAY_MILLIS);
+        assertEquals(List.of("conflict", "next"), order);
+    }
+
+    @Test
+    @DisplayName("执行器拒绝时在提交线程中执行测试")
+    void rejectedTest() {
+        // 模拟执行器拒绝，命令不会因执行权未释放而无人处理
+        var mailbox = new WorkflowInstanceMailbox(command -> {
+            throw new RejectedExecutionException("队列已满");
+        });
+        var count = new AtomicInteger();
+        mailbox.execute("instance_1", "first", count::incrementAndGet);
+        mailbox.execute("instance_1", "second", count::incrementAndGet);
+        assertEquals(2, count.get());
+        assertEquals(0, mailbox.size());
+        mailbox.shutdown();
+    }
+
+    @Test
+    @DisplayName("命令执行结束后移除空邮箱测试")
+    void releaseTest() throws InterruptedException {
+        this.mailbox.execute("instance_1", "noop", () -> {
+        });
+        // 执行线程在完成命令后移除邮箱
+        for (int i = 0; i < 50 && this.mailbox.size() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, this.mailbox.size());
+    }
+}
@@ -0,0 +1,68 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: WorkflowInstanceOptimisticLockingTest
+ * @description: 流程实例乐观锁保存测试
+ * @author: Ethan Liu
+ * @create: 2021-10-21 09:40
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("流程实例乐观锁保存测试")
+public class WorkflowInstanceOptimisticLockingTest {
+    @Resource
+    private WorkflowInstanceRepositoryImpl workflowInstanceRepository;
+
+    @Test
+    @DisplayName("按加载时版本保存测试")
+    void saveTest() {
+        WorkflowInstance instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_lock")
+                .triggerType("MANUAL")
+                .name("lock")
+                .workflowRef("lock_wl")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(AsyncTask.Builder.anAsyncTask().name("task_1").ref("task_1").type("shell:1.0").build());
+        this.workflowInstanceRepository.add(instance);
+
+        var first = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        var second = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        assertEquals(1, first.getVersion());
+
+        first.taskRun("task_1");
+        var saved = this.workflowInstanceRepository.save(first);
+        assertSame(first, saved);
+        assertEquals(2, saved.getVersion());
+
+        // 已保存的对象可以继续保存
+        saved.taskFail("task_1");
+        this.workflowInstanceRepository.save(saved);
+        assertEquals(3, saved.getVersion());
+
+        // 版本已过期的对象保存失败
+        second.taskRun("task_1");
+        assertThrows(DBException.OptimisticLocking.class, () -> this.workflowInstanceRepository.save(second));
+
+        var reloaded = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        assertEquals(3, reloaded.getVersion());
+        assertEquals(TaskStatus.FAILED, reloaded.findInstanceByRef("task_1").orElseThrow().getStatus());
+
+        this.workflowInstanceRepository.deleteByWorkflowRef("lock_wl");
+    }
+}
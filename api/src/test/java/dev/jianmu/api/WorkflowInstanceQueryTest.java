@@ -0,0 +1,138 @@
+package dev.jianmu.api;
+
+import db.migration.V1_0_7__Backfill_Latest_Task_Status;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceSummary;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * @class: WorkflowInstanceQueryTest
+ * @description: 流程实例查询测试
+ * @author: Ethan Liu
+ * @create: 2021-10-21 17:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class)
+@ActiveProfiles("test")
+@DisplayName("流程实例查询测试")
+public class WorkflowInstanceQueryTest {
+    @Resource
+    private WorkflowInstanceRepositoryImpl workflowInstanceRepository;
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Resource
+    private DataSource dataSource;
+
+    private WorkflowInstance add(String workflowRef, int serialNo) {
+        return this.workflowInstanceRepository.add(WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(serialNo)
+                .triggerId("trigger_" + workflowRef + serialNo)
+                .triggerType("MANUAL")
+                .name(workflowRef)
+                .workflowRef(workflowRef)
+                .workflowVersion("v1")
+                .build());
+    }
+
+    @AfterEach
+    void clean() {
+        this.workflowInstanceRepository.deleteByWorkflowRef("query_a");
+        this.workflowInstanceRepository.deleteByWorkflowRef("query_b");
+    }
+
+    @Test
+    @DisplayName("批量查询最新流程实例测试")
+    void findLatestByRefsTest() {
+        this.add("query_a", 1);
+        this.add("query_a", 3);
+        this.add("query_a", 2);
+        this.add("query_b", 1);
+
+        Map<String, Integer> latest = this.workflowInstanceRepository
+                .findLatestByRefs(List.of("query_a", "query_b", "query_c")).stream()
+                .collect(Collectors.toMap(WorkflowInstance::getWorkflowRef, WorkflowInstance::getSerialNo));
+        assertEquals(Map.of("query_a", 3, "query_b", 1), latest);
+        assertEquals(List.of(), this.workflowInstanceRepository.findLatestByRefs(List.of()));
+    }
+
+    @Test
+    @DisplayName("按执行顺序号翻页查询摘要测试")
+    void findSummaryByWorkflowRefTest() {
+        for (int i = 1; i <= 5; i++) {
+            this.add("query_a", i);
+        }
+        var firstPage = this.workflowInstanceRepository.findSummaryByWorkflowRef("query_a", null, 2);
+        assertEquals(List.of(5, 4), firstPage.stream().map(WorkflowInstanceSummary::getSerialNo).collect(Collectors.toList()));
+        var secondPage = this.workflowInstanceRepository.findSummaryByWorkflowRef("query_a", 4, 2);
+        assertEquals(List.of(3, 2), secondPage.stream().map(WorkflowInstanceSummary::getSerialNo).collect(Collectors.toList()));
+        assertEquals(5, this.workflowInstanceRepository.findSummaryByWorkflowRef("query_a", null, null).size());
+    }
+
+    @Test
+    @DisplayName("历史数据最后任务状态迁移测试")
+    void backfillLatestTaskStatusTest() throws Exception {
+        var instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_query_b")
+                .triggerType("MANUAL")
+                .name("query_b")
+                .workflowRef("query_b")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(AsyncTask.Builder.anAsyncTask().name("task_1").ref("task_1").type("shell:1.0").build());
+        instance.taskRun("task_1");
+        this.workflowInstanceRepository.add(instance);
+        assertEquals("RUNNING", this.workflowInstanceRepository.findSummaryByWorkflowRef("query_b", null, null).get(0).getLatestTaskStatus());
+
+        // 模拟升级前写入的数据，查询不回写
+        this.jdbcTemplate.update("update workflow_instance set latest_task_status = null where id = ?", instance.getId());
+        assertNull(this.workflowInstanceRepository.findSummaryByWorkflowRef("query_b", null, null).get(0).getLatestTaskStatus());
+
+        try (var connection = this.dataSource.getConnection()) {
+            new V1_0_7__Backfill_Latest_Task_Status().migrate(new Context() {
+                @Override
+                public Configuration getConfiguration() {
+                    return null;
+                }
+
+                @Override
+                public Connection getConnection() {
+                    return connection;
+                }
+            });
+        }
+        assertEquals("RUNNING", this.jdbcTemplate.queryForObject(
+                "select latest_task_status from workflow_instance where id = ?", String.class, instance.getId()));
+    }
+
+    @Test
+    @DisplayName("前缀搜索分页查询摘要测试")
+    void findSummaryPageTest() {
+        var instance = this.add("query_a", 1);
+        this.add("query_b", 1);
+        var page = this.workflowInstanceRepository.findSummaryPage(instance.getId().substring(0, 8), "query_", "", null, 1, 10);
+        assertEquals(1, page.getList().size());
+        assertEquals("", page.getList().get(0).getLatestTaskStatus());
+        assertEquals(0, this.workflowInstanceRepository.findSummaryPage("", "uery_", "", null, 1, 10).getList().size());
+    }
+}
@@ -0,0 +1,162 @@
+package dev.jianmu.api;
+
+import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
+import dev.jianmu.workflow.aggregate.definition.AsyncTask;
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.annotation.Resource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @class: WorkflowInstanceTableStorageTest
+ * @description: 任务实例按行存储集成测试
+ * @author: Ethan Liu
+ * @create: 2021-10-20 16:30
+ **/
+@SpringBootTest(classes = SpringbootApp.class, properties = "jianmu.workflow-instance.task-storage=TABLE")
+@ActiveProfiles("test")
+@DisplayName("任务实例按行存储集成测试")
+public class WorkflowInstanceTableStorageTest {
+    @Resource
+    private WorkflowInstanceRepositoryImpl workflowInstanceRepository;
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    private AsyncTask task(String ref) {
+        return AsyncTask.Builder.anAsyncTask()
+                .name(ref)
+                .ref(ref)
+                .type("shell:1.0")
+                .build();
+    }
+
+    @Test
+    @DisplayName("任务实例按行读写测试")
+    void saveTest() {
+        var task1 = this.task("task_1");
+        var task2 = this.task("task_2");
+        WorkflowInstance instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_table")
+                .triggerType("MANUAL")
+                .name("table")
+                .workflowRef("table_wl")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(task1);
+        this.workflowInstanceRepository.add(instance);
+
+        var loaded = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        assertEquals(1, loaded.getAsyncTaskInstances().size());
+        assertTrue(loaded.getChangedAsyncTaskInstances().isEmpty());
+
+        // 两个分支分别更新各自的任务实例行
+        loaded.taskRun("task_1");
+        loaded.activateNode(task2);
+        this.workflowInstanceRepository.save(loaded);
+
+        var reloaded = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        assertEquals(2, reloaded.getAsyncTaskInstances().size());
+        assertEquals(TaskStatus.RUNNING, reloaded.findInstanceByRef("task_1").orElseThrow().getStatus());
+        assertEquals(TaskStatus.INIT, reloaded.findInstanceByRef("task_2").orElseThrow().getStatus());
+        assertEquals(ProcessStatus.RUNNING, reloaded.getStatus());
+
+        reloaded.terminate();
+        this.workflowInstanceRepository.save(reloaded);
+        var terminated = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        assertEquals(ProcessStatus.TERMINATED, terminated.getStatus());
+        assertEquals(2, terminated.getAsyncTaskInstances().size());
+
+        this.workflowInstanceRepository.deleteByWorkflowRef("table_wl");
+    }
+
+    @Test
+    @DisplayName("流程实例状态变化后旧数据写入任务实例失败测试")
+    void staleSaveTest() {
+        WorkflowInstance instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_table_stale")
+                .triggerType("MANUAL")
+                .name("table_stale")
+                .workflowRef("table_stale_wl")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(this.task("task_1"));
+        this.workflowInstanceRepository.add(instance);
+
+        var terminating = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        var staleUpdate = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        var staleInsert = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        var staleTerminate = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        terminating.terminate();
+        this.workflowInstanceRepository.save(terminating);
+
+        // 已有任务实例行的更新、新任务实例行的插入与状态更新均失败
+        staleUpdate.taskRun("task_1");
+        assertThrows(DBException.OptimisticLocking.class, () -> this.workflowInstanceRepository.save(staleUpdate));
+        staleInsert.activateNode(this.task("task_2"));
+        assertThrows(DBException.OptimisticLocking.class, () -> this.workflowInstanceRepository.save(staleInsert));
+        staleTerminate.terminate();
+        assertThrows(DBException.OptimisticLocking.class, () -> this.workflowInstanceRepository.save(staleTerminate));
+
+        var terminated = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        assertEquals(1, terminated.getAsyncTaskInstances().size());
+        assertEquals(TaskStatus.INIT, terminated.findInstanceByRef("task_1").orElseThrow().getStatus());
+
+        // 重新加载后可以记录结束后的任务状态
+        terminated.taskRun("task_1");
+        this.workflowInstanceRepository.save(terminated);
+        assertEquals(TaskStatus.RUNNING, this.workflowInstanceRepository.findById(instance.getId()).orElseThrow()
+                .findInstanceByRef("task_1").orElseThrow().getStatus());
+
+        this.workflowInstanceRepository.deleteByWorkflowRef("table_stale_wl");
+    }
+
+    private String savedLatestTaskStatus(String instanceId) {
+        return this.jdbcTemplate.queryForObject("select latest_task_status from workflow_instance where id = ?", String.class, instanceId);
+    }
+
+    @Test
+    @DisplayName("运行中的流程实例从任务实例行计算最后启动的任务状态测试")
+    void latestTaskStatusTest() {
+        WorkflowInstance instance = WorkflowInstance.Builder.aWorkflowInstance()
+                .serialNo(1)
+                .triggerId("trigger_table_latest")
+                .triggerType("MANUAL")
+                .name("table_latest")
+                .workflowRef("table_latest_wl")
+                .workflowVersion("v1")
+                .build();
+        instance.activateNode(this.task("task_1"));
+        this.workflowInstanceRepository.add(instance);
+
+        var loaded = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        loaded.taskRun("task_1");
+        this.workflowInstanceRepository.save(loaded);
+
+        // 任务状态变化不更新流程实例行
+        assertEquals("", this.savedLatestTaskStatus(instance.getId()));
+        assertEquals("RUNNING", this.workflowInstanceRepository.findSummaryByWorkflowRef("table_latest_wl", null, null).get(0).getLatestTaskStatus());
+        assertEquals("RUNNING", this.workflowInstanceRepository.findSummaryPage(instance.getId(), "", "", null, 1, 10).getList().get(0).getLatestTaskStatus());
+
+        // 结束时写入流程实例行
+        var terminating = this.workflowInstanceRepository.findById(instance.getId()).orElseThrow();
+        terminating.terminate();
+        this.workflowInstanceRepository.save(terminating);
+        assertEquals("RUNNING", this.savedLatestTaskStatus(instance.getId()));
+        assertEquals("RUNNING", this.workflowInstanceRepository.findSummaryByWorkflowRef("table_latest_wl", null, null).get(0).getLatestTaskStatus());
+
+        this.workflowInstanceRepository.deleteByWorkflowRef("table_latest_wl");
+    }
+}
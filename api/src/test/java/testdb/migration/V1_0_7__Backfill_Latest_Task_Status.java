@@ -0,0 +1,10 @@
+package testdb.migration;
+
+/**
+ * @class: V1_0_7__Backfill_Latest_Task_Status
+ * @description: 测试库使用与正式库相同的历史数据迁移
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:30
+ **/
+public class V1_0_7__Backfill_Latest_Task_Status extends db.migration.V1_0_7__Backfill_Latest_Task_Status {
+}
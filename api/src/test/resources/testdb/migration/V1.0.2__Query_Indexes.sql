@@ -0,0 +1,12 @@
+-- 与正式库保持一致，task_instance_parameter使用trigger_id列
+ALTER TABLE `task_instance_parameter` ALTER COLUMN `project_id` RENAME TO `trigger_id`;
+
+CREATE INDEX `idx_workflow_instance_workflow_ref_serial_no` ON `workflow_instance` (`workflow_ref`, `serial_no`);
+CREATE INDEX `idx_workflow_instance_workflow_ref_version_status` ON `workflow_instance` (`workflow_ref`, `workflow_version`, `status`);
+
+CREATE INDEX `idx_task_instance_business_id_async_task_ref` ON `task_instance` (`business_id`, `async_task_ref`);
+CREATE INDEX `idx_task_instance_status` ON `task_instance` (`status`);
+CREATE INDEX `idx_task_instance_workflow_ref` ON `task_instance` (`workflow_ref`);
+
+CREATE INDEX `idx_task_instance_parameter_instance_id_type` ON `task_instance_parameter` (`instance_id`, `type`);
+CREATE INDEX `idx_task_instance_parameter_business_id_trigger_id_type` ON `task_instance_parameter` (`business_id`, `trigger_id`, `type`);
@@ -0,0 +1,4 @@
+ALTER TABLE `workflow_instance` ADD COLUMN `latest_task_status` varchar(45) DEFAULT NULL COMMENT '最后启动的任务状态，为空时从任务实例列表计算';
+
+CREATE INDEX `idx_workflow_instance_name` ON `workflow_instance` (`name`);
+CREATE INDEX `idx_workflow_instance_end_time` ON `workflow_instance` (`end_time`);
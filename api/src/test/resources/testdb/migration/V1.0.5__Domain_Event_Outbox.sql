@@ -0,0 +1,11 @@
+CREATE TABLE `domain_event_outbox`
+(
+    `id`           bigint       NOT NULL AUTO_INCREMENT COMMENT '投递顺序号',
+    `event_id`     varchar(45)  NOT NULL COMMENT '事件ID',
+    `aggregate_id` varchar(45)  NOT NULL COMMENT '流程实例ID',
+    `event_type`   varchar(255) NOT NULL COMMENT '事件类型',
+    `payload`      text         NOT NULL COMMENT '事件内容',
+    `created_time` datetime     NOT NULL COMMENT '写入时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_event_id` (`event_id`)
+);
@@ -0,0 +1,16 @@
+ALTER TABLE `domain_event_outbox` ADD COLUMN `attempts` int NOT NULL DEFAULT 0 COMMENT '处理失败次数';
+
+CREATE TABLE `domain_event_dead_letter`
+(
+    `id`           bigint       NOT NULL COMMENT '投递顺序号',
+    `event_id`     varchar(45)  NOT NULL COMMENT '事件ID',
+    `aggregate_id` varchar(45)  NOT NULL COMMENT '流程实例ID',
+    `event_type`   varchar(255) NOT NULL COMMENT '事件类型',
+    `payload`      text         NOT NULL COMMENT '事件内容',
+    `attempts`     int          NOT NULL COMMENT '处理失败次数',
+    `error`        text COMMENT '最后一次失败原因',
+    `created_time` datetime     NOT NULL COMMENT '写入时间',
+    `dead_time`    datetime     NOT NULL COMMENT '移入时间',
+    PRIMARY KEY (`id`)
+);
+CREATE INDEX `idx_domain_event_dead_letter_aggregate_id` ON `domain_event_dead_letter` (`aggregate_id`);
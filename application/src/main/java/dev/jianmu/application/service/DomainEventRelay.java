@@ -0,0 +1,181 @@
+package dev.jianmu.application.service;
+
+import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mapper.outbox.DomainEventOutboxRow;
+import dev.jianmu.infrastructure.mybatis.outbox.DomainEventOutboxRepository;
+import dev.jianmu.infrastructure.mybatis.outbox.OutboxAppendedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @class: DomainEventRelay
+ * @description: 领域事件投递
+ * 按写入顺序批量读取发件箱，同一流程实例的事件通过流程实例邮箱顺序投递，
+ * 事件删除与事件处理在同一事务中完成，重复投递时直接跳过，
+ * 无法随事务回滚的处理需要在事务提交后执行或可以重复执行，
+ * 处理失败的事件保留在发件箱中重新投递，失败次数达到上限或无法解析的事件移入死信表
+ * @author: Ethan Liu
+ * @create: 2021-10-27 10:20
+ **/
+@Component
+public class DomainEventRelay {
+    private static final Logger logger = LoggerFactory.getLogger(DomainEventRelay.class);
+
+    private final DomainEventOutboxRepository domainEventOutboxRepository;
+    private final WorkflowInstanceMailbox workflowInstanceMailbox;
+    private final ApplicationEventPublisher publisher;
+    private final TransactionTemplate transactionTemplate;
+    private final DomainEventRelayProperties properties;
+
+    // 读取发件箱只在单个线程中进行
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("eventRelay-"));
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean wakeUpScheduled = new AtomicBoolean();
+    // 已提交到邮箱但尚未处理完成的事件
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public DomainEventRelay(
+            DomainEventOutboxRepository domainEventOutboxRepository,
+            WorkflowInstanceMailbox workflowInstanceMailbox,
+            ApplicationEventPublisher publisher,
+            PlatformTransactionManager transactionManager,
+            DomainEventRelayProperties properties
+    ) {
+        this.domainEventOutboxRepository = domainEventOutboxRepository;
+        this.workflowInstanceMailbox = workflowInstanceMailbox;
+        this.publisher = publisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    @EventListener
+    public void handleApplicationReadyEvent(ApplicationReadyEvent event) {
+        if (this.properties.isAutoStart()) {
+            this.start();
+        }
+    }
+
+    @EventListener
+    public void handleOutboxAppendedEvent(OutboxAppendedEvent event) {
+        this.wakeUp();
+    }
+
+    /**
+     * 启动投递，首次投递会重放进程退出前未处理的事件
+     */
+    public void start() {
+        if (!this.started.compareAndSet(false, true)) {
+            return;
+        }
+        var interval = this.properties.getPollInterval().toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::drain, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void wakeUp() {
+        if (this.started.get() && this.wakeUpScheduled.compareAndSet(false, true)) {
+            this.scheduler.execute(() -> {
+                this.wakeUpScheduled.set(false);
+                this.drain();
+            });
+        }
+    }
+
+    /**
+     * 读取一批事件并按流程实例提交到邮箱
+     *
+     * @return 本批事件全部处理完成
+     */
+    public CompletableFuture<Void> drain() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        try {
+            var limit = this.properties.getBatchSize() + this.inFlight.size();
+            var rows = this.domainEventOutboxRepository.findFirst(limit);
+            var groups = new LinkedHashMap<String, List<DomainEventOutboxRow>>();
+            rows.stream()
+                    .filter(row -> this.inFlight.add(row.getId()))
+                    .forEach(row -> groups.computeIfAbsent(row.getAggregateId(), key -> new ArrayList<>()).add(row));
+            groups.forEach((aggregateId, events) -> futures.add(
+                    this.workflowInstanceMailbox.submit(aggregateId, "relay " + events.size() + " events", () -> this.deliver(events))
+                            .whenComplete((result, e) -> events.forEach(row -> this.inFlight.remove(row.getId())))
+            ));
+            if (!groups.isEmpty() && rows.size() >= limit) {
+                // 还有未读取的事件
+                this.wakeUp();
+            }
+        } catch (RuntimeException e) {
+            logger.error("读取领域事件发件箱失败", e);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    // 每个事件的删除与处理在同一事务中提交，处理中的状态变更与新产生的事件一起生效
+    private void deliver(List<DomainEventOutboxRow> rows) {
+        for (DomainEventOutboxRow row : rows) {
+            Object event;
+            try {
+                event = this.domainEventOutboxRepository.toEvent(row);
+            } catch (RuntimeException e) {
+                // 无法解析的事件重新投递也不会成功
+                logger.error("流程实例 {} 的领域事件 {} {} 无法解析，移入死信表", row.getAggregateId(), row.getEventType(), row.getEventId(), e);
+                this.transactionTemplate.executeWithoutResult(status -> this.domainEventOutboxRepository.moveToDeadLetter(row, e.getMessage()));
+                continue;
+            }
+            try {
+                this.transactionTemplate.executeWithoutResult(status -> {
+                    if (!this.domainEventOutboxRepository.deleteById(row.getId())) {
+                        return;
+                    }
+                    this.publisher.publishEvent(event);
+                });
+            } catch (DBException.OptimisticLocking e) {
+                // 由邮箱重新执行，已删除的事件不会重复处理
+                throw e;
+            } catch (RuntimeException e) {
+                if (!this.recordFailure(row, e)) {
+                    // 同一流程实例的后续事件等待该事件重新投递，保持处理顺序
+                    return;
+                }
+            }
+        }
+    }
+
+    // 返回true时事件已移入死信表，可以继续处理后续事件
+    private boolean recordFailure(DomainEventOutboxRow row, RuntimeException e) {
+        var attempts = row.getAttempts() + 1;
+        if (attempts >= this.properties.getMaxAttempts()) {
+            logger.error("流程实例 {} 的领域事件 {} {} 第{}次处理失败，移入死信表",
+                    row.getAggregateId(), row.getEventType(), row.getEventId(), attempts, e);
+            row.setAttempts(attempts);
+            this.transactionTemplate.executeWithoutResult(status -> this.domainEventOutboxRepository.moveToDeadLetter(row, e.toString()));
+            return true;
+        }
+        logger.warn("流程实例 {} 的领域事件 {} {} 第{}次处理失败，下次轮询时重新投递",
+                row.getAggregateId(), row.getEventType(), row.getEventId(), attempts, e);
+        this.transactionTemplate.executeWithoutResult(status -> this.domainEventOutboxRepository.increaseAttempts(row.getId()));
+        return false;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.scheduler.shutdown();
+    }
+}
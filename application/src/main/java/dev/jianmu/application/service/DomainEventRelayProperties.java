@@ -0,0 +1,30 @@
+package dev.jianmu.application.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @class: DomainEventRelayProperties
+ * @description: 领域事件投递配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-27 10:10
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.event-relay")
+public class DomainEventRelayProperties {
+    // 应用启动后是否自动投递，关闭时需手动调用drain
+    private boolean autoStart = true;
+
+    // 每次读取的事件数量
+    private int batchSize = 100;
+
+    // 没有新事件通知时的轮询间隔
+    private Duration pollInterval = Duration.ofSeconds(5);
+
+    // 事件处理失败的次数上限，达到上限后移入死信表
+    private int maxAttempts = 5;
+}
@@ -2,6 +2,9 @@ package dev.jianmu.application.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.jianmu.application.exception.DataNotFoundException;
+import dev.jianmu.application.query.NodeDef;
+import dev.jianmu.application.query.NodeDefApi;
 import dev.jianmu.embedded.worker.aggregate.DockerTask;
 import dev.jianmu.embedded.worker.aggregate.DockerWorker;
 import dev.jianmu.embedded.worker.aggregate.spec.ContainerSpec;
@@ -12,11 +15,16 @@ import dev.jianmu.hub.intergration.event.NodeDeletedEvent;
 import dev.jianmu.hub.intergration.event.NodeUpdatedEvent;
 import dev.jianmu.infrastructure.storage.StorageService;
 import dev.jianmu.worker.aggregate.WorkerTask;
+import dev.jianmu.workflow.aggregate.definition.Node;
+import dev.jianmu.workflow.repository.WorkflowRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -31,15 +39,64 @@ public class EmbeddedWorkerApplication {
     private final StorageService storageService;
     private final DockerWorker dockerWorker;
     private final ObjectMapper objectMapper;
+    private final WorkflowRepository workflowRepository;
+    private final NodeDefApi nodeDefApi;
+    // 节点定义版本的spec不会变化，解析结果按spec原文缓存
+    private final Map<String, ContainerSpec> specs = new ConcurrentHashMap<>();
 
     public EmbeddedWorkerApplication(
             StorageService storageService,
             DockerWorker dockerWorker,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            WorkflowRepository workflowRepository,
+            NodeDefApi nodeDefApi
     ) {
         this.storageService = storageService;
         this.dockerWorker = dockerWorker;
         this.objectMapper = objectMapper;
+        this.workflowRepository = workflowRepository;
+        this.nodeDefApi = nodeDefApi;
+    }
+
+    private ContainerSpec readSpec(String spec) throws JsonProcessingException {
+        var containerSpec = this.specs.get(spec);
+        if (containerSpec == null) {
+            containerSpec = this.objectMapper.readValue(spec, ContainerSpec.class);
+            this.specs.put(spec, containerSpec);
+        }
+        return containerSpec;
+    }
+
+    // 流程触发时预拉取流程定义中节点使用的镜像
+    public void prePullImages(String workflowRef, String workflowVersion) {
+        try {
+            var workflow = this.workflowRepository.findByRefAndVersion(workflowRef, workflowVersion)
+                    .orElseThrow(() -> new DataNotFoundException("未找到流程定义"));
+            var types = workflow.findTasks().stream()
+                    .map(Node::getType)
+                    .collect(Collectors.toSet());
+            this.prePullImages(this.nodeDefApi.findByTypes(types));
+        } catch (RuntimeException e) {
+            log.warn("镜像预拉取失败: {}", e.getMessage());
+        }
+    }
+
+    // 流程创建时预拉取节点定义中的镜像
+    public void prePullImages(List<NodeDef> nodeDefs) {
+        Set<String> images = new HashSet<>();
+        nodeDefs.stream()
+                .filter(nodeDef -> "DOCKER".equals(nodeDef.getWorkerType()))
+                .forEach(nodeDef -> {
+                    try {
+                        images.add(this.readSpec(nodeDef.getSpec()).getImage());
+                    } catch (JsonProcessingException e) {
+                        log.warn("节点定义spec解析失败: {}", nodeDef.getType());
+                    }
+                });
+        if (!images.isEmpty()) {
+            log.info("预拉取镜像: {}", images);
+            this.dockerWorker.prePullImages(images);
+        }
     }
 
     public void createVolume(String volumeName) {
@@ -94,7 +151,7 @@ public class EmbeddedWorkerApplication {
     }
 
     private DockerTask createDockerTask(WorkerTask workerTask, Map<String, String> environmentMap) throws JsonProcessingException {
-        var spec = objectMapper.readValue(workerTask.getSpec(), ContainerSpec.class);
+        var spec = this.readSpec(workerTask.getSpec());
         var env = environmentMap.entrySet().stream()
                 .map(entry -> entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
         // 使用TriggerId作为工作目录名称与volume名称
@@ -0,0 +1,181 @@
+package dev.jianmu.application.service;
+
+import dev.jianmu.el.ElContext;
+import dev.jianmu.el.LruCache;
+import dev.jianmu.eventbridge.aggregate.TargetEvent;
+import dev.jianmu.eventbridge.repository.TargetEventRepository;
+import dev.jianmu.task.aggregate.InstanceParameter;
+import dev.jianmu.task.repository.InstanceParameterRepository;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.el.EvaluationContext;
+import dev.jianmu.workflow.repository.ParameterRepository;
+import dev.jianmu.workflow.service.ParameterDomainService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * @class: InstanceContextCache
+ * @description: 流程实例表达式上下文快照缓存
+ * 快照按流程实例缓存事件参数与任务输出参数，任务输出参数提交后增量追加，流程结束时移除，
+ * 事务提交到追加完成之间快照缺少已提交的输出参数，期间查询直接从数据库加载
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:20
+ **/
+@Component
+public class InstanceContextCache {
+    public static final int CONTEXT_CACHE_SIZE = 256;
+
+    private final TargetEventRepository targetEventRepository;
+    private final InstanceParameterRepository instanceParameterRepository;
+    private final ParameterRepository parameterRepository;
+    private final ParameterDomainService parameterDomainService;
+
+    private final LruCache<String, Snapshot> snapshotCache = new LruCache<>(CONTEXT_CACHE_SIZE);
+    // 有未完成追加的流程实例与事务数量，不受快照淘汰影响
+    private final Map<String, Integer> pendingAppends = new ConcurrentHashMap<>();
+
+    public InstanceContextCache(
+            TargetEventRepository targetEventRepository,
+            InstanceParameterRepository instanceParameterRepository,
+            ParameterRepository parameterRepository,
+            ParameterDomainService parameterDomainService
+    ) {
+        this.targetEventRepository = targetEventRepository;
+        this.instanceParameterRepository = instanceParameterRepository;
+        this.parameterRepository = parameterRepository;
+        this.parameterDomainService = parameterDomainService;
+    }
+
+    /**
+     * 创建表达式上下文，参数源只在快照首次使用时查询
+     *
+     * @param workflow   流程定义
+     * @param instanceId 流程实例ID
+     * @param triggerId  触发器ID
+     * @return
+     */
+    public EvaluationContext findContext(Workflow workflow, String instanceId, String triggerId) {
+        Snapshot snapshot;
+        if (this.pendingAppends.containsKey(instanceId)) {
+            // 输出参数尚未追加，快照可能缺少已提交的输出参数，从数据库加载且不写入缓存
+            snapshot = this.load(instanceId, triggerId);
+        } else {
+            snapshot = this.snapshotCache.get(instanceId, key -> new Snapshot());
+            snapshot.loadIfAbsent(() -> this.load(instanceId, triggerId));
+        }
+        // 创建表达式上下文
+        var context = new ElContext();
+        // 全局参数加入上下文
+        workflow.getGlobalParameters()
+                .forEach(globalParameter -> context.add("global", globalParameter.getName(), Parameter.Type.STRING.newParameter(globalParameter.getValue())));
+        snapshot.fill(context);
+        return context;
+    }
+
+    /**
+     * 任务输出参数在事务提交后追加到快照，回滚时不追加，
+     * 在事务中标记待追加，后续事件在事务提交后才可见，处理时不会使用缺少输出参数的快照
+     *
+     * @param instanceId       流程实例ID
+     * @param outputParameters 任务实例输出参数
+     */
+    public void addOutputParameters(String instanceId, Map<InstanceParameter, Parameter<?>> outputParameters) {
+        // 输出参数scope为asyncTaskRef
+        Map<String, Parameter> parameters = new HashMap<>();
+        outputParameters.forEach((instanceParameter, parameter) ->
+                parameters.put(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), parameter));
+        Runnable append = () -> this.snapshotCache.get(instanceId, key -> new Snapshot()).addOutputParameters(parameters);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            this.pendingAppends.merge(instanceId, 1, Integer::sum);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            append.run();
+                        }
+                    } finally {
+                        pendingAppends.computeIfPresent(instanceId, (key, count) -> count > 1 ? count - 1 : null);
+                    }
+                }
+            });
+        } else {
+            append.run();
+        }
+    }
+
+    public void evict(String instanceId) {
+        this.snapshotCache.remove(instanceId);
+    }
+
+    public LruCache<String, Snapshot> getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    private Snapshot load(String instanceId, String triggerId) {
+        // 查询参数源
+        var eventParameters = this.targetEventRepository.findById(triggerId)
+                .map(TargetEvent::getEventParameters)
+                .orElseGet(Set::of);
+        var instanceParameters = this.instanceParameterRepository
+                .findOutputParamByBusinessIdAndTriggerId(instanceId, triggerId);
+        // 事件参数
+        var eventParams = eventParameters.stream()
+                .map(eventParameter -> Map.entry(eventParameter.getName(), eventParameter.getParameterId()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        // 任务输出参数
+        var outParams = instanceParameters.stream()
+                .map(instanceParameter -> Map.entry(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), instanceParameter.getParameterId()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        // 两类参数值合并为一次查询
+        var ids = new HashSet<>(eventParams.values());
+        ids.addAll(outParams.values());
+        var parameters = this.parameterRepository.findByIds(ids);
+        var snapshot = new Snapshot();
+        snapshot.eventParameters.putAll(this.parameterDomainService.matchParameters(eventParams, parameters));
+        snapshot.outputParameters.putAll(this.parameterDomainService.matchParameters(outParams, parameters));
+        return snapshot;
+    }
+
+    public static class Snapshot {
+        private boolean loaded;
+        private final Map<String, Parameter> eventParameters = new HashMap<>();
+        private final Map<String, Parameter> outputParameters = new HashMap<>();
+
+        // 同一流程实例并发加载时只查询一次
+        private synchronized void loadIfAbsent(Supplier<Snapshot> loader) {
+            if (this.loaded) {
+                return;
+            }
+            var snapshot = loader.get();
+            this.eventParameters.putAll(snapshot.eventParameters);
+            // 加载期间追加的输出参数比查询结果新，不覆盖
+            snapshot.outputParameters.forEach(this.outputParameters::putIfAbsent);
+            this.loaded = true;
+        }
+
+        private synchronized void addOutputParameters(Map<String, Parameter> parameters) {
+            this.outputParameters.putAll(parameters);
+        }
+
+        private synchronized void fill(ElContext context) {
+            // 事件参数scope为event
+            this.eventParameters.forEach((key, val) -> context.add("event", key, val));
+            this.outputParameters.forEach(context::add);
+        }
+
+        public synchronized boolean isLoaded() {
+            return loaded;
+        }
+    }
+}
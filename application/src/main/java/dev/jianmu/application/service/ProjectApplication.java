@@ -15,6 +15,7 @@ import dev.jianmu.project.event.CreatedEvent;
 import dev.jianmu.project.event.DeletedEvent;
 import dev.jianmu.project.event.TriggerEvent;
 import dev.jianmu.project.repository.CronTriggerRepository;
+import dev.jianmu.project.repository.ProjectLastRunRepository;
 import dev.jianmu.project.repository.GitRepoRepository;
 import dev.jianmu.task.repository.TaskInstanceRepository;
 import dev.jianmu.trigger.service.ScheduleJobService;
@@ -32,7 +33,9 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -50,6 +53,7 @@ public class ProjectApplication {
 
     private final ProjectRepositoryImpl projectRepository;
     private final CronTriggerRepository cronTriggerRepository;
+    private final ProjectLastRunRepository projectLastRunRepository;
     private final TargetRepository targetRepository;
     private final SourceRepository sourceRepository;
     private final ScheduleJobService scheduleJobService;
@@ -60,10 +64,12 @@ public class ProjectApplication {
     private final NodeDefApi nodeDefApi;
     private final ApplicationEventPublisher publisher;
     private final JgitService jgitService;
+    private final EmbeddedWorkerApplication embeddedWorkerApplication;
 
     public ProjectApplication(
             ProjectRepositoryImpl projectRepository,
             CronTriggerRepository cronTriggerRepository,
+            ProjectLastRunRepository projectLastRunRepository,
             TargetRepository targetRepository,
             SourceRepository sourceRepository,
             ScheduleJobService scheduleJobService,
@@ -73,10 +79,12 @@ public class ProjectApplication {
             TaskInstanceRepository taskInstanceRepository,
             NodeDefApi nodeDefApi,
             ApplicationEventPublisher publisher,
-            JgitService jgitService
+            JgitService jgitService,
+            EmbeddedWorkerApplication embeddedWorkerApplication
     ) {
         this.projectRepository = projectRepository;
         this.cronTriggerRepository = cronTriggerRepository;
+        this.projectLastRunRepository = projectLastRunRepository;
         this.targetRepository = targetRepository;
         this.sourceRepository = sourceRepository;
         this.scheduleJobService = scheduleJobService;
@@ -87,6 +95,7 @@ public class ProjectApplication {
         this.nodeDefApi = nodeDefApi;
         this.publisher = publisher;
         this.jgitService = jgitService;
+        this.embeddedWorkerApplication = embeddedWorkerApplication;
     }
 
     public void trigger(String projectId, String triggerId, String triggerType) {
@@ -129,6 +138,8 @@ public class ProjectApplication {
         // 查询相关的节点定义
         var types = parser.getAsyncTaskTypes();
         var nodeDefs = this.nodeDefApi.getByTypes(types);
+        // 在后台预拉取节点使用的镜像
+        this.embeddedWorkerApplication.prePullImages(nodeDefs);
 
         // 根据节点定义与DSL节点列表创建Workflow
         var nodes = parser.createNodes(nodeDefs);
@@ -386,6 +397,7 @@ public class ProjectApplication {
         this.projectRepository.deleteByWorkflowRef(project.getWorkflowRef());
         this.workflowRepository.deleteByRef(project.getWorkflowRef());
         this.workflowInstanceRepository.deleteByWorkflowRef(project.getWorkflowRef());
+        this.projectLastRunRepository.deleteByWorkflowRef(project.getWorkflowRef());
         this.taskInstanceRepository.deleteByWorkflowRef(project.getWorkflowRef());
         this.cronTriggerRepository.deleteByProjectId(project.getId());
         this.gitRepoRepository.deleteById(project.getGitRepoId());
@@ -426,4 +438,19 @@ public class ProjectApplication {
         }
         return "";
     }
+
+    // 批量查询项目的下次触发时间，以项目ID为Key，没有定时触发器的项目不在结果中
+    public Map<String, String> findNextFireTimes() {
+        Map<String, String> triggerIds = new HashMap<>();
+        this.cronTriggerRepository.findAll()
+                .forEach(cronTrigger -> triggerIds.putIfAbsent(cronTrigger.getProjectId(), cronTrigger.getId()));
+        var fireTimes = this.scheduleJobService.getNextFireTimes(triggerIds.values());
+        Map<String, String> nextFireTimes = new HashMap<>();
+        triggerIds.forEach((projectId, triggerId) -> {
+            if (fireTimes.containsKey(triggerId)) {
+                nextFireTimes.put(projectId, fireTimes.get(triggerId));
+            }
+        });
+        return nextFireTimes;
+    }
 }
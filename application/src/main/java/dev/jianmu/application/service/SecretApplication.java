@@ -22,10 +22,12 @@ import java.util.Optional;
 public class SecretApplication {
     private final NamespaceRepositoryImpl namespaceRepository;
     private final KVPairRepository kvPairRepository;
+    private final SecretCache secretCache;
 
-    public SecretApplication(NamespaceRepositoryImpl namespaceRepository, KVPairRepository kvPairRepository) {
+    public SecretApplication(NamespaceRepositoryImpl namespaceRepository, KVPairRepository kvPairRepository, SecretCache secretCache) {
         this.namespaceRepository = namespaceRepository;
         this.kvPairRepository = kvPairRepository;
+        this.secretCache = secretCache;
     }
 
     public void createNamespace(Namespace namespace) {
@@ -36,6 +38,7 @@ public class SecretApplication {
     public void deleteNamespace(String name) {
         this.namespaceRepository.delete(name);
         this.kvPairRepository.delete(name);
+        this.secretCache.invalidateNamespace(name);
     }
 
     public void createKVPair(KVPair kvPair) {
@@ -50,6 +53,8 @@ public class SecretApplication {
 
         this.namespaceRepository.updateLastModifiedTime(namespace);
         this.kvPairRepository.add(kvPair);
+        // 清除缓存中不存在的结果
+        this.secretCache.invalidate(kvPair.getNamespaceName(), kvPair.getKey());
     }
 
     public void deleteKVPair(String namespaceName, String key) {
@@ -58,6 +63,7 @@ public class SecretApplication {
         namespace.setLastModifiedTime();
         this.namespaceRepository.updateLastModifiedTime(namespace);
         this.kvPairRepository.delete(namespaceName, key);
+        this.secretCache.invalidate(namespaceName, key);
     }
 
     public Optional<Namespace> findById(String name) {
@@ -0,0 +1,153 @@
+package dev.jianmu.application.service;
+
+import dev.jianmu.el.LruCache;
+import dev.jianmu.secret.repository.KVPairRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * @class: SecretCache
+ * @description: 密钥值缓存
+ * 以"命名空间.key"为Key缓存密钥值与不存在的结果，超过有效期后重新查询，密钥修改时立即失效
+ * 密钥值保存在char[]中，淘汰或失效时清零
+ * @author: Ethan Liu
+ * @create: 2021-10-23 10:20
+ **/
+@Component
+public class SecretCache {
+    private final KVPairRepository kvPairRepository;
+    private final long ttlNanos;
+    private final LruCache<String, Entry> cache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public SecretCache(KVPairRepository kvPairRepository, SecretCacheProperties properties) {
+        this.kvPairRepository = kvPairRepository;
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.cache = new LruCache<>(properties.getMaxSize(), (key, entry) -> entry.clear());
+    }
+
+    /**
+     * 批量查询密钥值，只查询缓存中不存在或已过期的部分
+     *
+     * @param refs 密钥引用，格式为"命名空间.key"
+     * @return 以密钥引用为Key的密钥值，不存在的密钥不返回
+     */
+    public Map<String, String> findAll(Set<String> refs) {
+        Map<String, String> secrets = new HashMap<>();
+        Set<String> missRefs = new HashSet<>();
+        long now = System.nanoTime();
+        refs.forEach(ref -> {
+            var entry = this.cache.getIfPresent(ref);
+            if (entry != null && entry.read(now, secrets, ref)) {
+                this.hitCount.incrementAndGet();
+            } else {
+                this.missCount.incrementAndGet();
+                missRefs.add(ref);
+            }
+        });
+        if (missRefs.isEmpty()) {
+            return secrets;
+        }
+        var namespaceNames = missRefs.stream().map(ref -> ref.split("\\.")[0]).collect(Collectors.toSet());
+        var keys = missRefs.stream().map(ref -> ref.split("\\.")[1]).collect(Collectors.toSet());
+        Map<String, String> loaded = new HashMap<>();
+        this.kvPairRepository.findByNamespaceNamesAndKeys(namespaceNames, keys).forEach(kv -> {
+            var ref = kv.getNamespaceName() + "." + kv.getKey();
+            if (missRefs.contains(ref)) {
+                loaded.put(ref, kv.getValue());
+            }
+        });
+        long expireAt = System.nanoTime() + this.ttlNanos;
+        // 不存在的密钥同样缓存，避免重复查询
+        missRefs.forEach(ref -> this.cache.put(ref, new Entry(loaded.get(ref), expireAt)));
+        secrets.putAll(loaded);
+        return secrets;
+    }
+
+    // 密钥修改后使该密钥失效，事务中修改时在事务结束后再失效一次
+    public void invalidate(String namespaceName, String key) {
+        this.evict(() -> this.cache.remove(namespaceName + "." + key));
+    }
+
+    // 删除命名空间后使其下全部密钥失效
+    public void invalidateNamespace(String namespaceName) {
+        this.evict(() -> this.cache.removeIf((ref, entry) -> ref.startsWith(namespaceName + ".")));
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public double getHitRate() {
+        long total = this.hitCount.get() + this.missCount.get();
+        return total == 0 ? 0 : (double) this.hitCount.get() / total;
+    }
+
+    public int size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "size=" + this.size() +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + this.cache.getEvictionCount() +
+                '}';
+    }
+
+    private void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private static class Entry {
+        // 为null表示密钥不存在
+        private char[] value;
+        private final long expireAt;
+        private boolean cleared;
+
+        private Entry(String value, long expireAt) {
+            this.value = value == null ? null : value.toCharArray();
+            this.expireAt = expireAt;
+        }
+
+        // 读取未过期的缓存值，已过期或已清零时返回false
+        private synchronized boolean read(long now, Map<String, String> secrets, String ref) {
+            if (this.cleared || now - this.expireAt > 0) {
+                return false;
+            }
+            if (this.value != null) {
+                secrets.put(ref, new String(this.value));
+            }
+            return true;
+        }
+
+        private synchronized void clear() {
+            if (this.value != null) {
+                Arrays.fill(this.value, '\0');
+                this.value = null;
+            }
+            this.cleared = true;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package dev.jianmu.application.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * @class: SecretCacheProperties
+ * @description: 密钥缓存配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-23 10:10
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.secret-cache")
+public class SecretCacheProperties {
+    // 缓存的密钥数量上限
+    private int maxSize = 1024;
+
+    // 缓存有效期，其他节点修改密钥后最多延迟该时长生效
+    private Duration ttl = Duration.ofSeconds(60);
+}
@@ -6,9 +6,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.jianmu.application.exception.DataNotFoundException;
 import dev.jianmu.application.query.NodeDef;
 import dev.jianmu.application.query.NodeDefApi;
-import dev.jianmu.el.ElContext;
-import dev.jianmu.eventbridge.aggregate.TargetEvent;
-import dev.jianmu.eventbridge.repository.TargetEventRepository;
 import dev.jianmu.hub.intergration.aggregate.NodeParameter;
 import dev.jianmu.task.aggregate.InstanceParameter;
 import dev.jianmu.task.aggregate.NodeInfo;
@@ -21,7 +18,6 @@ import dev.jianmu.workflow.el.ExpressionLanguage;
 import dev.jianmu.workflow.event.TaskActivatingEvent;
 import dev.jianmu.workflow.repository.ParameterRepository;
 import dev.jianmu.workflow.repository.WorkflowRepository;
-import dev.jianmu.workflow.service.ParameterDomainService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -44,32 +40,29 @@ public class TaskInstanceApplication {
     private final WorkflowRepository workflowRepository;
     private final InstanceDomainService instanceDomainService;
     private final ParameterRepository parameterRepository;
-    private final ParameterDomainService parameterDomainService;
-    private final TargetEventRepository targetEventRepository;
     private final InstanceParameterRepository instanceParameterRepository;
     private final NodeDefApi nodeDefApi;
     private final ExpressionLanguage expressionLanguage;
+    private final InstanceContextCache instanceContextCache;
 
     public TaskInstanceApplication(
             TaskInstanceRepository taskInstanceRepository,
             WorkflowRepository workflowRepository,
             InstanceDomainService instanceDomainService,
             ParameterRepository parameterRepository,
-            ParameterDomainService parameterDomainService,
-            TargetEventRepository targetEventRepository,
             InstanceParameterRepository instanceParameterRepository,
             NodeDefApi nodeDefApi,
-            ExpressionLanguage expressionLanguage
+            ExpressionLanguage expressionLanguage,
+            InstanceContextCache instanceContextCache
     ) {
         this.taskInstanceRepository = taskInstanceRepository;
         this.workflowRepository = workflowRepository;
         this.instanceDomainService = instanceDomainService;
         this.parameterRepository = parameterRepository;
-        this.parameterDomainService = parameterDomainService;
-        this.targetEventRepository = targetEventRepository;
         this.instanceParameterRepository = instanceParameterRepository;
         this.nodeDefApi = nodeDefApi;
         this.expressionLanguage = expressionLanguage;
+        this.instanceContextCache = instanceContextCache;
     }
 
     public List<InstanceParameter> findParameters(String instanceId) {
@@ -122,37 +115,10 @@ public class TaskInstanceApplication {
                 .businessId(event.getWorkflowInstanceId())
                 .triggerId(event.getTriggerId())
                 .build();
-        // 查询参数源
-        var eventParameters = this.targetEventRepository.findById(event.getTriggerId())
-                .map(TargetEvent::getEventParameters)
-                .orElseGet(Set::of);
-        var instanceParameters = this.instanceParameterRepository
-                .findOutputParamByBusinessIdAndTriggerId(event.getWorkflowInstanceId(), event.getTriggerId());
         // 创建表达式上下文
-        var context = new ElContext();
-        // 全局参数加入上下文
-        workflow.getGlobalParameters()
-                .forEach(globalParameter -> context.add("global", globalParameter.getName(), Parameter.Type.STRING.newParameter(globalParameter.getValue())));
-        // 事件参数加入上下文
-        var eventParams = eventParameters.stream()
-                .map(eventParameter -> Map.entry(eventParameter.getName(), eventParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var eventParamValues = this.parameterRepository.findByIds(new HashSet<>(eventParams.values()));
-        var eventMap = this.parameterDomainService.matchParameters(eventParams, eventParamValues);
-        // 事件参数scope为event
-        eventMap.forEach((key, val) -> context.add("event", key, val));
-        // 任务输出参数加入上下文
-        var outParams = instanceParameters.stream()
-                // 输出参数scope为asyncTaskRef
-                .map(instanceParameter -> Map.entry(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), instanceParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var outParamValues = this.parameterRepository.findByIds(new HashSet<>(outParams.values()));
-        var outMap = this.parameterDomainService.matchParameters(outParams, outParamValues);
-        outMap.forEach(context::add);
+        var context = this.instanceContextCache.findContext(workflow, event.getWorkflowInstanceId(), event.getTriggerId());
 
-        workflow.setExpressionLanguage(this.expressionLanguage);
-        workflow.setContext(context);
-        var params = workflow.calculateTaskParams(asyncTask.getRef());
+        var params = workflow.calculateTaskParams(asyncTask.getRef(), this.expressionLanguage, context);
 
         // 创建任务实例输入参数
         var instanceInputParameters = this.createInstanceParameters(params, taskInstance, nodeDef.getInputParameters());
@@ -212,6 +178,8 @@ public class TaskInstanceApplication {
             this.instanceParameterRepository.addAll(outputParameters.keySet());
             // 保存参数
             this.parameterRepository.addAll(new ArrayList<>(outputParameters.values()));
+            // 追加到流程实例上下文快照
+            this.instanceContextCache.addOutputParameters(taskInstance.getBusinessId(), outputParameters);
         }
         taskInstance.executeSucceeded(resultFile);
         this.taskInstanceRepository.saveSucceeded(taskInstance);
@@ -1,8 +1,7 @@
 package dev.jianmu.application.service;
 
+import dev.jianmu.application.query.NodeDef;
 import dev.jianmu.application.query.NodeDefApi;
-import dev.jianmu.secret.aggregate.KVPair;
-import dev.jianmu.secret.repository.KVPairRepository;
 import dev.jianmu.task.aggregate.InstanceParameter;
 import dev.jianmu.task.aggregate.TaskInstance;
 import dev.jianmu.task.repository.InstanceParameterRepository;
@@ -14,15 +13,11 @@ import dev.jianmu.worker.repository.WorkerRepository;
 import dev.jianmu.workflow.aggregate.parameter.Parameter;
 import dev.jianmu.workflow.aggregate.parameter.SecretParameter;
 import dev.jianmu.workflow.repository.ParameterRepository;
-import dev.jianmu.workflow.service.ParameterDomainService;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
@@ -35,8 +30,7 @@ import java.util.stream.Collectors;
 @Transactional
 public class WorkerApplication {
     private final ParameterRepository parameterRepository;
-    private final ParameterDomainService parameterDomainService;
-    private final KVPairRepository kvPairRepository;
+    private final SecretCache secretCache;
     private final NodeDefApi nodeDefApi;
     private final WorkerRepository workerRepository;
     private final ApplicationEventPublisher publisher;
@@ -44,16 +38,14 @@ public class WorkerApplication {
 
     public WorkerApplication(
             ParameterRepository parameterRepository,
-            ParameterDomainService parameterDomainService,
-            KVPairRepository kvPairRepository,
+            SecretCache secretCache,
             NodeDefApi nodeDefApi,
             WorkerRepository workerRepository,
             ApplicationEventPublisher publisher,
             InstanceParameterRepository instanceParameterRepository
     ) {
         this.parameterRepository = parameterRepository;
-        this.parameterDomainService = parameterDomainService;
-        this.kvPairRepository = kvPairRepository;
+        this.secretCache = secretCache;
         this.nodeDefApi = nodeDefApi;
         this.workerRepository = workerRepository;
         this.publisher = publisher;
@@ -90,73 +82,116 @@ public class WorkerApplication {
     }
 
     public void dispatchTask(TaskInstance taskInstance, boolean resumed) {
-        // 查找节点定义
-        var nodeDef = this.nodeDefApi.findByType(taskInstance.getDefKey());
-        if (!nodeDef.getWorkerType().equals("DOCKER")) {
-            throw new RuntimeException("无法执行此类节点任务: " + nodeDef.getType());
+        var failures = this.dispatchTasks(List.of(taskInstance), resumed);
+        if (failures.containsKey(taskInstance.getId())) {
+            throw failures.get(taskInstance.getId());
         }
-        var worker = this.findWorker();
-        // 创建WorkerTask
-        var instanceParameters = this.instanceParameterRepository
-                .findByInstanceIdAndType(taskInstance.getId(), InstanceParameter.Type.INPUT);
-        var parameterMap = this.getParameterMap(instanceParameters);
-        var workerTask = WorkerTask.Builder.aWorkerTask()
-                .workerId(worker.getId())
-                .type(worker.getType())
-                .taskInstanceId(taskInstance.getId())
-                .businessId(taskInstance.getBusinessId())
-                .triggerId(taskInstance.getTriggerId())
-                .defKey(taskInstance.getDefKey())
-                .resultFile(nodeDef.getResultFile())
-                .spec(nodeDef.getSpec())
-                .parameterMap(parameterMap)
-                .resumed(resumed)
-                .build();
-        // 发送给Worker执行
-        this.publisher.publishEvent(workerTask);
     }
 
-    private Map<String, String> getParameterMap(List<InstanceParameter> instanceParameters) {
-        var parameterMap = instanceParameters.stream()
-                .map(instanceParameter -> Map.entry(
-                        instanceParameter.getRef(),
-                        instanceParameter.getParameterId()
-                        )
-                )
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    /**
+     * 批量分发任务，节点定义、参数与密钥按类别批量查询
+     *
+     * @param taskInstances 任务实例列表
+     * @param resumed       是否为恢复执行
+     * @return 分发失败的任务实例ID与失败原因
+     */
+    public Map<String, RuntimeException> dispatchTasks(List<TaskInstance> taskInstances, boolean resumed) {
+        Map<String, RuntimeException> failures = new HashMap<>();
+        if (taskInstances.isEmpty()) {
+            return failures;
+        }
+        // 查找节点定义，相同类型只查询一次
+        Map<String, NodeDef> nodeDefs = new HashMap<>();
+        Map<String, RuntimeException> nodeDefFailures = new HashMap<>();
+        taskInstances.stream()
+                .map(TaskInstance::getDefKey)
+                .distinct()
+                .forEach(type -> {
+                    try {
+                        nodeDefs.put(type, this.nodeDefApi.findByType(type));
+                    } catch (RuntimeException e) {
+                        nodeDefFailures.put(type, e);
+                    }
+                });
+        var worker = this.findWorker();
+        // 查询全部任务的输入参数
+        var instanceIds = taskInstances.stream().map(TaskInstance::getId).collect(Collectors.toSet());
+        var instanceParameters = this.instanceParameterRepository
+                .findByInstanceIdsAndType(instanceIds, InstanceParameter.Type.INPUT).stream()
+                .collect(Collectors.groupingBy(InstanceParameter::getInstanceId));
         // 查询参数值
-        var parameters = this.parameterRepository.findByIds(new HashSet<>(parameterMap.values()));
-        var secretParameters = parameters.stream()
-                .filter(parameter -> parameter instanceof SecretParameter)
-                // 过滤非正常语法
-                .filter(parameter -> parameter.getStringValue().split("\\.").length == 2)
-                .collect(Collectors.toList());
-        // 替换密钥参数值
-        this.handleSecretParameter(parameterMap, secretParameters);
-        // 替换实际参数值
-        this.parameterDomainService.createParameterMap(parameterMap, parameters);
-        return parameterMap;
+        var parameterIds = instanceParameters.values().stream()
+                .flatMap(List::stream)
+                .map(InstanceParameter::getParameterId)
+                .collect(Collectors.toSet());
+        Map<String, Parameter> parameters = new HashMap<>();
+        this.parameterRepository.findByIds(parameterIds).forEach(parameter -> parameters.put(parameter.getId(), parameter));
+        // 查询密钥参数值
+        var secrets = this.findSecrets(parameters.values());
+
+        taskInstances.forEach(taskInstance -> {
+            try {
+                var nodeDef = nodeDefs.get(taskInstance.getDefKey());
+                if (nodeDef == null) {
+                    throw nodeDefFailures.get(taskInstance.getDefKey());
+                }
+                if (!nodeDef.getWorkerType().equals("DOCKER")) {
+                    throw new RuntimeException("无法执行此类节点任务: " + nodeDef.getType());
+                }
+                // 创建WorkerTask
+                var parameterMap = this.getParameterMap(
+                        instanceParameters.getOrDefault(taskInstance.getId(), List.of()), parameters, secrets);
+                var workerTask = WorkerTask.Builder.aWorkerTask()
+                        .workerId(worker.getId())
+                        .type(worker.getType())
+                        .taskInstanceId(taskInstance.getId())
+                        .businessId(taskInstance.getBusinessId())
+                        .triggerId(taskInstance.getTriggerId())
+                        .defKey(taskInstance.getDefKey())
+                        .resultFile(nodeDef.getResultFile())
+                        .spec(nodeDef.getSpec())
+                        .parameterMap(parameterMap)
+                        .resumed(resumed)
+                        .build();
+                // 发送给Worker执行
+                this.publisher.publishEvent(workerTask);
+            } catch (RuntimeException e) {
+                failures.put(taskInstance.getId(), e);
+            }
+        });
+        return failures;
     }
 
-    private void handleSecretParameter(Map<String, String> parameterMap, List<Parameter> secretParameters) {
-        parameterMap.forEach((key, val) -> {
-            secretParameters.stream()
-                    .filter(parameter -> parameter.getId().equals(val))
-                    .findFirst()
-                    .ifPresent(parameter -> {
-                        var kvPairOptional = this.findSecret(parameter);
-                        kvPairOptional.ifPresent(kv -> {
-                            var secretParameter = Parameter.Type.STRING.newParameter(kv.getValue());
-                            parameterMap.put(key, secretParameter.getStringValue());
-                        });
-                    });
+    private Map<String, String> getParameterMap(List<InstanceParameter> instanceParameters, Map<String, Parameter> parameters, Map<String, String> secrets) {
+        Map<String, String> parameterMap = new HashMap<>();
+        instanceParameters.forEach(instanceParameter -> {
+            var parameter = parameters.get(instanceParameter.getParameterId());
+            if (parameter == null) {
+                parameterMap.put(instanceParameter.getRef(), instanceParameter.getParameterId());
+                return;
+            }
+            // 替换密钥参数值，密钥不存在时保留原值
+            if (parameter instanceof SecretParameter && secrets.containsKey(parameter.getStringValue())) {
+                parameterMap.put(instanceParameter.getRef(), secrets.get(parameter.getStringValue()));
+                return;
+            }
+            // 替换实际参数值
+            parameterMap.put(instanceParameter.getRef(), parameter.getStringValue());
         });
+        return parameterMap;
     }
 
-    private Optional<KVPair> findSecret(Parameter<?> parameter) {
-        Parameter<?> secretParameter;
-        // 处理密钥类型参数, 获取值后转换为String类型参数
-        var strings = parameter.getStringValue().split("\\.");
-        return this.kvPairRepository.findByNamespaceNameAndKey(strings[0], strings[1]);
+    // 查询密钥参数引用的键值对，以"命名空间.key"为Key
+    private Map<String, String> findSecrets(Collection<Parameter> parameters) {
+        var secretRefs = parameters.stream()
+                .filter(parameter -> parameter instanceof SecretParameter)
+                .map(Parameter::getStringValue)
+                // 过滤非正常语法
+                .filter(value -> value.split("\\.").length == 2)
+                .collect(Collectors.toSet());
+        if (secretRefs.isEmpty()) {
+            return Map.of();
+        }
+        return this.secretCache.findAll(secretRefs);
     }
 }
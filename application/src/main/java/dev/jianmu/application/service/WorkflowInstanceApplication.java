@@ -2,29 +2,22 @@ package dev.jianmu.application.service;
 
 import com.github.pagehelper.PageInfo;
 import dev.jianmu.application.exception.DataNotFoundException;
-import dev.jianmu.el.ElContext;
-import dev.jianmu.eventbridge.aggregate.TargetEvent;
-import dev.jianmu.eventbridge.repository.TargetEventRepository;
-import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceSummary;
 import dev.jianmu.infrastructure.mybatis.workflow.WorkflowInstanceRepositoryImpl;
-import dev.jianmu.task.repository.InstanceParameterRepository;
+import dev.jianmu.project.aggregate.ProjectLastRun;
+import dev.jianmu.project.repository.ProjectLastRunRepository;
 import dev.jianmu.task.repository.TaskInstanceRepository;
 import dev.jianmu.workflow.aggregate.definition.Node;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
-import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import dev.jianmu.workflow.el.EvaluationContext;
 import dev.jianmu.workflow.el.ExpressionLanguage;
-import dev.jianmu.workflow.repository.ParameterRepository;
 import dev.jianmu.workflow.repository.WorkflowRepository;
-import dev.jianmu.workflow.service.ParameterDomainService;
 import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -48,10 +41,8 @@ public class WorkflowInstanceApplication {
     private final WorkflowInstanceDomainService workflowInstanceDomainService;
     private final TaskInstanceRepository taskInstanceRepository;
     private final ExpressionLanguage expressionLanguage;
-    private final InstanceParameterRepository instanceParameterRepository;
-    private final ParameterDomainService parameterDomainService;
-    private final TargetEventRepository targetEventRepository;
-    private final ParameterRepository parameterRepository;
+    private final ProjectLastRunRepository projectLastRunRepository;
+    private final InstanceContextCache instanceContextCache;
 
     public WorkflowInstanceApplication(
             WorkflowRepository workflowRepository,
@@ -59,67 +50,69 @@ public class WorkflowInstanceApplication {
             WorkflowInstanceDomainService workflowInstanceDomainService,
             TaskInstanceRepository taskInstanceRepository,
             ExpressionLanguage expressionLanguage,
-            InstanceParameterRepository instanceParameterRepository,
-            ParameterDomainService parameterDomainService,
-            TargetEventRepository targetEventRepository,
-            ParameterRepository parameterRepository
+            ProjectLastRunRepository projectLastRunRepository,
+            InstanceContextCache instanceContextCache
     ) {
         this.workflowRepository = workflowRepository;
         this.workflowInstanceRepository = workflowInstanceRepository;
         this.workflowInstanceDomainService = workflowInstanceDomainService;
         this.taskInstanceRepository = taskInstanceRepository;
         this.expressionLanguage = expressionLanguage;
-        this.instanceParameterRepository = instanceParameterRepository;
-        this.parameterDomainService = parameterDomainService;
-        this.targetEventRepository = targetEventRepository;
-        this.parameterRepository = parameterRepository;
+        this.projectLastRunRepository = projectLastRunRepository;
+        this.instanceContextCache = instanceContextCache;
     }
 
     public Optional<WorkflowInstance> findById(String id) {
         return this.workflowInstanceRepository.findById(id);
     }
 
-    public PageInfo<WorkflowInstance> findAllPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
-        return this.workflowInstanceRepository.findAllPage(id, name, workflowVersion, status, pageNum, pageSize);
+    public PageInfo<WorkflowInstanceSummary> findSummaryPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
+        return this.workflowInstanceRepository.findSummaryPage(id, name, workflowVersion, status, pageNum, pageSize);
     }
 
-    public List<WorkflowInstance> findByWorkflowRef(String workflowRef) {
-        return this.workflowInstanceRepository.findByWorkflowRef(workflowRef);
+    // 按执行顺序号倒序翻页查询流程实例摘要，lastSerialNo为空时从最新一条开始，limit为空时返回全部
+    public List<WorkflowInstanceSummary> findSummaryByWorkflowRef(String workflowRef, Integer lastSerialNo, Integer limit) {
+        return this.workflowInstanceRepository.findSummaryByWorkflowRef(workflowRef, lastSerialNo, limit);
     }
 
     public Optional<WorkflowInstance> findByRefAndSerialNoMax(String workflowRef) {
         return this.workflowInstanceRepository.findByRefAndSerialNoMax(workflowRef);
     }
 
-    private EvaluationContext findContext(Workflow workflow, String instanceId, String triggerId) {
-        // 查询参数源
-        var eventParameters = this.targetEventRepository.findById(triggerId)
-                .map(TargetEvent::getEventParameters)
-                .orElseGet(Set::of);
-        var instanceParameters = this.instanceParameterRepository
-                .findOutputParamByBusinessIdAndTriggerId(instanceId, triggerId);
-        // 创建表达式上下文
-        var context = new ElContext();
-        // 全局参数加入上下文
-        workflow.getGlobalParameters()
-                .forEach(globalParameter -> context.add("global", globalParameter.getName(), Parameter.Type.STRING.newParameter(globalParameter.getValue())));
-        // 事件参数加入上下文
-        var eventParams = eventParameters.stream()
-                .map(eventParameter -> Map.entry(eventParameter.getName(), eventParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var eventParamValues = this.parameterRepository.findByIds(new HashSet<>(eventParams.values()));
-        var eventMap = this.parameterDomainService.matchParameters(eventParams, eventParamValues);
-        // 事件参数scope为event
-        eventMap.forEach((key, val) -> context.add("event", key, val));
-        // 任务输出参数加入上下文
-        var outParams = instanceParameters.stream()
-                // 输出参数scope为asyncTaskRef
-                .map(instanceParameter -> Map.entry(instanceParameter.getAsyncTaskRef() + "." + instanceParameter.getRef(), instanceParameter.getParameterId()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-        var outParamValues = this.parameterRepository.findByIds(new HashSet<>(outParams.values()));
-        var outMap = this.parameterDomainService.matchParameters(outParams, outParamValues);
-        outMap.forEach(context::add);
-        return context;
+    // 流程结束后移除表达式上下文快照
+    public void releaseContext(String instanceId) {
+        this.instanceContextCache.evict(instanceId);
+    }
+
+    // 根据流程实例更新项目最后一次执行摘要
+    public void updateLastRun(WorkflowInstance workflowInstance) {
+        this.projectLastRunRepository.save(toLastRun(workflowInstance));
+    }
+
+    // 批量查询项目最后一次执行摘要，以workflowRef为Key，历史数据由V1.0.8迁移补齐
+    public Map<String, ProjectLastRun> findLastRuns(Collection<String> workflowRefs) {
+        return this.projectLastRunRepository.findByWorkflowRefs(workflowRefs).stream()
+                .collect(Collectors.toMap(ProjectLastRun::getWorkflowRef, lastRun -> lastRun));
+    }
+
+    // 流程终止时显示为失败，否则显示最后启动的任务状态
+    private static ProjectLastRun toLastRun(WorkflowInstance workflowInstance) {
+        String status;
+        if (workflowInstance.getStatus().equals(ProcessStatus.TERMINATED)) {
+            status = "FAILED";
+        } else {
+            status = workflowInstance.findLatestAsyncTaskInstance()
+                    .orElse(AsyncTaskInstance.Builder.anAsyncTaskInstance().build())
+                    .getStatus().name();
+        }
+        return ProjectLastRun.Builder.aProjectLastRun()
+                .workflowRef(workflowInstance.getWorkflowRef())
+                .workflowInstanceId(workflowInstance.getId())
+                .serialNo(workflowInstance.getSerialNo())
+                .status(status)
+                .startTime(workflowInstance.getStartTime())
+                .endTime(workflowInstance.getEndTime())
+                .build();
     }
 
     // 创建并启动流程
@@ -158,7 +151,7 @@ public class WorkflowInstanceApplication {
         Workflow workflow = this.workflowRepository
                 .findByRefAndVersion(instance.getWorkflowRef(), instance.getWorkflowVersion())
                 .orElseThrow(() -> new DataNotFoundException("未找到流程定义: " + instance.getWorkflowRef() + instance.getWorkflowVersion()));
-        EvaluationContext context = this.findContext(workflow, instanceId, instance.getTriggerId());
+        EvaluationContext context = this.instanceContextCache.findContext(workflow, instanceId, instance.getTriggerId());
         instance.setExpressionLanguage(this.expressionLanguage);
         instance.setContext(context);
         // 启动流程
@@ -176,11 +169,11 @@ public class WorkflowInstanceApplication {
         // 终止流程
         workflowInstance.terminate();
         this.workflowInstanceRepository.save(workflowInstance);
+        this.instanceContextCache.evict(instanceId);
     }
 
     // 节点启动，重做
     @Transactional
-    @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
     public WorkflowInstance activateNode(String instanceId, String nodeRef) {
         WorkflowInstance instance = this.workflowInstanceRepository
                 .findById(instanceId)
@@ -188,7 +181,7 @@ public class WorkflowInstanceApplication {
         Workflow workflow = this.workflowRepository
                 .findByRefAndVersion(instance.getWorkflowRef(), instance.getWorkflowVersion())
                 .orElseThrow(() -> new DataNotFoundException("未找到流程定义"));
-        EvaluationContext context = this.findContext(workflow, instanceId, instance.getTriggerId());
+        EvaluationContext context = this.instanceContextCache.findContext(workflow, instanceId, instance.getTriggerId());
         instance.setExpressionLanguage(this.expressionLanguage);
         instance.setContext(context);
         // 激活节点
@@ -197,16 +190,8 @@ public class WorkflowInstanceApplication {
         return this.workflowInstanceRepository.save(instance);
     }
 
-    @Recover
-    public WorkflowInstance recoverActivateNode(DBException.OptimisticLocking e, String instanceId, String nodeRef) {
-        logger.info("WorkflowInstance id {} 的节点 {} 无法激活", instanceId, nodeRef);
-        logger.error("------------超过重试次数-------------", e);
-        return null;
-    }
-
-    // 节点跳过
+    // 节点跳过，节点及其全部下游节点在一次保存中跳过
     @Transactional
-    @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
     public void skipNode(String instanceId, String nodeRef) {
         WorkflowInstance instance = this.workflowInstanceRepository
                 .findById(instanceId)
@@ -237,7 +222,6 @@ public class WorkflowInstanceApplication {
 
     // 任务已启动命令
     @Transactional
-    @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
     public void taskRun(String taskInstanceId) {
         // TODO 这里可以通过优化传入参数减少查询
         var taskInstance = this.taskInstanceRepository.findById(taskInstanceId)
@@ -249,15 +233,8 @@ public class WorkflowInstanceApplication {
         this.workflowInstanceRepository.save(workflowInstance);
     }
 
-    @Recover
-    public void recoverTask(DBException.OptimisticLocking e, String taskInstanceId) {
-        logger.info("taskInstance id {} 的任务无法修改状态", taskInstanceId);
-        logger.error("------------超过重试次数-------------", e);
-    }
-
     // 任务已中止命令
     @Transactional
-    @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
     public void taskFail(String taskInstanceId) {
         // TODO 这里可以通过优化传入参数减少查询
         var taskInstance = this.taskInstanceRepository.findById(taskInstanceId)
@@ -271,7 +248,6 @@ public class WorkflowInstanceApplication {
 
     // 任务已成功命令
     @Transactional
-    @Retryable(value = DBException.OptimisticLocking.class, maxAttempts = 5, backoff = @Backoff(delay = 3000L, multiplier = 2))
     public void taskSucceed(String taskInstanceId) {
         // TODO 这里可以通过优化传入参数减少查询
         var taskInstance = this.taskInstanceRepository.findById(taskInstanceId)
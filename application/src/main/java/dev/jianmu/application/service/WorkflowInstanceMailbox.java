@@ -0,0 +1,227 @@
+package dev.jianmu.application.service;
+
+import dev.jianmu.infrastructure.AppConfig;
+import dev.jianmu.infrastructure.exception.DBException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @class: WorkflowInstanceMailbox
+ * @description: 流程实例命令邮箱
+ * 同一流程实例的命令按提交顺序逐个执行，不同流程实例之间并行执行
+ * @author: Ethan Liu
+ * @create: 2021-10-26 09:30
+ **/
+@Component
+public class WorkflowInstanceMailbox {
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowInstanceMailbox.class);
+    // 邮箱外的写入(如流程创建)仍可能造成版本冲突，冲突时立即重新执行
+    public static final int MAX_ATTEMPTS = 5;
+    // 连续冲突超过重试次数时延迟后再次执行，延迟期间同一流程实例的后续命令等待
+    public static final int MAX_DELAYED_ROUNDS = 3;
+    public static final long RETRY_DELAY_MILLIS = 200;
+
+    private final Executor executor;
+    private final ScheduledExecutorService delayer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mailboxRetry-"));
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    // 当前线程正在执行命令的流程实例ID
+    private final ThreadLocal<String> current = new ThreadLocal<>();
+
+    public WorkflowInstanceMailbox(@Qualifier(AppConfig.SCHEDULING_EXECUTOR) Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 提交流程实例命令，在同一流程实例的命令中提交时直接执行，异常抛给当前命令
+     *
+     * @param instanceId 流程实例ID
+     * @param name       命令名称，用于日志
+     * @param command    命令
+     * @return 命令执行结果
+     */
+    public CompletableFuture<Void> submit(String instanceId, String name, Runnable command) {
+        if (instanceId.equals(this.current.get())) {
+            command.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        var envelope = new Envelope(name, command);
+        var mailbox = this.mailboxes.compute(instanceId, (key, box) -> {
+            if (box == null) {
+                box = new Mailbox(key);
+            }
+            box.queue.add(envelope);
+            return box;
+        });
+        this.schedule(mailbox);
+        return envelope.future;
+    }
+
+    /**
+     * 提交流程实例命令并等待执行完成，不能在邮箱线程中调用，
+     * 命令执行失败或重试后仍版本冲突时抛出对应异常
+     *
+     * @param instanceId 流程实例ID
+     * @param name       命令名称，用于日志
+     * @param command    命令
+     */
+    public void execute(String instanceId, String name, Runnable command) {
+        try {
+            this.submit(instanceId, name, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public int size() {
+        return this.mailboxes.size();
+    }
+
+    private void schedule(Mailbox mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(() -> this.run(mailbox));
+            } catch (RejectedExecutionException e) {
+                // 执行器拒绝时已持有执行权，在提交线程中执行，避免队列中的命令无人处理
+                logger.warn("流程实例 {} 的邮箱被执行器拒绝，在当前线程中执行", mailbox.instanceId);
+                this.run(mailbox);
+            }
+        }
+    }
+
+    private void run(Mailbox mailbox) {
+        do {
+            Envelope envelope;
+            while ((envelope = mailbox.next()) != null) {
+                if (!this.deliver(mailbox.instanceId, envelope)) {
+                    // 保留执行权，延迟后从该命令继续执行，后续命令的顺序不变
+                    mailbox.delayed = envelope;
+                    this.retryLater(mailbox, envelope);
+                    return;
+                }
+            }
+            mailbox.scheduled.set(false);
+            // 释放执行权后有新命令入队时继续处理
+        } while (!mailbox.queue.isEmpty() && mailbox.scheduled.compareAndSet(false, true));
+        // 邮箱为空时移除，入队与移除在同一个compute中互斥
+        this.mailboxes.computeIfPresent(mailbox.instanceId, (key, box) ->
+                box == mailbox && box.queue.isEmpty() && !box.scheduled.get() ? null : box);
+    }
+
+    private void retryLater(Mailbox mailbox, Envelope envelope) {
+        try {
+            this.delayer.schedule(() -> this.resume(mailbox), RETRY_DELAY_MILLIS * envelope.rounds, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // 关闭时不再重试，命令失败后继续处理队列中的其他命令
+            logger.error("流程实例 {} 的命令 {} 无法延迟重新执行", mailbox.instanceId, envelope.name, e);
+            mailbox.delayed = null;
+            envelope.future.completeExceptionally(e);
+            mailbox.scheduled.set(false);
+            if (!mailbox.queue.isEmpty()) {
+                this.schedule(mailbox);
+            }
+        }
+    }
+
+    private void resume(Mailbox mailbox) {
+        try {
+            this.executor.execute(() -> this.run(mailbox));
+        } catch (RejectedExecutionException e) {
+            // 执行器拒绝时仍持有执行权，在当前线程中执行
+            this.run(mailbox);
+        }
+    }
+
+    // 返回false时命令需要延迟后重新执行
+    private boolean deliver(String instanceId, Envelope envelope) {
+        // 执行器拒绝时命令可能在其他流程实例的命令线程中执行，结束后恢复
+        var previous = this.current.get();
+        for (int attempt = 1; ; attempt++) {
+            this.current.set(instanceId);
+            try {
+                envelope.command.run();
+                envelope.future.complete(null);
+                return true;
+            } catch (DBException.OptimisticLocking e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    if (envelope.rounds < MAX_DELAYED_ROUNDS) {
+                        envelope.rounds++;
+                        logger.warn("流程实例 {} 的命令 {} 连续版本冲突，{}毫秒后重新执行", instanceId, envelope.name, RETRY_DELAY_MILLIS * envelope.rounds);
+                        return false;
+                    }
+                    logger.error("流程实例 {} 的命令 {} 超过重试次数", instanceId, envelope.name, e);
+                    envelope.future.completeExceptionally(e);
+                    return true;
+                }
+                logger.warn("流程实例 {} 的命令 {} 版本冲突，第{}次重新执行", instanceId, envelope.name, attempt);
+            } catch (RuntimeException e) {
+                logger.error("流程实例 {} 的命令 {} 执行失败", instanceId, envelope.name, e);
+                envelope.future.completeExceptionally(e);
+                return true;
+            } finally {
+                if (previous == null) {
+                    this.current.remove();
+                } else {
+                    this.current.set(previous);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.delayer.shutdown();
+    }
+
+    private static class Mailbox {
+        private final String instanceId;
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // 等待延迟重新执行的命令，只由持有执行权的线程读写
+        private volatile Envelope delayed;
+
+        private Mailbox(String instanceId) {
+            this.instanceId = instanceId;
+        }
+
+        private Envelope next() {
+            var envelope = this.delayed;
+            if (envelope != null) {
+                this.delayed = null;
+                return envelope;
+            }
+            return this.queue.poll();
+        }
+    }
+
+    private static class Envelope {
+        private final String name;
+        private final Runnable command;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        // 已延迟重新执行的次数
+        private int rounds;
+
+        private Envelope(String name, Runnable command) {
+            this.name = name;
+            this.command = command;
+        }
+    }
+}
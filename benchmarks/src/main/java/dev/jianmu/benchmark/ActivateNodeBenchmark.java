@@ -0,0 +1,109 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.workflow.aggregate.definition.*;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @class: ActivateNodeBenchmark
+ * @description: 节点激活基准测试，汇聚节点的上游分支除最后一个外均已完成
+ * @author: Ethan Liu
+ * @create: 2021-10-18 16:40
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ActivateNodeBenchmark {
+    private static final String JOIN_REF = "join";
+
+    @Param({"10", "100", "1000"})
+    private int nodes;
+
+    private final WorkflowInstanceDomainService domainService = new WorkflowInstanceDomainService();
+    private Workflow workflow;
+    private WorkflowInstance instance;
+
+    @Setup
+    public void setup() {
+        this.workflow = fanOutWorkflow(this.nodes);
+        this.instance = this.domainService.create("trigger", "MANUAL", 1, this.workflow);
+        this.instance.activateNode(this.workflow.findStart());
+        List<String> branches = this.workflow.findTasks(JOIN_REF);
+        // 保留最后一个分支为运行中，使汇聚节点每次都需要完整计算上游完成情况
+        branches.subList(0, branches.size() - 1).forEach(ref -> {
+            Node node = this.workflow.findNode(ref);
+            this.instance.activateNode(node);
+            this.instance.taskRun(ref);
+            this.instance.taskSucceed(node);
+        });
+        String last = branches.get(branches.size() - 1);
+        this.instance.activateNode(this.workflow.findNode(last));
+        this.instance.taskRun(last);
+    }
+
+    @Benchmark
+    public WorkflowInstance activateJoinNode() {
+        this.domainService.activateNode(this.workflow, this.instance, JOIN_REF);
+        return this.instance;
+    }
+
+    @Benchmark
+    public Node findNode() {
+        return this.workflow.findNode(JOIN_REF);
+    }
+
+    // 生成 start -> n个并行分支 -> join -> end 的流程定义
+    static Workflow fanOutWorkflow(int nodeCount) {
+        int branchCount = Math.max(nodeCount - 3, 1);
+        Start start = Start.Builder.aStart().name("Start").ref("start").build();
+        End end = End.Builder.anEnd().name("End").ref("end").build();
+        AsyncTask join = AsyncTask.Builder.anAsyncTask()
+                .name("Join")
+                .ref(JOIN_REF)
+                .type("join:1.0")
+                .taskParameters(Set.of())
+                .build();
+        List<AsyncTask> branches = IntStream.range(0, branchCount)
+                .mapToObj(i -> AsyncTask.Builder.anAsyncTask()
+                        .name("Branch " + i)
+                        .ref("branch_" + i)
+                        .type("branch:1.0")
+                        .taskParameters(Set.of())
+                        .build())
+                .collect(Collectors.toList());
+        Set<String> branchRefs = branches.stream().map(Node::getRef).collect(Collectors.toSet());
+        start.setTargets(branchRefs);
+        branches.forEach(branch -> {
+            branch.setSources(Set.of(start.getRef()));
+            branch.setTargets(Set.of(join.getRef()));
+        });
+        join.setSources(branchRefs);
+        join.setTargets(Set.of(end.getRef()));
+        end.setSources(Set.of(join.getRef()));
+
+        Set<Node> nodes = new HashSet<>(branches);
+        nodes.add(start);
+        nodes.add(join);
+        nodes.add(end);
+        return Workflow.Builder.aWorkflow()
+                .name("Benchmark")
+                .ref("benchmark")
+                .type(Workflow.Type.WORKFLOW)
+                .description("基准测试流程")
+                .nodes(nodes)
+                .globalParameters(Set.of())
+                .dslText("")
+                .build();
+    }
+}
@@ -0,0 +1,95 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.application.dsl.DslParser;
+import dev.jianmu.application.query.NodeDef;
+import dev.jianmu.workflow.aggregate.definition.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: DslParserBenchmark
+ * @description: DSL解析基准测试
+ * @author: Ethan Liu
+ * @create: 2021-10-18 17:20
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DslParserBenchmark {
+    private static final String NODE_TYPE = "shell:1.0.0";
+
+    @Param({"10", "100", "500"})
+    private int steps;
+
+    private String pipelineDsl;
+    private String workflowDsl;
+    private List<NodeDef> nodeDefs;
+
+    @Setup
+    public void setup() {
+        this.pipelineDsl = pipelineDsl(this.steps);
+        this.workflowDsl = workflowDsl(this.steps);
+        this.nodeDefs = List.of(NodeDef.builder()
+                .name("Shell")
+                .description("Shell脚本执行")
+                .type(NODE_TYPE)
+                .inputParameters(Set.of())
+                .outputParameters(Set.of())
+                .build());
+    }
+
+    @Benchmark
+    public DslParser parsePipeline() {
+        return DslParser.parse(this.pipelineDsl);
+    }
+
+    @Benchmark
+    public DslParser parseWorkflow() {
+        return DslParser.parse(this.workflowDsl);
+    }
+
+    @Benchmark
+    public Set<Node> parseAndCreateWorkflowNodes() {
+        return DslParser.parse(this.workflowDsl).createNodes(this.nodeDefs);
+    }
+
+    private static String pipelineDsl(int steps) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("param:\n  registry: registry.example.com\n");
+        sb.append("pipeline:\n  name: benchmark\n  ref: benchmark\n  description: 基准测试\n");
+        for (int i = 0; i < steps; i++) {
+            appendStep(sb, i);
+        }
+        return sb.toString();
+    }
+
+    private static String workflowDsl(int steps) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("param:\n  registry: registry.example.com\n");
+        sb.append("workflow:\n  name: benchmark\n  ref: benchmark\n  description: 基准测试\n");
+        sb.append("  start:\n    type: start\n    targets:\n      - step_0\n");
+        for (int i = 0; i < steps; i++) {
+            appendStep(sb, i);
+            sb.append("    sources:\n      - ").append(i == 0 ? "start" : "step_" + (i - 1)).append("\n");
+            sb.append("    targets:\n      - ").append(i == steps - 1 ? "end" : "step_" + (i + 1)).append("\n");
+        }
+        sb.append("  end:\n    type: end\n    sources:\n      - step_").append(steps - 1).append("\n");
+        return sb.toString();
+    }
+
+    private static void appendStep(StringBuilder sb, int i) {
+        sb.append("  step_").append(i).append(":\n");
+        sb.append("    type: ").append(NODE_TYPE).append("\n");
+        sb.append("    param:\n");
+        sb.append("      image: ${registry}/app:").append(i).append("\n");
+        sb.append("      script: |\n");
+        sb.append("        echo \"step ").append(i).append("\"\n");
+        sb.append("        docker build -t ${registry}/app:").append(i).append(" .\n");
+    }
+}
@@ -0,0 +1,74 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.el.El;
+import dev.jianmu.el.ElBackend;
+import dev.jianmu.el.ElCache;
+import dev.jianmu.el.ElContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: ElBenchmark
+ * @description: 表达式引擎基准测试，表达式取自el模块的测试用例
+ * @author: Ethan Liu
+ * @create: 2021-10-18 16:10
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElBenchmark {
+    private static final Map<String, String> EXPRESSIONS = Map.of(
+            "arithmetic", "(22.50 + 2 + 20) * ${a} - 10 / 3 % 2",
+            "template", "`${a} != ${b} == ${c}`",
+            "comparison", "${a} >= 10 && ${b} == \"bbb\" || !${c}"
+    );
+
+    @Param({"arithmetic", "template", "comparison"})
+    private String expression;
+
+    @Param({"INTERPRETER", "COMPILED"})
+    private ElBackend backend;
+
+    private String expr;
+    private El el;
+    private ElCache cache;
+    private ElContext context;
+
+    @Setup
+    public void setup() {
+        this.expr = EXPRESSIONS.get(this.expression);
+        this.el = new El(this.expr, this.backend);
+        System.setProperty(ElBackend.PROPERTY_NAME, this.backend.name());
+        this.cache = new ElCache(ElCache.DEFAULT_MAX_SIZE);
+        this.context = new ElContext();
+        this.context.add("a", new BigDecimal("12"));
+        this.context.add("b", "bbb");
+        this.context.add("c", false);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.clearProperty(ElBackend.PROPERTY_NAME);
+    }
+
+    @Benchmark
+    public Object parseAndEval() {
+        return El.eval(this.context, this.expr);
+    }
+
+    @Benchmark
+    public Object cachedEval() {
+        return this.cache.get(this.expr).eval(this.context);
+    }
+
+    @Benchmark
+    public Object precompiledEval() {
+        return this.el.eval(this.context);
+    }
+}
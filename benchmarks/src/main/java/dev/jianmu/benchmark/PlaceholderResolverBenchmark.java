@@ -0,0 +1,53 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.el.ElContext;
+import dev.jianmu.el.PlaceholderResolver;
+import dev.jianmu.el.PlaceholderTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: PlaceholderResolverBenchmark
+ * @description: 占位符解析基准测试，模版模拟内嵌多个变量的Shell脚本
+ * @author: Ethan Liu
+ * @create: 2021-10-18 16:25
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceholderResolverBenchmark {
+    @Param({"5", "50", "500"})
+    private int variables;
+
+    private String content;
+    private PlaceholderTemplate template;
+    private ElContext context;
+    private final PlaceholderResolver resolver = PlaceholderResolver.getDefaultResolver();
+
+    @Setup
+    public void setup() {
+        this.context = new ElContext();
+        StringBuilder sb = new StringBuilder("#!/bin/sh\nset -e\n");
+        for (int i = 0; i < this.variables; i++) {
+            this.context.add("build_step.var_" + i, "value-" + i);
+            sb.append("echo \"step ").append(i).append(": ${build_step.var_").append(i).append("}\"\n");
+            sb.append("docker build -t registry.example.com/app:${build_step.var_").append(i).append("} .\n");
+        }
+        this.content = sb.toString();
+        this.template = this.resolver.compile(this.content);
+    }
+
+    @Benchmark
+    public String resolveByContext() {
+        return this.resolver.resolveByContext(this.content, this.context);
+    }
+
+    @Benchmark
+    public String renderCompiled() {
+        return this.template.renderByContext(this.context);
+    }
+}
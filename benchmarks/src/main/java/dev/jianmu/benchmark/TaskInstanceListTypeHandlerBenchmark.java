@@ -0,0 +1,84 @@
+package dev.jianmu.benchmark;
+
+import dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler;
+import dev.jianmu.workflow.aggregate.definition.Workflow;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
+import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
+import org.apache.ibatis.type.JdbcType;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @class: TaskInstanceListTypeHandlerBenchmark
+ * @description: 任务实例列表序列化与反序列化基准测试
+ * @author: Ethan Liu
+ * @create: 2021-10-18 17:00
+ **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskInstanceListTypeHandlerBenchmark {
+    @Param({"10", "100", "1000"})
+    private int tasks;
+
+    private final TaskInstanceListTypeHandler typeHandler = new TaskInstanceListTypeHandler();
+    private List<AsyncTaskInstance> taskInstances;
+    private Blob blob;
+
+    @Setup
+    public void setup() throws SQLException {
+        Workflow workflow = ActivateNodeBenchmark.fanOutWorkflow(this.tasks + 3);
+        WorkflowInstance instance = new WorkflowInstanceDomainService().create("trigger", "MANUAL", 1, workflow);
+        workflow.findTasks().forEach(node -> {
+            instance.activateNode(node);
+            instance.taskRun(node.getRef());
+            instance.taskSucceed(node);
+        });
+        this.taskInstances = instance.getAsyncTaskInstances();
+        this.blob = this.serialize();
+    }
+
+    @Benchmark
+    public Blob serialize() throws SQLException {
+        Blob[] holder = new Blob[1];
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setBlob")) {
+                        holder[0] = (Blob) args[1];
+                    }
+                    return null;
+                });
+        this.typeHandler.setNonNullParameter(ps, 1, this.taskInstances, JdbcType.BLOB);
+        return holder[0];
+    }
+
+    @Benchmark
+    public List<AsyncTaskInstance> deserialize() throws SQLException {
+        return this.typeHandler.getNullableResult(this.resultSet(this.blob), 1);
+    }
+
+    @Benchmark
+    public List<AsyncTaskInstance> roundTrip() throws SQLException {
+        return this.typeHandler.getNullableResult(this.resultSet(this.serialize()), 1);
+    }
+
+    private ResultSet resultSet(Blob blob) {
+        return (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class[]{ResultSet.class},
+                (proxy, method, args) -> method.getName().equals("getBlob") ? blob : null);
+    }
+}
@@ -19,12 +19,18 @@ import java.util.Optional;
  * @create: 2021-01-31 17:39
  **/
 public class El implements Expression {
-    private EvaluationContext context;
     private ParseTree tree;
     private String expr;
     private boolean valid;
+    private ElBackend backend;
+    // 预编译后端的求值闭包树
+    private ElEvaluator evaluator;
 
     public El(String expr) {
+        this(expr, ElBackend.getDefault());
+    }
+
+    public El(String expr, ElBackend backend) {
         // 对每一个输入的字符串，构造一个 CharStream 流 input
         CharStream input = CharStreams.fromString(expr);
         // 用 input 构造词法分析器 lexer，词法分析的作用是将字符聚集成单词或者符号
@@ -37,44 +43,39 @@ public class El implements Expression {
         this.tree = parser.equation();
         this.expr = expr;
         this.valid = true;
+        this.backend = backend;
+        if (backend == ElBackend.COMPILED) {
+            this.evaluator = ElCompiler.compile(this.tree);
+        }
     }
 
+    // 语法树只读，上下文不保存在实例中，同一El实例可被多线程共享求值
     public Object eval(EvaluationContext context) {
         if (null != this.tree) {
-            this.context = context;
-            return this.calculate();
+            return this.calculate(context);
         }
         throw new RuntimeException("不存在预编译的表达式");
     }
 
-    private El(EvaluationContext context, String expr) {
-        this.context = context;
-        // 对每一个输入的字符串，构造一个 CharStream 流 input
-        CharStream input = CharStreams.fromString(expr);
-        // 用 input 构造词法分析器 lexer，词法分析的作用是将字符聚集成单词或者符号
-        JianMuElLexer lexer = new JianMuElLexer(input);
-        // 用词法分析器 lexer 构造一个记号流 tokens
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        // 再使用 tokens 构造语法分析器 parser,至此已经完成词法分析和语法分析的准备工作
-        JianMuElParser parser = new JianMuElParser(tokens);
-        // 最终调用语法分析器的规则 r（这个是我们在Interpreter.g4里面定义的那个规则），完成对表达式的验证
-        this.tree = parser.equation();
-        this.expr = expr;
-        this.valid = true;
-    }
-
-    private Object calculate() {
-        JianMuElVisitor jianMuElVisitor = new ElVisitorImpl(this.context);
+    private Object calculate(EvaluationContext context) {
+        if (null != this.evaluator) {
+            return this.evaluator.eval(context);
+        }
+        JianMuElVisitor jianMuElVisitor = new ElVisitorImpl(context);
         // 开始遍历语法分析树, 并返回结果
         return jianMuElVisitor.visit(tree);
     }
 
     public static Object eval(String expr) {
-        return new El(expr).calculate();
+        return new El(expr).calculate(null);
     }
 
     public static Object eval(EvaluationContext context, String expr) {
-        return new El(context, expr).calculate();
+        return new El(expr).calculate(context);
+    }
+
+    public ElBackend getBackend() {
+        return this.backend;
     }
 
     @Override
@@ -0,0 +1,27 @@
+package dev.jianmu.el;
+
+/**
+ * @class: ElBackend
+ * @description: 表达式求值后端
+ * @author: Ethan Liu
+ * @create: 2021-10-18 14:05
+ **/
+public enum ElBackend {
+    // 遍历语法树解释执行
+    INTERPRETER,
+    // 预编译为求值闭包树执行
+    COMPILED;
+
+    /**
+     * 默认后端配置项，可通过-Djianmu.el.backend=compiled开启预编译后端
+     */
+    public static final String PROPERTY_NAME = "jianmu.el.backend";
+
+    public static ElBackend getDefault() {
+        String backend = System.getProperty(PROPERTY_NAME);
+        if (backend == null || backend.isBlank()) {
+            return INTERPRETER;
+        }
+        return ElBackend.valueOf(backend.trim().toUpperCase());
+    }
+}
@@ -0,0 +1,73 @@
+package dev.jianmu.el;
+
+/**
+ * @class: ElCache
+ * @description: 预编译表达式缓存，以表达式原文为Key，LRU淘汰
+ * @author: Ethan Liu
+ * @create: 2021-10-18 10:20
+ **/
+public class ElCache {
+    /**
+     * 默认最大缓存数量
+     */
+    public static final int DEFAULT_MAX_SIZE = 2048;
+
+    /**
+     * 默认单例缓存，不同流程版本间共享
+     */
+    private static final ElCache defaultCache = new ElCache(DEFAULT_MAX_SIZE);
+
+    private final LruCache<String, El> cache;
+
+    public ElCache(int maxSize) {
+        this.cache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * 获取默认缓存
+     *
+     * @return
+     */
+    public static ElCache getDefaultCache() {
+        return defaultCache;
+    }
+
+    /**
+     * 获取预编译表达式，不存在时解析并放入缓存
+     *
+     * @param expr 表达式原文
+     * @return 预编译表达式
+     */
+    public El get(String expr) {
+        return this.cache.get(expr, El::new);
+    }
+
+    public void clear() {
+        this.cache.clear();
+    }
+
+    public int size() {
+        return this.cache.size();
+    }
+
+    public int getMaxSize() {
+        return this.cache.getMaxSize();
+    }
+
+    public long getHitCount() {
+        return this.cache.getHitCount();
+    }
+
+    public long getMissCount() {
+        return this.cache.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return this.cache.getEvictionCount();
+    }
+
+    @Override
+    public String toString() {
+        return "ElCache" + this.cache;
+    }
+}
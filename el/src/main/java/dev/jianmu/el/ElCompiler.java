@@ -0,0 +1,314 @@
+package dev.jianmu.el;
+
+import dev.jianmu.el.antlr4.JianMuElParser;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+/**
+ * @class: ElCompiler
+ * @description: 将语法树预编译为求值闭包树，字面量与变量名在编译期解析，静态类型已知的运算在编译期选定
+ * @author: Ethan Liu
+ * @create: 2021-10-18 14:20
+ **/
+public class ElCompiler {
+
+    // 编译期可推断的值类型
+    private enum Type {
+        NUMBER,
+        BOOLEAN,
+        STRING,
+        NULL,
+        UNKNOWN
+    }
+
+    private static class Compiled {
+        private final ElEvaluator evaluator;
+        private final Type type;
+        private final boolean constant;
+
+        private Compiled(ElEvaluator evaluator, Type type, boolean constant) {
+            this.evaluator = evaluator;
+            this.type = type;
+            this.constant = constant;
+        }
+
+        private static Compiled of(ElEvaluator evaluator, Type type) {
+            return new Compiled(evaluator, type, false);
+        }
+
+        private static Compiled constant(Object value) {
+            return new Compiled(context -> value, typeOf(value), true);
+        }
+    }
+
+    private ElCompiler() {
+    }
+
+    public static ElEvaluator compile(ParseTree tree) {
+        return compileNode(tree).evaluator;
+    }
+
+    private static Compiled compileNode(ParseTree tree) {
+        Objects.requireNonNull(tree);
+        try {
+            if (tree instanceof JianMuElParser.EquationContext) {
+                return compileNode(((JianMuElParser.EquationContext) tree).expression());
+            }
+            if (tree instanceof JianMuElParser.ExpressionContext) {
+                return compileExpression((JianMuElParser.ExpressionContext) tree);
+            }
+            if (tree instanceof JianMuElParser.PrimaryContext) {
+                return compilePrimary((JianMuElParser.PrimaryContext) tree);
+            }
+            if (tree instanceof JianMuElParser.LiteralContext) {
+                return compileLiteral((JianMuElParser.LiteralContext) tree);
+            }
+        } catch (RuntimeException e) {
+            // 语法树结构不完整时交给解释器执行，保证两种后端的行为一致
+        }
+        return interpreted(tree);
+    }
+
+    private static Compiled interpreted(ParseTree tree) {
+        return Compiled.of(context -> new ElVisitorImpl(context).visit(tree), Type.UNKNOWN);
+    }
+
+    private static Compiled compileLiteral(JianMuElParser.LiteralContext ctx) {
+        if (null != ctx.BOOL_LITERAL()) {
+            return Compiled.constant(Boolean.valueOf(ctx.BOOL_LITERAL().getText()));
+        }
+        if (null != ctx.FLOAT_LITERAL()) {
+            return Compiled.constant(new BigDecimal(ctx.FLOAT_LITERAL().getText()));
+        }
+        // 去掉首尾双引号
+        if (null != ctx.STRING_LITERAL()) {
+            String s = ctx.STRING_LITERAL().getText();
+            return Compiled.constant(s.substring(1, s.length() - 1));
+        }
+        if (null != ctx.INT_LITERAL()) {
+            return Compiled.constant(new BigDecimal(ctx.INT_LITERAL().getText()));
+        }
+        if (null != ctx.NULL_LITERAL()) {
+            return Compiled.constant(null);
+        }
+        return interpreted(ctx);
+    }
+
+    private static Compiled compilePrimary(JianMuElParser.PrimaryContext ctx) {
+        if (null != ctx.literal()) {
+            return compileNode(ctx.literal());
+        }
+        if (null != ctx.expression()) {
+            return compileNode(ctx.expression());
+        }
+        if (null != ctx.VARNAME()) {
+            // 去掉头尾的$和{}
+            String name = ctx.VARNAME().getText();
+            String variableName = name.substring(2, name.length() - 1);
+            return Compiled.of(context -> context.getVariable(variableName), Type.UNKNOWN);
+        }
+        if (null != ctx.TEMPLATE()) {
+            String text = ctx.TEMPLATE().getText();
+            String template = text.substring(1, text.length() - 1);
+            // 模版在编译期切分，与表达式一起缓存
+            var compiledTemplate = PlaceholderResolver.getDefaultResolver().compile(template);
+            if (compiledTemplate.isStatic()) {
+                return Compiled.constant(template);
+            }
+            return Compiled.of(compiledTemplate::renderByContext, Type.STRING);
+        }
+        return interpreted(ctx);
+    }
+
+    private static Compiled compileExpression(JianMuElParser.ExpressionContext ctx) {
+        // 最小词法单元解析
+        if (ctx.expression().size() == 0) {
+            return compileNode(ctx.primary());
+        }
+        if (ctx.prefix != null) {
+            return compileNot(ctx);
+        }
+        Compiled left = compileNode(ctx.expression(0));
+        Compiled right = compileNode(ctx.expression(1));
+        int flag = ctx.bop.getType();
+        String op = ctx.bop.getText();
+        String exp = ctx.getText();
+        Compiled compiled = compileBinary(left, right, flag, op, exp);
+        if (left.constant && right.constant) {
+            return fold(compiled);
+        }
+        return compiled;
+    }
+
+    private static Compiled compileNot(JianMuElParser.ExpressionContext ctx) {
+        Compiled operand = compileNode(ctx.expression(0));
+        int flag = ctx.prefix.getType();
+        String op = ctx.prefix.getText();
+        ElEvaluator evaluator = operand.evaluator;
+        Compiled compiled;
+        if (operand.type == Type.BOOLEAN && flag == JianMuElParser.NOT) {
+            compiled = Compiled.of(context -> !(Boolean) evaluator.eval(context), Type.BOOLEAN);
+        } else {
+            compiled = Compiled.of(context -> ElVisitorImpl.notOperation(evaluator.eval(context), flag, op), Type.BOOLEAN);
+        }
+        if (operand.constant) {
+            return fold(compiled);
+        }
+        return compiled;
+    }
+
+    private static Compiled compileBinary(Compiled left, Compiled right, int flag, String op, String exp) {
+        ElEvaluator l = left.evaluator;
+        ElEvaluator r = right.evaluator;
+        // 数字运算
+        if (left.type == Type.NUMBER && right.type == Type.NUMBER) {
+            BiFunction<BigDecimal, BigDecimal, Object> fn = arithmetic(flag, op);
+            return Compiled.of(context -> fn.apply((BigDecimal) l.eval(context), (BigDecimal) r.eval(context)),
+                    arithmeticType(flag));
+        }
+        // 布尔运算
+        if (left.type == Type.BOOLEAN && right.type == Type.BOOLEAN) {
+            BiFunction<Boolean, Boolean, Object> fn = logic(flag, op);
+            return Compiled.of(context -> fn.apply((Boolean) l.eval(context), (Boolean) r.eval(context)), Type.BOOLEAN);
+        }
+        // 字符串运算
+        if (left.type == Type.STRING && right.type == Type.STRING) {
+            BiFunction<String, String, Object> fn = string(flag, op);
+            return Compiled.of(context -> fn.apply((String) l.eval(context), (String) r.eval(context)),
+                    flag == JianMuElParser.PLUS ? Type.STRING : Type.BOOLEAN);
+        }
+        // 类型不同且均不为null时只支持字符串拼接
+        if (isKnownNonNull(left.type) && isKnownNonNull(right.type)) {
+            if (flag != JianMuElParser.PLUS) {
+                return Compiled.of(context -> {
+                    l.eval(context);
+                    r.eval(context);
+                    throw new RuntimeException("不支持此类运算: " + exp);
+                }, Type.UNKNOWN);
+            }
+            return Compiled.of(context -> {
+                Object leftValue = l.eval(context);
+                Object rightValue = r.eval(context);
+                return leftValue.toString() + rightValue.toString();
+            }, Type.STRING);
+        }
+        // 编译期无法确定类型，运行时选择运算
+        return Compiled.of(context -> ElVisitorImpl.operate(l.eval(context), r.eval(context), flag, op, exp), Type.UNKNOWN);
+    }
+
+    // 常量折叠，计算出错时保留原闭包，使错误在求值时抛出
+    private static Compiled fold(Compiled compiled) {
+        try {
+            return Compiled.constant(compiled.evaluator.eval(null));
+        } catch (RuntimeException e) {
+            return compiled;
+        }
+    }
+
+    private static boolean isKnownNonNull(Type type) {
+        return type == Type.NUMBER || type == Type.BOOLEAN || type == Type.STRING;
+    }
+
+    private static Type typeOf(Object value) {
+        if (value == null) {
+            return Type.NULL;
+        }
+        if (value instanceof BigDecimal) {
+            return Type.NUMBER;
+        }
+        if (value instanceof Boolean) {
+            return Type.BOOLEAN;
+        }
+        if (value instanceof String) {
+            return Type.STRING;
+        }
+        return Type.UNKNOWN;
+    }
+
+    private static Type arithmeticType(int flag) {
+        switch (flag) {
+            case JianMuElParser.TIMES:
+            case JianMuElParser.DIV:
+            case JianMuElParser.MODULO:
+            case JianMuElParser.PLUS:
+            case JianMuElParser.MINUS:
+                return Type.NUMBER;
+            case JianMuElParser.EQ:
+            case JianMuElParser.NE:
+            case JianMuElParser.GT:
+            case JianMuElParser.GE:
+            case JianMuElParser.LT:
+            case JianMuElParser.LE:
+                return Type.BOOLEAN;
+            default:
+                return Type.UNKNOWN;
+        }
+    }
+
+    private static BiFunction<BigDecimal, BigDecimal, Object> arithmetic(int flag, String op) {
+        switch (flag) {
+            case JianMuElParser.TIMES:
+                return BigDecimal::multiply;
+            case JianMuElParser.DIV:
+                return (left, right) -> left.divide(right, 2, RoundingMode.HALF_UP);
+            case JianMuElParser.MODULO:
+                return (left, right) -> left.divideAndRemainder(right)[1];
+            case JianMuElParser.PLUS:
+                return BigDecimal::add;
+            case JianMuElParser.MINUS:
+                return BigDecimal::subtract;
+            case JianMuElParser.EQ:
+                return (left, right) -> left.compareTo(right) == 0;
+            case JianMuElParser.NE:
+                return (left, right) -> left.compareTo(right) != 0;
+            case JianMuElParser.GT:
+                return (left, right) -> left.compareTo(right) > 0;
+            case JianMuElParser.GE:
+                return (left, right) -> left.compareTo(right) > -1;
+            case JianMuElParser.LT:
+                return (left, right) -> left.compareTo(right) < 0;
+            case JianMuElParser.LE:
+                return (left, right) -> left.compareTo(right) < 1;
+            default:
+                return (left, right) -> {
+                    throw new RuntimeException("数字不支持使用该操作符" + op);
+                };
+        }
+    }
+
+    private static BiFunction<Boolean, Boolean, Object> logic(int flag, String op) {
+        switch (flag) {
+            case JianMuElParser.EQ:
+                return (left, right) -> left == right;
+            case JianMuElParser.NE:
+                return (left, right) -> left != right;
+            case JianMuElParser.AND:
+                return (left, right) -> left && right;
+            case JianMuElParser.OR:
+                return (left, right) -> left || right;
+            default:
+                return (left, right) -> {
+                    throw new RuntimeException("布尔值不支持使用该操作符" + op);
+                };
+        }
+    }
+
+    private static BiFunction<String, String, Object> string(int flag, String op) {
+        switch (flag) {
+            case JianMuElParser.EQ:
+                return (left, right) -> right.equals(left);
+            case JianMuElParser.NE:
+                return (left, right) -> !right.equals(left);
+            case JianMuElParser.PLUS:
+                return (left, right) -> left + right;
+            default:
+                return (left, right) -> {
+                    throw new RuntimeException("字符串不支持使用该操作符: " + op);
+                };
+        }
+    }
+}
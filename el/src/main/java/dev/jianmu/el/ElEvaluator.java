@@ -0,0 +1,14 @@
+package dev.jianmu.el;
+
+import dev.jianmu.workflow.el.EvaluationContext;
+
+/**
+ * @class: ElEvaluator
+ * @description: 预编译后的表达式求值节点
+ * @author: Ethan Liu
+ * @create: 2021-10-18 14:10
+ **/
+@FunctionalInterface
+public interface ElEvaluator {
+    Object eval(EvaluationContext context);
+}
@@ -59,28 +59,33 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         //
         if (ctx.prefix != null) {
             Object value = visit(ctx.expression(0));
-            return this.notOperation(value, ctx.prefix.getType(), ctx.prefix.getText());
+            return notOperation(value, ctx.prefix.getType(), ctx.prefix.getText());
         }
         // 表达式关系等式运算
         Object left = visit(ctx.expression(0));
         Object right = visit(ctx.expression(1));
+        return operate(left, right, ctx.bop.getType(), ctx.bop.getText(), ctx.getText());
+    }
+
+    // 根据运行时左右值类型选择运算
+    static Object operate(Object left, Object right, int flag, String op, String exp) {
         // null 运算
         if (null == left || null == right) {
-            return this.nullOperation(left, right, ctx.bop.getType(), ctx.bop.getText());
+            return nullOperation(left, right, flag, op);
         }
         // 数字运算
         if (left instanceof BigDecimal && right instanceof BigDecimal) {
-            return this.arithmetic((BigDecimal) left, (BigDecimal) right, ctx.bop.getType(), ctx.bop.getText());
+            return arithmetic((BigDecimal) left, (BigDecimal) right, flag, op);
         }
         // 布尔运算
         if (left instanceof Boolean && right instanceof Boolean) {
-            return this.logic((Boolean) right, (Boolean) left, ctx.bop.getType(), ctx.bop.getText());
+            return logic((Boolean) right, (Boolean) left, flag, op);
         }
         // 字符串运算
         if (left instanceof String && right instanceof String) {
-            return this.string((String) right, (String) left, ctx.bop.getType(), ctx.bop.getText());
+            return string((String) right, (String) left, flag, op);
         }
-        return this.typeCasting(right, left, ctx.bop.getType(), ctx.getText());
+        return typeCasting(right, left, flag, exp);
     }
 
     @Override
@@ -104,7 +109,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         throw new RuntimeException("Primary解析错误: " + ctx.getText());
     }
 
-    private Boolean notOperation(Object value, int flag, String op) {
+    static Boolean notOperation(Object value, int flag, String op) {
         if (!(value instanceof Boolean)) {
             throw new RuntimeException("非Boolean值不支持该操作符" + op);
         }
@@ -115,7 +120,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         throw new RuntimeException("Boolean值不支持该操作符" + op);
     }
 
-    private Boolean nullOperation(Object left, Object right, int flag, String op) {
+    static Boolean nullOperation(Object left, Object right, int flag, String op) {
         if (flag == JianMuElParser.EQ) {
             return left == right;
         }
@@ -150,7 +155,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         if (value instanceof Character) {
             throw new RuntimeException("不支持获取Character类型的属性");
         }
-        return ReflectUntil.getFieldValue(left, filedName);
+        return value;
     }
 
     private Object methodCall(Object left, Object right, String methodName) {
@@ -158,7 +163,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         return ReflectUntil.invokeMethod(left, methodName, args);
     }
 
-    private Object string(String left, String right, int flag, String op) {
+    static Object string(String left, String right, int flag, String op) {
         if (flag == JianMuElParser.EQ) {
             return left.equals(right);
         }
@@ -171,7 +176,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         throw new RuntimeException("字符串不支持使用该操作符: " + op);
     }
 
-    private Boolean logic(Boolean left, Boolean right, int flag, String op) {
+    static Boolean logic(Boolean left, Boolean right, int flag, String op) {
         if (flag == JianMuElParser.EQ) {
             return left == right;
         }
@@ -187,7 +192,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         throw new RuntimeException("布尔值不支持使用该操作符" + op);
     }
 
-    private Object arithmetic(BigDecimal left, BigDecimal right, int flag, String op) {
+    static Object arithmetic(BigDecimal left, BigDecimal right, int flag, String op) {
         if (flag == JianMuElParser.TIMES) {
             return left.multiply(right);
         }
@@ -225,7 +230,7 @@ public class ElVisitorImpl extends JianMuElBaseVisitor {
         throw new RuntimeException("数字不支持使用该操作符" + op);
     }
 
-    private Object typeCasting(Object left, Object right, int flag, String exp) {
+    static Object typeCasting(Object left, Object right, int flag, String exp) {
         if (!(flag == JianMuElParser.PLUS)) {
             throw new RuntimeException("不支持此类运算: " + exp);
         }
@@ -0,0 +1,166 @@
+package dev.jianmu.el;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * @class: LruCache
+ * @description: 线程安全的LRU缓存，带命中、未命中与淘汰计数
+ * @author: Ethan Liu
+ * @create: 2021-10-19 14:10
+ **/
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final Map<K, V> cache;
+    // 缓存值被淘汰、替换或移除时回调，在缓存锁内执行
+    private final BiConsumer<K, V> removalListener;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public LruCache(int maxSize) {
+        this(maxSize, (key, value) -> {
+        });
+    }
+
+    public LruCache(int maxSize, BiConsumer<K, V> removalListener) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("缓存数量不能小于1");
+        }
+        this.maxSize = maxSize;
+        this.removalListener = removalListener;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (this.size() > LruCache.this.maxSize) {
+                    evictionCount.incrementAndGet();
+                    removalListener.accept(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，不存在时通过loader加载并放入缓存
+     *
+     * @param key    缓存Key
+     * @param loader 加载函数，返回值不能为null
+     * @return 缓存值
+     */
+    public V get(K key, Function<K, V> loader) {
+        synchronized (this.cache) {
+            V value = this.cache.get(key);
+            if (value != null) {
+                this.hitCount.incrementAndGet();
+                return value;
+            }
+        }
+        this.missCount.incrementAndGet();
+        // 加载放在锁外执行，并发加载同一Key时以先放入的为准
+        V value = loader.apply(key);
+        synchronized (this.cache) {
+            V exist = this.cache.putIfAbsent(key, value);
+            return exist == null ? value : exist;
+        }
+    }
+
+    /**
+     * 获取缓存值，不存在时返回null
+     *
+     * @param key 缓存Key
+     * @return 缓存值
+     */
+    public V getIfPresent(K key) {
+        synchronized (this.cache) {
+            V value = this.cache.get(key);
+            if (value != null) {
+                this.hitCount.incrementAndGet();
+            } else {
+                this.missCount.incrementAndGet();
+            }
+            return value;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (this.cache) {
+            V old = this.cache.put(key, value);
+            if (old != null && old != value) {
+                this.removalListener.accept(key, old);
+            }
+        }
+    }
+
+    /**
+     * 移除满足条件的缓存
+     *
+     * @param predicate 判断条件
+     */
+    public void removeIf(BiPredicate<K, V> predicate) {
+        synchronized (this.cache) {
+            this.cache.entrySet().removeIf(entry -> {
+                if (predicate.test(entry.getKey(), entry.getValue())) {
+                    this.removalListener.accept(entry.getKey(), entry.getValue());
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    public void remove(K key) {
+        synchronized (this.cache) {
+            V old = this.cache.remove(key);
+            if (old != null) {
+                this.removalListener.accept(key, old);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (this.cache) {
+            this.cache.forEach(this.removalListener);
+            this.cache.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "{" +
+                "size=" + this.size() +
+                ", maxSize=" + maxSize +
+                ", hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
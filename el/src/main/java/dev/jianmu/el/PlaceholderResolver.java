@@ -57,6 +57,16 @@ public class PlaceholderResolver {
         return new PlaceholderResolver(placeholderPrefix, placeholderSuffix);
     }
 
+    /**
+     * 将模版预编译为字面量与占位符片段，编译结果可缓存后重复渲染
+     *
+     * @param content 要解析的字符串
+     * @return
+     */
+    public PlaceholderTemplate compile(String content) {
+        return PlaceholderTemplate.compile(content, this.placeholderPrefix, this.placeholderSuffix);
+    }
+
     /**
      * 根据替换规则来替换指定模板中的占位符值
      *
@@ -65,21 +75,10 @@ public class PlaceholderResolver {
      * @return
      */
     public String resolveByRule(String content, Function<String, String> rule) {
-        int start = content.indexOf(this.placeholderPrefix);
-        if (start == -1) {
+        if (!content.contains(this.placeholderPrefix)) {
             return content;
         }
-        StringBuilder result = new StringBuilder(content);
-        while (start != -1) {
-            int end = result.indexOf(this.placeholderSuffix, start);
-            //获取占位符属性值，如${id}, 即获取id
-            String placeholder = result.substring(start + this.placeholderPrefix.length(), end);
-            //替换整个占位符内容，即将${id}值替换为替换规则回调中的内容
-            String replaceContent = placeholder.trim().isEmpty() ? "" : rule.apply(placeholder);
-            result.replace(start, end + this.placeholderSuffix.length(), replaceContent);
-            start = result.indexOf(this.placeholderPrefix, start + replaceContent.length());
-        }
-        return result.toString();
+        return this.compile(content).renderByRule(rule);
     }
 
     /**
@@ -93,6 +92,9 @@ public class PlaceholderResolver {
      * @return 替换完成后的字符串。
      */
     public String resolveByContext(String content, final EvaluationContext context) {
-        return resolveByRule(content, placeholderValue -> String.valueOf(context.getVariable(placeholderValue)));
+        if (!content.contains(this.placeholderPrefix)) {
+            return content;
+        }
+        return this.compile(content).renderByContext(context);
     }
 }
@@ -0,0 +1,107 @@
+package dev.jianmu.el;
+
+import dev.jianmu.workflow.el.EvaluationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * @class: PlaceholderTemplate
+ * @description: 预编译模版，模版只切分一次为字面量与占位符片段，渲染时单次拼接
+ * @author: Ethan Liu
+ * @create: 2021-10-19 09:30
+ **/
+public class PlaceholderTemplate {
+    // 原始模版内容
+    private final String content;
+    // 字面量片段，数量比占位符多1
+    private final String[] literals;
+    // 占位符属性名，内容为空白的占位符为null
+    private final String[] placeholders;
+    // 字面量总长度
+    private final int literalLength;
+
+    private PlaceholderTemplate(String content, String[] literals, String[] placeholders) {
+        this.content = content;
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 按占位符前后缀切分模版
+     *
+     * @param content           模版内容
+     * @param placeholderPrefix 占位符前缀
+     * @param placeholderSuffix 占位符后缀
+     * @return
+     */
+    static PlaceholderTemplate compile(String content, String placeholderPrefix, String placeholderSuffix) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int position = 0;
+        int start = content.indexOf(placeholderPrefix);
+        while (start != -1) {
+            int end = content.indexOf(placeholderSuffix, start);
+            //获取占位符属性值，如${id}, 即获取id
+            String placeholder = content.substring(start + placeholderPrefix.length(), end);
+            literals.add(content.substring(position, start));
+            placeholders.add(placeholder.trim().isEmpty() ? null : placeholder);
+            position = end + placeholderSuffix.length();
+            start = content.indexOf(placeholderPrefix, position);
+        }
+        literals.add(content.substring(position));
+        return new PlaceholderTemplate(content, literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    /**
+     * 根据替换规则渲染模版
+     *
+     * @param rule 解析规则回调
+     * @return
+     */
+    public String renderByRule(Function<String, String> rule) {
+        if (this.placeholders.length == 0) {
+            return this.content;
+        }
+        // 先计算所有占位符的值，再按总长度一次分配缓冲区
+        String[] values = new String[this.placeholders.length];
+        int length = this.literalLength;
+        for (int i = 0; i < this.placeholders.length; i++) {
+            values[i] = this.placeholders[i] == null ? "" : rule.apply(this.placeholders[i]);
+            length += values[i].length();
+        }
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < values.length; i++) {
+            result.append(this.literals[i]).append(values[i]);
+        }
+        result.append(this.literals[values.length]);
+        return result.toString();
+    }
+
+    /**
+     * 使用EvaluationContext中的变量值渲染模版
+     *
+     * @param context 值映射
+     * @return
+     */
+    public String renderByContext(final EvaluationContext context) {
+        return this.renderByRule(placeholderValue -> String.valueOf(context.getVariable(placeholderValue)));
+    }
+
+    /**
+     * @return {@code true} 模版中不包含占位符
+     */
+    public boolean isStatic() {
+        return this.placeholders.length == 0;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
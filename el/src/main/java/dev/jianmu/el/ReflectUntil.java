@@ -1,9 +1,16 @@
 package dev.jianmu.el;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -15,6 +22,7 @@ import java.util.stream.Collectors;
  * @create: 2021-02-20 22:05
  **/
 public class ReflectUntil {
+    private static final Logger logger = LoggerFactory.getLogger(ReflectUntil.class);
 
     private static final List<Class<?>> convertPriority = new ArrayList<>();
     static {
@@ -50,14 +58,79 @@ public class ReflectUntil {
         }
     }
 
+    /**
+     * 方法与属性句柄缓存最大数量
+     */
+    public static final int HANDLE_CACHE_SIZE = 1024;
+
+    // 以(Class, 方法名, 参数类型)为Key缓存匹配到的方法句柄，未匹配到的方法同样缓存
+    private static final LruCache<MemberKey, Optional<MethodHandle>> methodCache = new LruCache<>(HANDLE_CACHE_SIZE);
+
+    // 以(Class, 属性名)为Key缓存属性读取句柄
+    private static final LruCache<MemberKey, Optional<MethodHandle>> fieldCache = new LruCache<>(HANDLE_CACHE_SIZE);
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final class MemberKey {
+        private final Class<?> clazz;
+        private final String name;
+        private final Class<?>[] argTypes;
+        private final int hash;
+
+        private MemberKey(Class<?> clazz, String name, Class<?>[] argTypes) {
+            this.clazz = clazz;
+            this.name = name;
+            this.argTypes = argTypes;
+            this.hash = 31 * (31 * clazz.hashCode() + name.hashCode()) + Arrays.hashCode(argTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof MemberKey)) {
+                return false;
+            }
+            MemberKey key = (MemberKey) o;
+            return clazz == key.clazz && name.equals(key.name) && Arrays.equals(argTypes, key.argTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    public static LruCache<?, ?> getMethodCache() {
+        return methodCache;
+    }
+
+    public static LruCache<?, ?> getFieldCache() {
+        return fieldCache;
+    }
+
     public static Object getFieldValue(Object obj, String fieldName) {
+        Class<?> clazz = obj.getClass();
+        Optional<MethodHandle> getter = fieldCache.get(new MemberKey(clazz, fieldName, new Class[0]), key -> {
+            try {
+                Field field = clazz.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return Optional.of(MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE));
+            } catch (NoSuchFieldException | IllegalAccessException e) {
+                logger.warn("对象: {} 无法读取属性: {}", clazz.getName(), fieldName, e);
+                return Optional.empty();
+            }
+        });
+        if (getter.isEmpty()) {
+            return null;
+        }
         try {
-            Class<?> clazz = obj.getClass();
-            Field field = clazz.getDeclaredField(fieldName);
-            field.setAccessible(true);
-            return field.get(obj);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            e.printStackTrace();
+            return (Object) getter.get().invokeExact(obj);
+        } catch (Throwable e) {
+            logger.warn("对象: {} 读取属性: {} 失败", clazz.getName(), fieldName, e);
             return null;
         }
     }
@@ -68,9 +141,9 @@ public class ReflectUntil {
 
         // 参数类型匹配BigDecimal的情况
         Class<?>[] argTypes = ReflectUntil.getArgsType(args.toArray());
-        Method method = ReflectUntil.getMatchingMethod(clazz, name, argTypes);
-        if (null != method) {
-            return invokeMethod(method, target, args.toArray());
+        MethodHandle handle = ReflectUntil.getMatchingMethodHandle(clazz, name, argTypes);
+        if (null != handle) {
+            return invokeMethod(handle, target, args.toArray());
         }
         // 参数类型不匹配的情况，按照convertPriority里定义的顺序进行转换
         for (final Class<?> cls : convertPriority) {
@@ -95,9 +168,9 @@ public class ReflectUntil {
                 }
                 // 尝试用转换后的类型获取method
                 argTypes = ReflectUntil.getArgsType(newArgs.toArray());
-                method = ReflectUntil.getMatchingMethod(clazz, name, argTypes);
-                if (null != method) {
-                    return invokeMethod(method, target, newArgs.toArray());
+                handle = ReflectUntil.getMatchingMethodHandle(clazz, name, argTypes);
+                if (null != handle) {
+                    return invokeMethod(handle, target, newArgs.toArray());
                 }
             }
         }
@@ -109,11 +182,48 @@ public class ReflectUntil {
             method.setAccessible(true);
             return method.invoke(target, args);
         } catch (InvocationTargetException | IllegalAccessException e) {
-            e.printStackTrace();
+            logger.warn("方法: {} 调用失败", method.getName(), e);
         }
         return null;
     }
 
+    private static Object invokeMethod(MethodHandle handle, Object target, Object[] args) {
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Throwable e) {
+            logger.warn("对象: {} 方法调用失败", target, e);
+        }
+        return null;
+    }
+
+    /**
+     * 获取匹配的方法句柄，结果按(Class, 方法名, 参数类型)缓存
+     *
+     * @return 方法句柄，签名统一为(Object, Object[])Object，未匹配到时返回null
+     */
+    public static MethodHandle getMatchingMethodHandle(final Class<?> clazz, final String name,
+                                                       final Class<?>... paramTypes) {
+        return methodCache.get(new MemberKey(clazz, name, paramTypes), key -> {
+            Method method = getMatchingMethod(clazz, name, paramTypes);
+            if (null == method) {
+                return Optional.empty();
+            }
+            try {
+                method.setAccessible(true);
+                MethodHandle handle = MethodHandles.lookup().unreflect(method).asFixedArity();
+                // 静态方法忽略调用对象，与Method.invoke行为一致
+                if (Modifier.isStatic(method.getModifiers())) {
+                    handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                }
+                handle = handle.asSpreader(Object[].class, method.getParameterCount()).asType(INVOKER_TYPE);
+                return Optional.of(handle);
+            } catch (IllegalAccessException e) {
+                logger.warn("类: {} 无法访问方法: {}", clazz.getName(), name, e);
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
     public static Method getMatchingMethod(final Class<?> clazz, final String name,
                                            final Class<?>... paramTypes) {
         final List<Method> methods = Arrays.stream(clazz.getDeclaredMethods())
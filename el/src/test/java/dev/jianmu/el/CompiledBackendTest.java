@@ -0,0 +1,55 @@
+package dev.jianmu.el;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @class: CompiledBackendTest
+ * @description: 预编译后端与解释器后端结果对比测试
+ * @author: Ethan Liu
+ * @create: 2021-10-18 15:10
+ **/
+@DisplayName("预编译后端对比测试")
+public class CompiledBackendTest {
+    private final ElContext context = new ElContext();
+
+    private Object eval(String expr, ElBackend backend) {
+        return new El(expr, backend).eval(this.context);
+    }
+
+    @Test
+    @DisplayName("两种后端计算结果一致测试")
+    void sameResultTest() {
+        this.context.add("a", new BigDecimal("2.5"));
+        this.context.add("b", "bbb");
+        this.context.add("c", true);
+        List<String> expressions = List.of(
+                "(1 + 2) * 3 - 4 / 3",
+                "10 % 3 >= 1 && !false",
+                "${a} * 2 + 1",
+                "${b} == \"bbb\" || ${c}",
+                "\"x\" + 1 + true",
+                "`${a} and ${b}` + \"!\"",
+                "${d} == null",
+                "null != ${a}"
+        );
+        expressions.forEach(expr ->
+                assertEquals(eval(expr, ElBackend.INTERPRETER), eval(expr, ElBackend.COMPILED), expr)
+        );
+    }
+
+    @Test
+    @DisplayName("常量表达式错误在求值时抛出测试")
+    void constantErrorTest() {
+        El el = new El("1 / 0", ElBackend.COMPILED);
+        assertThrows(ArithmeticException.class, () -> el.eval(this.context));
+        El el2 = new El("\"a\" - 1", ElBackend.COMPILED);
+        assertThrows(RuntimeException.class, () -> el2.eval(this.context));
+    }
+}
@@ -0,0 +1,55 @@
+package dev.jianmu.el;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @class: ElCacheTest
+ * @description: 预编译表达式缓存测试
+ * @author: Ethan Liu
+ * @create: 2021-10-18 10:40
+ **/
+@DisplayName("预编译表达式缓存测试")
+public class ElCacheTest {
+
+    @Test
+    @DisplayName("相同表达式命中缓存测试")
+    void hitTest() {
+        ElCache cache = new ElCache(10);
+        El el1 = cache.get("${a} * 10");
+        El el2 = cache.get("${a} * 10");
+        assertSame(el1, el2);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    @DisplayName("超出容量淘汰测试")
+    void evictionTest() {
+        ElCache cache = new ElCache(2);
+        El el1 = cache.get("1 + 1");
+        cache.get("1 + 2");
+        cache.get("1 + 3");
+        assertEquals(cache.size(), 2);
+        assertEquals(cache.getEvictionCount(), 1);
+        assertNotSame(el1, cache.get("1 + 1"));
+    }
+
+    @Test
+    @DisplayName("共享表达式不同上下文求值测试")
+    void sharedEvalTest() {
+        ElCache cache = new ElCache(10);
+        ElContext context1 = new ElContext();
+        context1.add("a", 2);
+        ElContext context2 = new ElContext();
+        context2.add("a", 3);
+        assertEquals(cache.get("${a} * 10").eval(context1), new BigDecimal("20"));
+        assertEquals(cache.get("${a} * 10").eval(context2), new BigDecimal("30"));
+    }
+}
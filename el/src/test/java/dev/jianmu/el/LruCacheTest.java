@@ -0,0 +1,39 @@
+package dev.jianmu.el;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: LruCacheTest
+ * @description: LRU缓存移除回调测试
+ * @author: Ethan Liu
+ * @create: 2021-10-23 11:50
+ **/
+@DisplayName("LRU缓存移除回调测试")
+public class LruCacheTest {
+
+    @Test
+    @DisplayName("淘汰、替换与移除时回调测试")
+    void removalListenerTest() {
+        List<String> removed = new ArrayList<>();
+        LruCache<String, String> cache = new LruCache<>(2, (key, value) -> removed.add(key + "=" + value));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        assertEquals(List.of("a=1"), removed);
+
+        cache.put("b", "4");
+        cache.remove("c");
+        cache.removeIf((key, value) -> key.equals("x"));
+        assertEquals(List.of("a=1", "b=2", "c=3"), removed);
+
+        cache.clear();
+        assertEquals(List.of("a=1", "b=2", "c=3", "b=4"), removed);
+        assertEquals(0, cache.size());
+    }
+}
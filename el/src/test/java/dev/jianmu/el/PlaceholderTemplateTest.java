@@ -0,0 +1,54 @@
+package dev.jianmu.el;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: PlaceholderTemplateTest
+ * @description: 预编译模版测试
+ * @author: Ethan Liu
+ * @create: 2021-10-19 10:05
+ **/
+@DisplayName("预编译模版测试")
+public class PlaceholderTemplateTest {
+    private final PlaceholderResolver resolver = PlaceholderResolver.getDefaultResolver();
+
+    @Test
+    @DisplayName("多变量渲染测试")
+    void renderTest() {
+        var template = this.resolver.compile("docker build -t ${registry}/${image}:${tag} .");
+        Map<String, String> values = Map.of("registry", "hub.example.com", "image", "app", "tag", "1.0");
+        assertEquals(template.renderByRule(values::get), "docker build -t hub.example.com/app:1.0 .");
+        assertFalse(template.isStatic());
+    }
+
+    @Test
+    @DisplayName("替换值中的占位符不再解析测试")
+    void noRescanTest() {
+        var template = this.resolver.compile("${a}-${b}");
+        assertEquals(template.renderByRule(name -> name.equals("a") ? "${b}" : "x"), "${b}-x");
+    }
+
+    @Test
+    @DisplayName("空占位符与无占位符测试")
+    void emptyPlaceholderTest() {
+        assertEquals(this.resolver.compile("a${ }b").renderByRule(name -> "x"), "ab");
+        var template = this.resolver.compile("echo hello");
+        assertTrue(template.isStatic());
+        assertEquals(template.renderByRule(name -> "x"), "echo hello");
+    }
+
+    @Test
+    @DisplayName("与原解析方式结果一致测试")
+    void resolveByContextTest() {
+        ElContext context = new ElContext();
+        context.add("a", "aaa");
+        String content = "${a} != ${b}";
+        assertEquals(this.resolver.compile(content).renderByContext(context), "aaa != ${b}");
+        assertEquals(this.resolver.resolveByContext(content, context), "aaa != ${b}");
+    }
+}
@@ -0,0 +1,51 @@
+package dev.jianmu.el;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: ReflectUntilTest
+ * @description: 反射工具类测试
+ * @author: Ethan Liu
+ * @create: 2021-10-19 15:20
+ **/
+@DisplayName("反射工具类测试")
+public class ReflectUntilTest {
+
+    @Test
+    @DisplayName("获取私有属性测试")
+    void fieldValueTest() {
+        SampleObj obj = new SampleObj("jianmu", 3);
+        assertEquals(ReflectUntil.getFieldValue(obj, "name"), "jianmu");
+        assertEquals(ReflectUntil.getFieldValue(obj, "age"), 3);
+        assertEquals(ReflectUntil.getFieldValue(new SampleObj("ci", 4), "name"), "ci");
+        assertNull(ReflectUntil.getFieldValue(obj, "notExist"));
+    }
+
+    @Test
+    @DisplayName("方法调用与参数类型转换测试")
+    void invokeMethodTest() {
+        assertEquals(ReflectUntil.invokeMethod("jianmu", "substring", List.of(new BigDecimal("2"))), "anmu");
+        assertEquals(ReflectUntil.invokeMethod("jianmu", "startsWith", List.of("jian")), true);
+        assertEquals(ReflectUntil.invokeMethod("a,b", "split", List.<Object>of(",")).getClass(), String[].class);
+        SampleObj obj = new SampleObj("jianmu", 3);
+        ReflectUntil.invokeMethod(obj, "setAge", List.of(new BigDecimal("5")));
+        assertEquals(obj.getAge(), 5);
+        assertThrows(RuntimeException.class, () -> ReflectUntil.invokeMethod(obj, "notExist", List.of()));
+    }
+
+    @Test
+    @DisplayName("方法句柄缓存测试")
+    void methodHandleCacheTest() {
+        var first = ReflectUntil.getMatchingMethodHandle(String.class, "concat", String.class);
+        var second = ReflectUntil.getMatchingMethodHandle(String.class, "concat", String.class);
+        assertNotNull(first);
+        assertSame(first, second);
+        assertNull(ReflectUntil.getMatchingMethodHandle(String.class, "concat", Integer.class));
+    }
+}
@@ -1,6 +1,7 @@
 package dev.jianmu.embedded.worker.aggregate;
 
 import java.io.BufferedWriter;
+import java.util.Collection;
 
 /**
  * @class: DockerWorkerClient
@@ -20,4 +21,7 @@ public interface DockerWorker {
     void deleteImage(String imageName);
 
     void updateImage(String imageName);
+
+    // 后台拉取本地不存在的镜像
+    void prePullImages(Collection<String> imageNames);
 }
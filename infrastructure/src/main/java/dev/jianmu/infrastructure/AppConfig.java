@@ -1,5 +1,7 @@
 package dev.jianmu.infrastructure;
 
+import dev.jianmu.infrastructure.executor.ExecutorProperties;
+import dev.jianmu.infrastructure.executor.InstrumentedExecutor;
 import dev.jianmu.task.service.InstanceDomainService;
 import dev.jianmu.workflow.service.ParameterDomainService;
 import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
@@ -26,6 +28,17 @@ import java.util.concurrent.ThreadPoolExecutor;
 @Configuration
 public class AppConfig implements AsyncConfigurer, WebMvcConfigurer {
     private static final Logger logger = LoggerFactory.getLogger(AppConfig.class);
+    // 按处理阶段划分的执行器名称，用于@Async指定执行器
+    public static final String TRIGGER_EXECUTOR = "triggerExecutor";
+    public static final String SCHEDULING_EXECUTOR = "schedulingExecutor";
+    public static final String WORKER_EXECUTOR = "workerExecutor";
+    public static final String CLEANUP_EXECUTOR = "cleanupExecutor";
+
+    private final ExecutorProperties executorProperties;
+
+    public AppConfig(ExecutorProperties executorProperties) {
+        this.executorProperties = executorProperties;
+    }
 
     @Bean
     public WorkflowInstanceDomainService createWorkflowInstanceDomainService() {
@@ -62,6 +75,33 @@ public class AppConfig implements AsyncConfigurer, WebMvcConfigurer {
         return executor;
     }
 
+    @Bean(TRIGGER_EXECUTOR)
+    public InstrumentedExecutor triggerExecutor() {
+        return new InstrumentedExecutor(TRIGGER_EXECUTOR, this.executorProperties.getTrigger());
+    }
+
+    // 流程实例邮箱在提交前获取执行权，被丢弃的执行会使该流程实例不再处理命令，只允许CALLER_RUNS或ABORT
+    @Bean(SCHEDULING_EXECUTOR)
+    public InstrumentedExecutor schedulingExecutor() {
+        var pool = this.executorProperties.getScheduling();
+        var policy = pool.getRejectionPolicy();
+        if (policy != ExecutorProperties.RejectionPolicy.CALLER_RUNS && policy != ExecutorProperties.RejectionPolicy.ABORT) {
+            logger.warn("执行器 {} 不支持拒绝策略 {}，使用CALLER_RUNS", SCHEDULING_EXECUTOR, policy);
+            pool.setRejectionPolicy(ExecutorProperties.RejectionPolicy.CALLER_RUNS);
+        }
+        return new InstrumentedExecutor(SCHEDULING_EXECUTOR, pool);
+    }
+
+    @Bean(WORKER_EXECUTOR)
+    public InstrumentedExecutor workerExecutor() {
+        return new InstrumentedExecutor(WORKER_EXECUTOR, this.executorProperties.getWorker());
+    }
+
+    @Bean(CLEANUP_EXECUTOR)
+    public InstrumentedExecutor cleanupExecutor() {
+        return new InstrumentedExecutor(CLEANUP_EXECUTOR, this.executorProperties.getCleanup());
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SpringAsyncExceptionHandler();
@@ -0,0 +1,76 @@
+package dev.jianmu.infrastructure.docker;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @class: ContainerAdmission
+ * @description: 容器准入控制
+ * 同时运行的容器数量由准入上限决定，超出上限的任务按提交顺序排队，不在提交线程上执行
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:10
+ **/
+public class ContainerAdmission {
+    private final int maxRunning;
+    private final Semaphore permits;
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final Executor executor;
+
+    public ContainerAdmission(int maxRunning, Executor executor) {
+        if (maxRunning < 1) {
+            throw new IllegalArgumentException("容器准入上限必须大于0");
+        }
+        this.maxRunning = maxRunning;
+        this.permits = new Semaphore(maxRunning);
+        this.executor = executor;
+    }
+
+    /**
+     * 提交任务，获得准入后在执行器上启动，任务结束时必须调用release
+     *
+     * @param task 容器启动任务
+     */
+    public void submit(Runnable task) {
+        this.pending.add(task);
+        this.drain();
+    }
+
+    /**
+     * 归还准入并启动排队中的任务
+     */
+    public void release() {
+        this.permits.release();
+        this.drain();
+    }
+
+    private void drain() {
+        // 每次入队与归还后都检查一次，避免任务在并发时滞留在队列中
+        while (!this.pending.isEmpty() && this.permits.tryAcquire()) {
+            var task = this.pending.poll();
+            if (task == null) {
+                this.permits.release();
+                continue;
+            }
+            try {
+                this.executor.execute(task);
+            } catch (RuntimeException e) {
+                this.permits.release();
+                throw e;
+            }
+        }
+    }
+
+    public int getMaxRunning() {
+        return maxRunning;
+    }
+
+    public int getRunningCount() {
+        return this.maxRunning - this.permits.availablePermits();
+    }
+
+    public int getPendingCount() {
+        return this.pending.size();
+    }
+}
@@ -3,6 +3,7 @@ package dev.jianmu.infrastructure.docker;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.exception.ConflictException;
 import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.*;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
@@ -12,6 +13,7 @@ import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
 import com.github.dockerjava.transport.DockerHttpClient;
 import dev.jianmu.embedded.worker.aggregate.DockerTask;
 import dev.jianmu.embedded.worker.aggregate.DockerWorker;
+import dev.jianmu.infrastructure.AppConfig;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
@@ -19,8 +21,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -28,9 +32,13 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @class: Client
@@ -59,6 +67,13 @@ public class EmbeddedDockerWorker implements DockerWorker {
     private Map<String, Integer> runStatusMap = new ConcurrentHashMap<>();
 
     private final ApplicationEventPublisher publisher;
+    private final EmbeddedDockerWorkerProperties.ExecutionMode executionMode;
+    // 容器启动与结束处理线程，数量受准入上限约束
+    private final ExecutorService containerExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("dockerTask-"));
+    private final ContainerAdmission containerAdmission;
+    // 镜像预拉取线程
+    private final ExecutorService imagePullExecutor;
+    private final ImageManager imageManager;
 
     public EmbeddedDockerWorker(EmbeddedDockerWorkerProperties properties, ApplicationEventPublisher publisher) {
         this.dockerHost = properties.getDockerHost();
@@ -72,9 +87,34 @@ public class EmbeddedDockerWorker implements DockerWorker {
         this.dockerTlsVerify = properties.getDockerTlsVerify();
         this.sockFile = properties.getSockFile();
         this.publisher = publisher;
+        this.executionMode = properties.getExecutionMode();
+        this.containerAdmission = new ContainerAdmission(properties.getMaxRunningContainers(), this.containerExecutor);
+        this.imagePullExecutor = Executors.newFixedThreadPool(properties.getImagePullThreads(), new CustomizableThreadFactory("imagePull-"));
+        this.imageManager = new ImageManager(new DockerImageClient(), this.imagePullExecutor);
         this.connect();
     }
 
+    private class DockerImageClient implements ImageManager.ImageClient {
+        @Override
+        public String inspect(String imageName) {
+            try {
+                return dockerClient.inspectImageCmd(imageName).exec().getId();
+            } catch (NotFoundException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void pull(String imageName) throws InterruptedException {
+            dockerClient.pullImageCmd(imageName).exec(new ResultCallback.Adapter<>() {
+                @Override
+                public void onNext(PullResponseItem object) {
+                    logger.info("镜像下载成功: {} status: {}", object.getId(), object.getStatus());
+                }
+            }).awaitCompletion();
+        }
+    }
+
     private void connect() {
         DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
                 .withDockerHost(this.dockerHost)
@@ -93,114 +133,21 @@ public class EmbeddedDockerWorker implements DockerWorker {
     }
 
     @Override
-    @Async
+    @Async(AppConfig.WORKER_EXECUTOR)
     public void runTask(DockerTask dockerTask, BufferedWriter logWriter) {
-        var spec = dockerTask.getSpec();
-        // 创建容器参数
-        var createContainerCmd = dockerClient.createContainerCmd(spec.getImage())
-                .withName(dockerTask.getTaskInstanceId());
-        if (!spec.getWorkingDir().isBlank()) {
-            createContainerCmd.withWorkingDir(spec.getWorkingDir());
-        }
-        if (null != spec.getHostConfig()) {
-            List<Mount> mounts = new ArrayList<>();
-            spec.getHostConfig().getMounts().forEach(m -> {
-                mounts.add(
-                        new Mount()
-                                .withType(MountType.VOLUME)
-                                .withSource(m.getSource())
-                                .withTarget(m.getTarget())
-                );
-                // 如果要执行docker客户端镜像则挂载宿主机sock文件
-                if (spec.getImage().startsWith("docker:") && null != this.sockFile) {
-                    mounts.add(
-                            new Mount().withType(MountType.BIND)
-                                    .withTarget("/var/run/docker.sock")
-                                    .withSource(this.sockFile)
-                    );
-                }
-            });
-            var hostConfig = HostConfig.newHostConfig().withMounts(mounts);
-            createContainerCmd.withHostConfig(hostConfig);
-        }
-        if (null != spec.getEnv()) {
-            String[] envArray;
-            // 如果要执行docker客户端镜像则添加DOCKER_HOST环境变量
-            if (spec.getImage().startsWith("docker:")) {
-                var envs = new ArrayList<>(Arrays.asList(spec.getEnv()));
-                envs.add("DOCKER_HOST=" + this.dockerHost);
-                envArray = envs.toArray(spec.getEnv());
-            } else {
-                envArray = spec.getEnv();
-            }
-            Arrays.stream(envArray).forEach(System.out::println);
-            createContainerCmd.withEnv(envArray);
-        }
-        if (null != spec.getEntrypoint() && spec.getEntrypoint().length > 0) {
-            logger.info("Entrypoint is: {}", Arrays.asList(spec.getEntrypoint()));
-            createContainerCmd.withEntrypoint(spec.getEntrypoint());
-        }
-        if (null != spec.getCmd() && spec.getCmd().length > 0) {
-            createContainerCmd.withCmd(spec.getCmd());
-        }
-        // 检查镜像是否存在本地
-        boolean imagePull = false;
-        try {
-            this.dockerClient.inspectImageCmd(spec.getImage()).exec();
-        } catch (NotFoundException e) {
-            logger.info("镜像不存在，需要下载");
-            imagePull = true;
-        }
-        // 拉取镜像
-        if (imagePull) {
-            try {
-                this.dockerClient.pullImageCmd(spec.getImage()).exec(new ResultCallback.Adapter<>() {
-                    @Override
-                    public void onNext(PullResponseItem object) {
-                        logger.info("镜像下载成功: {} status: {}", object.getId(), object.getStatus());
-                    }
-                }).awaitCompletion();
-            } catch (InterruptedException | RuntimeException e) {
-                logger.error("镜像下载失败:", e);
-                this.publisher.publishEvent(TaskFailedEvent.builder()
-                        .triggerId(dockerTask.getTriggerId())
-                        .taskId(dockerTask.getTaskInstanceId())
-                        .errorMsg(e.getMessage())
-                        .build());
-                Thread.currentThread().interrupt();
-                return;
-            }
-        }
-        // 创建容器
-        CreateContainerResponse containerResponse;
-        try {
-            containerResponse = createContainerCmd.exec();
-        } catch (RuntimeException e) {
-            logger.error("无法创建容器", e);
-            this.publisher.publishEvent(TaskFailedEvent.builder()
-                    .triggerId(dockerTask.getTriggerId())
-                    .taskId(dockerTask.getTaskInstanceId())
-                    .errorMsg(e.getMessage())
-                    .build());
+        if (this.executionMode == EmbeddedDockerWorkerProperties.ExecutionMode.CALLBACK) {
+            // 只提交到准入队列，不占用异步任务线程
+            this.containerAdmission.submit(() -> this.startTask(dockerTask, logWriter));
             return;
         }
-        // 启动容器
-        try {
-            this.dockerClient.startContainerCmd(containerResponse.getId()).exec();
-        } catch (RuntimeException e) {
-            logger.error("容器启动失败:", e);
-            this.publisher.publishEvent(TaskFailedEvent.builder()
-                    .triggerId(dockerTask.getTriggerId())
-                    .taskId(dockerTask.getTaskInstanceId())
-                    .errorMsg(e.getMessage())
-                    .build());
+        var containerId = this.createContainer(dockerTask);
+        if (null == containerId) {
+            this.closeLogWriter(logWriter);
             return;
         }
-        // 发送任务运行中事件
-        this.publisher.publishEvent(TaskRunningEvent.builder().taskId(dockerTask.getTaskInstanceId()).build());
         // 获取日志
         try {
-            this.dockerClient.logContainerCmd(containerResponse.getId())
+            this.dockerClient.logContainerCmd(containerId)
                     .withStdOut(true)
                     .withStdErr(true)
                     .withTailAll()
@@ -240,7 +187,7 @@ public class EmbeddedDockerWorker implements DockerWorker {
         }
         // 等待容器执行结果
         try {
-            this.dockerClient.waitContainerCmd(containerResponse.getId()).exec(new ResultCallback.Adapter<>() {
+            this.dockerClient.waitContainerCmd(containerId).exec(new ResultCallback.Adapter<>() {
                 @Override
                 public void onNext(WaitResponse object) {
                     logger.info("dockerTask {} status code is: {}", dockerTask.getTaskInstanceId(), object.getStatusCode());
@@ -259,51 +206,15 @@ public class EmbeddedDockerWorker implements DockerWorker {
                     .build());
             Thread.currentThread().interrupt();
         }
-        // 获取容器执行结果文件(JSON,非数组)，转换为任务输出参数
-        String resultFile = null;
-        if (null != dockerTask.getResultFile()) {
-            try (
-                    var stream = this.dockerClient.copyArchiveFromContainerCmd(containerResponse.getId(), dockerTask.getResultFile()).exec();
-                    var tarStream = new TarArchiveInputStream(stream);
-                    var reader = new BufferedReader(new InputStreamReader(tarStream, StandardCharsets.UTF_8))
-            ) {
-                var tarArchiveEntry = tarStream.getNextTarEntry();
-                if (!tarStream.canReadEntryData(tarArchiveEntry)) {
-                    logger.info("不能读取tarArchiveEntry");
-                }
-                if (!tarArchiveEntry.isFile()) {
-                    logger.info("执行结果文件必须是文件类型, 不支持目录或其他类型");
-                }
-                logger.info("tarArchiveEntry's name: {}", tarArchiveEntry.getName());
-                resultFile = IOUtils.toString(reader);
-                logger.info("结果文件内容: {}", resultFile);
-            } catch (Exception e) {
-                logger.error("无法获取容器执行结果文件:", e);
-                this.publisher.publishEvent(TaskFailedEvent.builder()
-                        .triggerId(dockerTask.getTriggerId())
-                        .taskId(dockerTask.getTaskInstanceId())
-                        .errorMsg(e.getMessage())
-                        .build());
-            }
-        }
-        // 清除容器
-        this.dockerClient.removeContainerCmd(containerResponse.getId())
-                .withRemoveVolumes(true)
-                .withForce(true)
-                .exec();
-        // 发送结果通知
-        this.publisher.publishEvent(
-                TaskFinishedEvent.builder()
-                        .triggerId(dockerTask.getTriggerId())
-                        .taskId(dockerTask.getTaskInstanceId())
-                        .cmdStatusCode(runStatusMap.get(dockerTask.getTaskInstanceId()))
-                        .resultFile(resultFile)
-                        .build()
-        );
+        this.finishTask(containerId, dockerTask);
     }
 
     @Override
     public void resumeTask(DockerTask dockerTask, BufferedWriter logWriter) {
+        if (this.executionMode == EmbeddedDockerWorkerProperties.ExecutionMode.CALLBACK) {
+            this.containerAdmission.submit(() -> this.superviseContainer(dockerTask.getTaskInstanceId(), dockerTask, logWriter));
+            return;
+        }
         // 获取日志
         try {
             this.dockerClient.logContainerCmd(dockerTask.getTaskInstanceId())
@@ -369,11 +280,128 @@ public class EmbeddedDockerWorker implements DockerWorker {
                     .build());
             Thread.currentThread().interrupt();
         }
+        this.finishTask(dockerTask.getTaskInstanceId(), dockerTask);
+    }
+
+    private String createContainer(DockerTask dockerTask) {
+        var spec = dockerTask.getSpec();
+        // 创建容器参数
+        var createContainerCmd = dockerClient.createContainerCmd(spec.getImage())
+                .withName(dockerTask.getTaskInstanceId());
+        if (!spec.getWorkingDir().isBlank()) {
+            createContainerCmd.withWorkingDir(spec.getWorkingDir());
+        }
+        if (null != spec.getHostConfig()) {
+            List<Mount> mounts = new ArrayList<>();
+            spec.getHostConfig().getMounts().forEach(m -> {
+                mounts.add(
+                        new Mount()
+                                .withType(MountType.VOLUME)
+                                .withSource(m.getSource())
+                                .withTarget(m.getTarget())
+                );
+                // 如果要执行docker客户端镜像则挂载宿主机sock文件
+                if (spec.getImage().startsWith("docker:") && null != this.sockFile) {
+                    mounts.add(
+                            new Mount().withType(MountType.BIND)
+                                    .withTarget("/var/run/docker.sock")
+                                    .withSource(this.sockFile)
+                    );
+                }
+            });
+            var hostConfig = HostConfig.newHostConfig().withMounts(mounts);
+            createContainerCmd.withHostConfig(hostConfig);
+        }
+        if (null != spec.getEnv()) {
+            String[] envArray;
+            // 如果要执行docker客户端镜像则添加DOCKER_HOST环境变量
+            if (spec.getImage().startsWith("docker:")) {
+                var envs = new ArrayList<>(Arrays.asList(spec.getEnv()));
+                envs.add("DOCKER_HOST=" + this.dockerHost);
+                envArray = envs.toArray(spec.getEnv());
+            } else {
+                envArray = spec.getEnv();
+            }
+            Arrays.stream(envArray).forEach(System.out::println);
+            createContainerCmd.withEnv(envArray);
+        }
+        if (null != spec.getEntrypoint() && spec.getEntrypoint().length > 0) {
+            logger.info("Entrypoint is: {}", Arrays.asList(spec.getEntrypoint()));
+            createContainerCmd.withEntrypoint(spec.getEntrypoint());
+        }
+        if (null != spec.getCmd() && spec.getCmd().length > 0) {
+            createContainerCmd.withCmd(spec.getCmd());
+        }
+        // 检查镜像是否存在本地，已确认存在的镜像不再检查，同一镜像同时只拉取一次
+        try {
+            this.imageManager.ensure(spec.getImage());
+        } catch (InterruptedException | RuntimeException e) {
+            logger.error("镜像下载失败:", e);
+            this.publisher.publishEvent(TaskFailedEvent.builder()
+                    .triggerId(dockerTask.getTriggerId())
+                    .taskId(dockerTask.getTaskInstanceId())
+                    .errorMsg(e.getMessage())
+                    .build());
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        // 创建容器
+        CreateContainerResponse containerResponse;
+        try {
+            try {
+                containerResponse = createContainerCmd.exec();
+            } catch (NotFoundException e) {
+                // 镜像已在外部被删除，重新拉取后再创建一次
+                logger.info("镜像已不存在，重新下载: {}", spec.getImage());
+                this.imageManager.evict(spec.getImage());
+                this.imageManager.ensure(spec.getImage());
+                containerResponse = createContainerCmd.exec();
+            }
+        } catch (InterruptedException e) {
+            logger.error("镜像下载失败:", e);
+            this.publisher.publishEvent(TaskFailedEvent.builder()
+                    .triggerId(dockerTask.getTriggerId())
+                    .taskId(dockerTask.getTaskInstanceId())
+                    .errorMsg(e.getMessage())
+                    .build());
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ConflictException e) {
+            // 容器以任务实例ID命名，同名容器已存在说明该任务已被分发，重复投递的分发不再启动
+            logger.info("任务 {} 的容器已存在，忽略重复分发", dockerTask.getTaskInstanceId());
+            return null;
+        } catch (RuntimeException e) {
+            logger.error("无法创建容器", e);
+            this.publisher.publishEvent(TaskFailedEvent.builder()
+                    .triggerId(dockerTask.getTriggerId())
+                    .taskId(dockerTask.getTaskInstanceId())
+                    .errorMsg(e.getMessage())
+                    .build());
+            return null;
+        }
+        // 启动容器
+        try {
+            this.dockerClient.startContainerCmd(containerResponse.getId()).exec();
+        } catch (RuntimeException e) {
+            logger.error("容器启动失败:", e);
+            this.publisher.publishEvent(TaskFailedEvent.builder()
+                    .triggerId(dockerTask.getTriggerId())
+                    .taskId(dockerTask.getTaskInstanceId())
+                    .errorMsg(e.getMessage())
+                    .build());
+            return null;
+        }
+        // 发送任务运行中事件
+        this.publisher.publishEvent(TaskRunningEvent.builder().taskId(dockerTask.getTaskInstanceId()).build());
+        return containerResponse.getId();
+    }
+
+    private void finishTask(String containerId, DockerTask dockerTask) {
         // 获取容器执行结果文件(JSON,非数组)，转换为任务输出参数
         String resultFile = null;
         if (null != dockerTask.getResultFile()) {
             try (
-                    var stream = this.dockerClient.copyArchiveFromContainerCmd(dockerTask.getTaskInstanceId(), dockerTask.getResultFile()).exec();
+                    var stream = this.dockerClient.copyArchiveFromContainerCmd(containerId, dockerTask.getResultFile()).exec();
                     var tarStream = new TarArchiveInputStream(stream);
                     var reader = new BufferedReader(new InputStreamReader(tarStream, StandardCharsets.UTF_8))
             ) {
@@ -397,7 +425,7 @@ public class EmbeddedDockerWorker implements DockerWorker {
             }
         }
         // 清除容器
-        this.dockerClient.removeContainerCmd(dockerTask.getTaskInstanceId())
+        this.dockerClient.removeContainerCmd(containerId)
                 .withRemoveVolumes(true)
                 .withForce(true)
                 .exec();
@@ -406,15 +434,147 @@ public class EmbeddedDockerWorker implements DockerWorker {
                 TaskFinishedEvent.builder()
                         .triggerId(dockerTask.getTriggerId())
                         .taskId(dockerTask.getTaskInstanceId())
-                        .cmdStatusCode(runStatusMap.get(dockerTask.getTaskInstanceId()))
+                        .cmdStatusCode(runStatusMap.remove(dockerTask.getTaskInstanceId()))
                         .resultFile(resultFile)
                         .build()
         );
     }
 
+    private void startTask(DockerTask dockerTask, BufferedWriter logWriter) {
+        String containerId;
+        try {
+            containerId = this.createContainer(dockerTask);
+        } catch (RuntimeException e) {
+            logger.error("容器启动失败:", e);
+            this.taskFailed(dockerTask, e);
+            containerId = null;
+        }
+        if (null == containerId) {
+            this.closeLogWriter(logWriter);
+            this.containerAdmission.release();
+            return;
+        }
+        this.superviseContainer(containerId, dockerTask, logWriter);
+    }
+
+    // 日志流结束后等待容器执行结果，回调在docker-java的流线程上执行，不占用任务线程
+    private void superviseContainer(String containerId, DockerTask dockerTask, BufferedWriter logWriter) {
+        try {
+            this.dockerClient.logContainerCmd(containerId)
+                    .withStdOut(true)
+                    .withStdErr(true)
+                    .withTailAll()
+                    .withFollowStream(true)
+                    .exec(new ResultCallback.Adapter<>() {
+                        @Override
+                        public void onNext(Frame object) {
+                            try {
+                                logWriter.write(new String(object.getPayload(), StandardCharsets.UTF_8));
+                                logWriter.flush();
+                            } catch (IOException e) {
+                                logger.error("获取容器日志异常:", e);
+                            }
+                        }
+
+                        @Override
+                        public void onError(Throwable throwable) {
+                            super.onError(throwable);
+                            taskFailed(dockerTask, throwable);
+                            closeLogWriter(logWriter);
+                            // 容器已不存在时无需等待执行结果
+                            if (throwable instanceof NotFoundException) {
+                                containerAdmission.release();
+                                return;
+                            }
+                            waitContainer(containerId, dockerTask);
+                        }
+
+                        @Override
+                        public void onComplete() {
+                            super.onComplete();
+                            waitContainer(containerId, dockerTask);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            logger.error("获取容器日志失败", e);
+            this.taskFailed(dockerTask, e);
+            this.closeLogWriter(logWriter);
+            this.containerAdmission.release();
+        }
+    }
+
+    private void waitContainer(String containerId, DockerTask dockerTask) {
+        try {
+            this.dockerClient.waitContainerCmd(containerId).exec(new ResultCallback.Adapter<>() {
+                @Override
+                public void onNext(WaitResponse object) {
+                    logger.info("dockerTask {} status code is: {}", dockerTask.getTaskInstanceId(), object.getStatusCode());
+                    runStatusMap.put(dockerTask.getTaskInstanceId(), object.getStatusCode());
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    super.onError(throwable);
+                    taskFailed(dockerTask, throwable);
+                    finishTaskAsync(containerId, dockerTask);
+                }
+
+                @Override
+                public void onComplete() {
+                    super.onComplete();
+                    finishTaskAsync(containerId, dockerTask);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("获取容器执行结果失败", e);
+            this.taskFailed(dockerTask, e);
+            this.finishTaskAsync(containerId, dockerTask);
+        }
+    }
+
+    // 结果文件读取、容器清除与事件发送回到容器执行线程池，完成后归还准入
+    private void finishTaskAsync(String containerId, DockerTask dockerTask) {
+        try {
+            this.containerExecutor.execute(() -> {
+                try {
+                    this.finishTask(containerId, dockerTask);
+                } catch (RuntimeException e) {
+                    logger.error("容器清除失败:", e);
+                } finally {
+                    this.containerAdmission.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("容器执行线程池已关闭，任务 {} 未能完成清理", dockerTask.getTaskInstanceId());
+            this.containerAdmission.release();
+        }
+    }
+
+    private void taskFailed(DockerTask dockerTask, Throwable throwable) {
+        this.publisher.publishEvent(TaskFailedEvent.builder()
+                .triggerId(dockerTask.getTriggerId())
+                .taskId(dockerTask.getTaskInstanceId())
+                .errorMsg(throwable.getMessage())
+                .build());
+    }
+
+    private void closeLogWriter(BufferedWriter logWriter) {
+        try {
+            logWriter.close();
+        } catch (IOException e) {
+            logger.error("日志流关闭失败:", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.containerExecutor.shutdown();
+        this.imagePullExecutor.shutdownNow();
+    }
+
     @Override
     public void createVolume(String volumeName) {
-        // 创建Volume
+        // 创建Volume，同名Volume已存在时直接返回，重复投递时可以再次执行
         this.dockerClient.createVolumeCmd()
                 .withName(volumeName)
                 .withDriver("local")
@@ -423,12 +583,17 @@ public class EmbeddedDockerWorker implements DockerWorker {
 
     @Override
     public void deleteVolume(String volumeName) {
-        // 清除Volume
-        this.dockerClient.removeVolumeCmd(volumeName).exec();
+        // 清除Volume，已清除时忽略，重复投递时可以再次执行
+        try {
+            this.dockerClient.removeVolumeCmd(volumeName).exec();
+        } catch (NotFoundException e) {
+            logger.info("Volume {} 已清除", volumeName);
+        }
     }
 
     @Override
     public void deleteImage(String imageName) {
+        this.imageManager.evict(imageName);
         this.dockerClient.removeImageCmd(imageName).exec();
     }
 
@@ -451,6 +616,14 @@ public class EmbeddedDockerWorker implements DockerWorker {
             }).awaitCompletion();
         } catch (InterruptedException | RuntimeException e) {
             logger.error("镜像更新失败:", e);
+        } finally {
+            // 镜像ID已变化，下次使用时重新检查
+            this.imageManager.evict(imageName);
         }
     }
+
+    @Override
+    public void prePullImages(Collection<String> imageNames) {
+        this.imageManager.prePull(imageNames);
+    }
 }
@@ -26,4 +26,18 @@ public class EmbeddedDockerWorkerProperties {
     private Boolean dockerTlsVerify;
 
     private String sockFile;
+
+    // 容器执行方式
+    private ExecutionMode executionMode = ExecutionMode.POOL;
+    // CALLBACK方式下同时运行的容器数量上限
+    private int maxRunningContainers = 20;
+    // 镜像预拉取线程数
+    private int imagePullThreads = 4;
+
+    public enum ExecutionMode {
+        // 在异步任务线程池中阻塞等待容器结束
+        POOL,
+        // 通过回调监听容器日志与执行结果，不占用线程等待容器结束
+        CALLBACK
+    }
 }
@@ -0,0 +1,133 @@
+package dev.jianmu.infrastructure.docker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * @class: ImageManager
+ * @description: 镜像管理
+ * 记录已确认存在于本地的镜像，同一镜像同时只拉取一次，其他任务等待拉取结果
+ * @author: Ethan Liu
+ * @create: 2021-10-29 10:10
+ **/
+public class ImageManager {
+    private static final Logger logger = LoggerFactory.getLogger(ImageManager.class);
+
+    public interface ImageClient {
+        // 返回本地镜像ID，镜像不存在时返回null
+        String inspect(String imageName);
+
+        void pull(String imageName) throws InterruptedException;
+    }
+
+    private final ImageClient client;
+    private final Executor prePullExecutor;
+    // 镜像名称 -> 本地镜像ID
+    private final ConcurrentHashMap<String, String> images = new ConcurrentHashMap<>();
+    // 拉取中的镜像
+    private final ConcurrentHashMap<String, CompletableFuture<String>> pulls = new ConcurrentHashMap<>();
+
+    public ImageManager(ImageClient client, Executor prePullExecutor) {
+        this.client = client;
+        this.prePullExecutor = prePullExecutor;
+    }
+
+    /**
+     * 确认镜像存在于本地，不存在时拉取，已拉取中的镜像等待拉取结果
+     *
+     * @param imageName 镜像名称
+     * @return 本地镜像ID
+     */
+    public String ensure(String imageName) throws InterruptedException {
+        var imageId = this.images.get(imageName);
+        if (imageId != null) {
+            return imageId;
+        }
+        var future = new CompletableFuture<String>();
+        var running = this.pulls.putIfAbsent(imageName, future);
+        if (running != null) {
+            return this.await(imageName, running);
+        }
+        try {
+            imageId = this.load(imageName);
+            this.images.put(imageName, imageId);
+            future.complete(imageId);
+            return imageId;
+        } catch (InterruptedException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.pulls.remove(imageName, future);
+        }
+    }
+
+    /**
+     * 在后台拉取本地不存在的镜像，失败时只记录日志，任务执行时再次拉取
+     *
+     * @param imageNames 镜像名称列表
+     */
+    public void prePull(Collection<String> imageNames) {
+        imageNames.stream()
+                .distinct()
+                .filter(imageName -> !this.images.containsKey(imageName) && !this.pulls.containsKey(imageName))
+                .forEach(imageName -> {
+                    try {
+                        this.prePullExecutor.execute(() -> {
+                            try {
+                                this.ensure(imageName);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            } catch (RuntimeException e) {
+                                logger.warn("镜像预拉取失败: {}", imageName, e);
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        logger.warn("镜像预拉取任务提交失败: {}", imageName, e);
+                    }
+                });
+    }
+
+    /**
+     * 镜像被删除、更新或已不存在于本地时移除记录，下次使用时重新检查
+     *
+     * @param imageName 镜像名称
+     */
+    public void evict(String imageName) {
+        this.images.remove(imageName);
+    }
+
+    public boolean isPresent(String imageName) {
+        return this.images.containsKey(imageName);
+    }
+
+    private String load(String imageName) throws InterruptedException {
+        var imageId = this.client.inspect(imageName);
+        if (imageId != null) {
+            return imageId;
+        }
+        logger.info("镜像不存在，需要下载: {}", imageName);
+        this.client.pull(imageName);
+        imageId = this.client.inspect(imageName);
+        if (imageId == null) {
+            throw new RuntimeException("镜像下载后仍不存在: " + imageName);
+        }
+        return imageId;
+    }
+
+    private String await(String imageName, CompletableFuture<String> running) throws InterruptedException {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("镜像下载失败: " + imageName, e.getCause());
+        }
+    }
+}
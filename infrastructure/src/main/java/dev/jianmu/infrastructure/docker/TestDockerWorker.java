@@ -8,6 +8,7 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedWriter;
+import java.util.Collection;
 
 /**
  * @class: TestDockerWorker
@@ -49,4 +50,9 @@ public class TestDockerWorker implements DockerWorker {
     public void updateImage(String imageName) {
         logger.info("updateImage: {}", imageName);
     }
+
+    @Override
+    public void prePullImages(Collection<String> imageNames) {
+        logger.info("prePullImages: {}", imageNames);
+    }
 }
@@ -1,6 +1,7 @@
 package dev.jianmu.infrastructure.elimpl;
 
 import dev.jianmu.el.El;
+import dev.jianmu.el.ElCache;
 import dev.jianmu.workflow.el.EvaluationContext;
 import dev.jianmu.workflow.el.EvaluationResult;
 import dev.jianmu.workflow.el.Expression;
@@ -17,9 +18,16 @@ import org.springframework.stereotype.Service;
 @Service
 @Slf4j
 public class ExpressionLanguageWarp implements ExpressionLanguage {
+    // 预编译表达式缓存，相同表达式原文只解析一次
+    private final ElCache elCache = ElCache.getDefaultCache();
+
     @Override
     public Expression parseExpression(String expression) {
-        return new El(expression);
+        return this.elCache.get(expression);
+    }
+
+    public ElCache getElCache() {
+        return elCache;
     }
 
     @Override
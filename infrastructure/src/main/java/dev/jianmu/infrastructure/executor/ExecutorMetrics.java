@@ -0,0 +1,23 @@
+package dev.jianmu.infrastructure.executor;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * @class: ExecutorMetrics
+ * @description: 异步执行器运行指标
+ * @author: Ethan Liu
+ * @create: 2021-10-25 09:40
+ **/
+@Getter
+@Builder
+public class ExecutorMetrics {
+    private final String name;
+    private final int poolSize;
+    private final int maxPoolSize;
+    private final int activeCount;
+    private final int queueSize;
+    private final int queueRemainingCapacity;
+    private final long completedTaskCount;
+    private final long rejectedCount;
+}
@@ -0,0 +1,70 @@
+package dev.jianmu.infrastructure.executor;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * @class: ExecutorProperties
+ * @description: 按处理阶段划分的异步执行器配置
+ * @author: Ethan Liu
+ * @create: 2021-10-25 09:30
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.executor")
+public class ExecutorProperties {
+    // 触发器事件，创建并启动流程实例
+    private Pool trigger = new Pool(4, 8, 200);
+    // 节点与任务激活等调度状态变更，由流程实例邮箱使用，拒绝策略只能为CALLER_RUNS或ABORT
+    private Pool scheduling = new Pool(10, 20, 500);
+    // 容器执行与运行中任务恢复
+    private Pool worker = new Pool(10, 20, 200);
+    // 流程结束后的资源清理
+    private Pool cleanup = new Pool(2, 4, 100);
+
+    @Data
+    public static class Pool {
+        private int corePoolSize;
+        private int maxPoolSize;
+        private int queueCapacity;
+        private int keepAliveSeconds = 60;
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+        public Pool() {
+        }
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public enum RejectionPolicy {
+        // 在提交线程中执行
+        CALLER_RUNS,
+        // 抛出RejectedExecutionException
+        ABORT,
+        // 丢弃新任务
+        DISCARD,
+        // 丢弃队列中最早的任务
+        DISCARD_OLDEST;
+
+        public RejectedExecutionHandler newHandler() {
+            switch (this) {
+                case ABORT:
+                    return new ThreadPoolExecutor.AbortPolicy();
+                case DISCARD:
+                    return new ThreadPoolExecutor.DiscardPolicy();
+                case DISCARD_OLDEST:
+                    return new ThreadPoolExecutor.DiscardOldestPolicy();
+                default:
+                    return new ThreadPoolExecutor.CallerRunsPolicy();
+            }
+        }
+    }
+}
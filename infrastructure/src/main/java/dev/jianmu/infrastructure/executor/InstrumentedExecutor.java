@@ -0,0 +1,59 @@
+package dev.jianmu.infrastructure.executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @class: InstrumentedExecutor
+ * @description: 带运行指标的异步执行器，记录队列深度、活动线程数与拒绝次数
+ * @author: Ethan Liu
+ * @create: 2021-10-25 09:50
+ **/
+public class InstrumentedExecutor extends ThreadPoolTaskExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(InstrumentedExecutor.class);
+
+    private final String name;
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public InstrumentedExecutor(String name, ExecutorProperties.Pool pool) {
+        this.name = name;
+        this.setCorePoolSize(pool.getCorePoolSize());
+        this.setMaxPoolSize(pool.getMaxPoolSize());
+        this.setQueueCapacity(pool.getQueueCapacity());
+        this.setKeepAliveSeconds(pool.getKeepAliveSeconds());
+        this.setThreadNamePrefix(name + "-");
+        RejectedExecutionHandler handler = pool.getRejectionPolicy().newHandler();
+        // 拒绝计数后再交给配置的拒绝策略处理
+        this.setRejectedExecutionHandler((runnable, executor) -> {
+            var count = this.rejectedCount.incrementAndGet();
+            logger.warn("执行器 {} 队列已满，拒绝策略: {}，累计拒绝次数: {}", name, pool.getRejectionPolicy(), count);
+            handler.rejectedExecution(runnable, executor);
+        });
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public ExecutorMetrics getMetrics() {
+        var executor = this.getThreadPoolExecutor();
+        return ExecutorMetrics.builder()
+                .name(this.name)
+                .poolSize(executor.getPoolSize())
+                .maxPoolSize(executor.getMaximumPoolSize())
+                .activeCount(executor.getActiveCount())
+                .queueSize(executor.getQueue().size())
+                .queueRemainingCapacity(executor.getQueue().remainingCapacity())
+                .completedTaskCount(executor.getCompletedTaskCount())
+                .rejectedCount(this.rejectedCount.get())
+                .build();
+    }
+}
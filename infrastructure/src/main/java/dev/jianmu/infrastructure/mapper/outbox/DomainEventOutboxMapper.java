@@ -0,0 +1,41 @@
+package dev.jianmu.infrastructure.mapper.outbox;
+
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * @class: DomainEventOutboxMapper
+ * @description: 领域事件发件箱DB映射接口
+ * @author: Ethan Liu
+ * @create: 2021-10-27 09:30
+ **/
+public interface DomainEventOutboxMapper {
+    // 同一聚合对象重复保存时，已写入的事件按事件ID忽略，其他错误照常抛出
+    @Insert("<script>" +
+            "insert into domain_event_outbox(event_id, aggregate_id, event_type, payload, created_time) values" +
+            "<foreach collection='rows' item='i' separator=','>" +
+            "(#{i.eventId}, #{i.aggregateId}, #{i.eventType}, #{i.payload}, #{i.createdTime})" +
+            "</foreach>" +
+            " on duplicate key update id = id" +
+            " </script>")
+    void addAll(@Param("rows") List<DomainEventOutboxRow> rows);
+
+    @Select("select * from domain_event_outbox order by id limit #{limit}")
+    @Result(column = "event_id", property = "eventId")
+    @Result(column = "aggregate_id", property = "aggregateId")
+    @Result(column = "event_type", property = "eventType")
+    @Result(column = "created_time", property = "createdTime")
+    List<DomainEventOutboxRow> findFirst(@Param("limit") int limit);
+
+    @Delete("delete from domain_event_outbox where id = #{id}")
+    int deleteById(Long id);
+
+    @Update("update domain_event_outbox set attempts = attempts + 1 where id = #{id}")
+    int increaseAttempts(Long id);
+
+    @Insert("insert into domain_event_dead_letter(id, event_id, aggregate_id, event_type, payload, attempts, error, created_time, dead_time) " +
+            "values(#{row.id}, #{row.eventId}, #{row.aggregateId}, #{row.eventType}, #{row.payload}, #{row.attempts}, #{error}, #{row.createdTime}, now())" +
+            " on duplicate key update id = id")
+    void addDeadLetter(@Param("row") DomainEventOutboxRow row, @Param("error") String error);
+}
@@ -0,0 +1,28 @@
+package dev.jianmu.infrastructure.mapper.outbox;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: DomainEventOutboxRow
+ * @description: domain_event_outbox表行数据
+ * @author: Ethan Liu
+ * @create: 2021-10-27 09:20
+ **/
+@Data
+public class DomainEventOutboxRow {
+    // 投递顺序号
+    private Long id;
+    // 事件ID
+    private String eventId;
+    // 流程实例ID
+    private String aggregateId;
+    // 事件类名
+    private String eventType;
+    // 事件JSON
+    private String payload;
+    // 处理失败次数
+    private int attempts;
+    private LocalDateTime createdTime;
+}
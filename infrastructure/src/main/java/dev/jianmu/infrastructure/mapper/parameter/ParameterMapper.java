@@ -14,11 +14,13 @@ import java.util.Set;
  * @create: 2021-04-10 10:02
  **/
 public interface ParameterMapper {
+    // ID按内容生成，已存在的参数不更新，只忽略主键冲突，其他错误照常抛出
     @Insert("<script>" +
             "insert into parameter(id, type, value) values" +
             "<foreach collection='parameters' item='i' index='index' separator=','>" +
             "(#{i.id}, #{i.type}, convert(#{i.value}, BINARY))" +
             "</foreach>" +
+            " on duplicate key update id = id" +
             " </script>")
     void addAll(@Param("parameters") List<Parameter> parameters);
 
@@ -33,4 +33,8 @@ public interface CronTriggerMapper {
     @Select("SELECT * FROM `cron_trigger` WHERE project_id = #{projectId}")
     @Result(column = "project_id", property = "projectId")
     List<CronTrigger> findByProjectId(String projectId);
+
+    @Select("SELECT * FROM `cron_trigger`")
+    @Result(column = "project_id", property = "projectId")
+    List<CronTrigger> findAll();
 }
@@ -0,0 +1,39 @@
+package dev.jianmu.infrastructure.mapper.project;
+
+import dev.jianmu.project.aggregate.ProjectLastRun;
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @class: ProjectLastRunMapper
+ * @description: 项目最后一次执行摘要DB映射接口
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:30
+ **/
+public interface ProjectLastRunMapper {
+    @Insert("insert into project_last_run(workflow_ref, workflow_instance_id, serial_no, status, start_time, end_time) " +
+            "values(#{workflowRef}, #{workflowInstanceId}, #{serialNo}, #{status}, #{startTime}, #{endTime})")
+    void add(ProjectLastRun projectLastRun);
+
+    // 只允许同一次或更新的执行覆盖摘要
+    @Update("update project_last_run set workflow_instance_id = #{workflowInstanceId}, serial_no = #{serialNo}, " +
+            "status = #{status}, start_time = #{startTime}, end_time = #{endTime} " +
+            "where workflow_ref = #{workflowRef} and serial_no <= #{serialNo}")
+    int update(ProjectLastRun projectLastRun);
+
+    @Select("<script>" +
+            "select * from project_last_run where workflow_ref in " +
+            "<foreach collection='workflowRefs' item='ref' open='(' separator=',' close=')'>#{ref}</foreach>" +
+            "</script>")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_instance_id", property = "workflowInstanceId")
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "start_time", property = "startTime")
+    @Result(column = "end_time", property = "endTime")
+    List<ProjectLastRun> findByWorkflowRefs(@Param("workflowRefs") Collection<String> workflowRefs);
+
+    @Delete("delete from project_last_run where workflow_ref = #{workflowRef}")
+    void deleteByWorkflowRef(String workflowRef);
+}
@@ -3,6 +3,7 @@ package dev.jianmu.infrastructure.mapper.secret;
 import dev.jianmu.secret.aggregate.KVPair;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,4 +35,17 @@ public interface KVPairMapper {
     @Result(column = "kv_key", property = "key")
     @Result(column = "kv_value", property = "value")
     List<KVPair> findByNamespaceName(@Param("namespaceName") String namespaceName);
+
+    @Select("<script>" +
+            "select * from secret_kv_pair where namespace_name in" +
+            "<foreach collection='namespaceNames' item='item' open='(' separator=',' close=')'> #{item}" +
+            "</foreach>" +
+            " and kv_key in" +
+            "<foreach collection='keys' item='item' open='(' separator=',' close=')'> #{item}" +
+            "</foreach>" +
+            "</script>")
+    @Result(column = "namespace_name", property = "namespaceName")
+    @Result(column = "kv_key", property = "key")
+    @Result(column = "kv_value", property = "value")
+    List<KVPair> findByNamespaceNamesAndKeys(@Param("namespaceNames") Collection<String> namespaceNames, @Param("keys") Collection<String> keys);
 }
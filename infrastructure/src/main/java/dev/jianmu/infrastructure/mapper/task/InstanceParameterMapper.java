@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -54,6 +55,20 @@ public interface InstanceParameterMapper {
     @Result(column = "parameter_id", property = "parameterId")
     List<InstanceParameter> findByInstanceIdAndType(@Param("instanceId") String instanceId, @Param("type") InstanceParameter.Type type);
 
+    @Select("<script>" +
+            "select * from task_instance_parameter where type = #{type} and instance_id in" +
+            "<foreach collection='instanceIds' item='item' open='(' separator=',' close=')'> #{item}" +
+            "</foreach>" +
+            "</script>")
+    @Result(column = "instance_id", property = "instanceId")
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "def_key", property = "defKey")
+    @Result(column = "async_task_ref", property = "asyncTaskRef")
+    @Result(column = "business_id", property = "businessId")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "parameter_id", property = "parameterId")
+    List<InstanceParameter> findByInstanceIdsAndType(@Param("instanceIds") Collection<String> instanceIds, @Param("type") InstanceParameter.Type type);
+
     @Select("select * from task_instance_parameter where business_id = #{businessId} and trigger_id = #{triggerId} and type = 'OUTPUT'")
     @Result(column = "instance_id", property = "instanceId")
     @Result(column = "serial_no", property = "serialNo")
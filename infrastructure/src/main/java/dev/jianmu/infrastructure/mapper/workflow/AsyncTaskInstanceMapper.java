@@ -0,0 +1,73 @@
+package dev.jianmu.infrastructure.mapper.workflow;
+
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import org.apache.ibatis.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @class: AsyncTaskInstanceMapper
+ * @description: 异步任务实例DB映射接口
+ * @author: Ethan Liu
+ * @create: 2021-10-20 14:30
+ **/
+public interface AsyncTaskInstanceMapper {
+
+    @Insert("<script>" +
+            "insert into async_task_instance(workflow_instance_id, workflow_ref, async_task_ref, seq, name, description, async_task_type, status, start_time, end_time) values" +
+            "<foreach collection='taskInstances' item='i' index='index' separator=','>" +
+            "(#{workflowInstanceId}, #{workflowRef}, #{i.asyncTaskRef}, #{seq} + #{index}, #{i.name}, #{i.description}, #{i.asyncTaskType}, #{i.status}, #{i.startTime}, #{i.endTime})" +
+            "</foreach>" +
+            " </script>")
+    void addAll(
+            @Param("workflowInstanceId") String workflowInstanceId,
+            @Param("workflowRef") String workflowRef,
+            @Param("seq") int seq,
+            @Param("taskInstances") List<AsyncTaskInstance> taskInstances
+    );
+
+    // 只在流程实例仍为加载时的版本时写入，流程实例状态变化后版本增加，持有旧数据的写入影响行数为0
+    @Insert("insert into async_task_instance(workflow_instance_id, workflow_ref, async_task_ref, seq, name, description, async_task_type, status, start_time, end_time) " +
+            "select #{workflowInstanceId}, #{workflowRef}, #{i.asyncTaskRef}, #{seq}, #{i.name}, #{i.description}, #{i.asyncTaskType}, #{i.status}, #{i.startTime}, #{i.endTime} " +
+            "from workflow_instance where id = #{workflowInstanceId} and _version = #{version}")
+    int addWithVersion(
+            @Param("workflowInstanceId") String workflowInstanceId,
+            @Param("workflowRef") String workflowRef,
+            @Param("seq") int seq,
+            @Param("i") AsyncTaskInstance taskInstance,
+            @Param("version") int version
+    );
+
+    @Update("update async_task_instance set seq = #{seq}, status = #{i.status}, start_time = #{i.startTime}, end_time = #{i.endTime} " +
+            "where workflow_instance_id = #{workflowInstanceId} and async_task_ref = #{i.asyncTaskRef} " +
+            "and exists (select 1 from workflow_instance where id = #{workflowInstanceId} and _version = #{version})")
+    int update(
+            @Param("workflowInstanceId") String workflowInstanceId,
+            @Param("seq") int seq,
+            @Param("i") AsyncTaskInstance taskInstance,
+            @Param("version") int version
+    );
+
+    @Select("select count(*) from async_task_instance where workflow_instance_id = #{workflowInstanceId} and async_task_ref = #{asyncTaskRef}")
+    int count(@Param("workflowInstanceId") String workflowInstanceId, @Param("asyncTaskRef") String asyncTaskRef);
+
+    @Select("<script>" +
+            "select * from async_task_instance where workflow_instance_id in" +
+            "<foreach collection='ids' item='item' open='(' separator=',' close=')'> #{item}" +
+            "</foreach>" +
+            " order by workflow_instance_id, seq" +
+            "</script>")
+    @Result(column = "workflow_instance_id", property = "workflowInstanceId")
+    @Result(column = "name", property = "taskInstance.name")
+    @Result(column = "description", property = "taskInstance.description")
+    @Result(column = "status", property = "taskInstance.status")
+    @Result(column = "async_task_ref", property = "taskInstance.asyncTaskRef")
+    @Result(column = "async_task_type", property = "taskInstance.asyncTaskType")
+    @Result(column = "start_time", property = "taskInstance.startTime")
+    @Result(column = "end_time", property = "taskInstance.endTime")
+    List<AsyncTaskInstanceRow> findByWorkflowInstanceIds(@Param("ids") Collection<String> workflowInstanceIds);
+
+    @Delete("delete from async_task_instance where workflow_ref = #{workflowRef}")
+    void deleteByWorkflowRef(String workflowRef);
+}
@@ -0,0 +1,18 @@
+package dev.jianmu.infrastructure.mapper.workflow;
+
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import lombok.Data;
+
+/**
+ * @class: AsyncTaskInstanceRow
+ * @description: async_task_instance表行数据
+ * @author: Ethan Liu
+ * @create: 2021-10-20 14:20
+ **/
+@Data
+public class AsyncTaskInstanceRow {
+    // 流程实例ID
+    private String workflowInstanceId;
+    // 任务实例
+    private AsyncTaskInstance taskInstance;
+}
@@ -5,6 +5,7 @@ import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +16,14 @@ import java.util.Optional;
  * @create: 2021-03-21 19:27
  **/
 public interface WorkflowInstanceMapper {
+    // 摘要查询的字段，不包含任务实例列表
+    String SUMMARY_COLUMNS = "id, serial_no, trigger_id, trigger_type, name, description, run_mode, status, " +
+            "workflow_ref, workflow_version, start_time, end_time, " +
+            // 按行存储时运行中的流程实例不更新latest_task_status，查询时从任务实例行计算
+            "<choose><when test='tableStorage'>case when status = 'RUNNING' then coalesce(" +
+            "(select a.status from async_task_instance a where a.workflow_instance_id = workflow_instance.id and a.start_time is not null " +
+            "order by a.start_time desc, a.seq desc limit 1), latest_task_status) else latest_task_status end as latest_task_status</when>" +
+            "<otherwise>latest_task_status</otherwise></choose>";
 
     @Select("select * from workflow_instance where workflow_ref = #{workflowRef} " +
             "and workflow_version = #{workflowVersion} and status = #{status}")
@@ -27,6 +36,7 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
     List<WorkflowInstance> findByRefAndVersionAndStatus(
             @Param("workflowRef") String workflowRef,
             @Param("workflowVersion") String workflowVersion,
@@ -43,23 +53,32 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
     Optional<WorkflowInstance> findById(String instanceId);
 
-    @Insert("insert into workflow_instance(id, serial_no, trigger_id, trigger_type, name, description, run_mode, status, workflow_ref, workflow_version, task_instances, start_time, end_time, _version) " +
+    @Insert("insert into workflow_instance(id, serial_no, trigger_id, trigger_type, name, description, run_mode, status, workflow_ref, workflow_version, task_instances, latest_task_status, start_time, end_time, _version) " +
             "values(#{wk.id},#{wk.serialNo},#{wk.triggerId},#{wk.triggerType},#{wk.name},#{wk.description},#{wk.runMode},#{wk.status},#{wk.workflowRef},#{wk.workflowVersion}," +
             "#{wk.asyncTaskInstances, jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler}," +
-            "#{wk.startTime},#{wk.endTime},#{version})")
-    boolean add(@Param("wk") WorkflowInstance workflowInstance, @Param("version") int version);
+            "#{latestTaskStatus},#{wk.startTime},#{wk.endTime},#{version})")
+    boolean add(@Param("wk") WorkflowInstance workflowInstance, @Param("latestTaskStatus") String latestTaskStatus, @Param("version") int version);
 
-    @Select("select _version from workflow_instance where id = #{id}")
-    int getVersion(String id);
+    @Insert("insert into workflow_instance(id, serial_no, trigger_id, trigger_type, name, description, run_mode, status, workflow_ref, workflow_version, latest_task_status, start_time, end_time, _version) " +
+            "values(#{wk.id},#{wk.serialNo},#{wk.triggerId},#{wk.triggerType},#{wk.name},#{wk.description},#{wk.runMode},#{wk.status},#{wk.workflowRef},#{wk.workflowVersion}," +
+            "#{latestTaskStatus},#{wk.startTime},#{wk.endTime},#{version})")
+    boolean addWithoutTaskInstances(@Param("wk") WorkflowInstance workflowInstance, @Param("latestTaskStatus") String latestTaskStatus, @Param("version") int version);
 
+    // 以加载时的版本作为条件，版本不一致时影响行数为0
     @Update("update workflow_instance " +
             "set run_mode=#{wk.runMode},status=#{wk.status}," +
             "task_instances=#{wk.asyncTaskInstances , jdbcType=BLOB,typeHandler=dev.jianmu.infrastructure.typehandler.TaskInstanceListTypeHandler}," +
-            "end_time=#{wk.endTime},_version= _version+1 " +
+            "latest_task_status=#{latestTaskStatus},end_time=#{wk.endTime},_version= _version+1 " +
             "where id = #{wk.id} and _version = #{version}")
-    boolean save(@Param("wk") WorkflowInstance workflowInstance, @Param("version") int version);
+    boolean save(@Param("wk") WorkflowInstance workflowInstance, @Param("latestTaskStatus") String latestTaskStatus, @Param("version") int version);
+
+    // 以加载时的版本作为条件，不会覆盖其他事务已写入的结束状态，结束时同时写入最后启动的任务状态
+    @Update("update workflow_instance set status=#{wk.status},end_time=#{wk.endTime},latest_task_status=#{latestTaskStatus},_version= _version+1 " +
+            "where id = #{wk.id} and _version = #{wk.version}")
+    boolean saveStatus(@Param("wk") WorkflowInstance workflowInstance, @Param("latestTaskStatus") String latestTaskStatus);
 
     @Delete("delete from workflow_instance where workflow_ref=#{workflowRef}")
     void deleteByWorkflowRef(String workflowRef);
@@ -74,21 +93,13 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
+    @Result(column = "_version", property = "version")
     List<WorkflowInstance> findAll(
             @Param("pageNum") int pageNum,
             @Param("pageSize") int pageSize
     );
 
-    @Select("<script>" +
-            "SELECT * FROM `workflow_instance` " +
-            "<where>" +
-            "<if test='status != null'>status = #{status}</if>" +
-            "<if test='!id.isBlank()'> AND `id` like concat('%', #{id}, '%')</if>" +
-            "<if test='!name.isBlank()'> AND `name` like concat('%', #{name}, '%')</if>" +
-            "<if test='!workflowVersion.isBlank()'> AND `workflow_version` like concat('%', #{workflowVersion}, '%')</if>" +
-            "</where>" +
-            " order by end_time desc" +
-            "</script>")
+    @Select("select * from workflow_instance where workflow_ref = #{workflowRef} order by serial_no desc")
     @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
     @Result(column = "serial_no", property = "serialNo")
     @Result(column = "workflow_ref", property = "workflowRef")
@@ -98,14 +109,10 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
-    List<WorkflowInstance> findAllPage(
-            @Param("id") String id,
-            @Param("name") String name,
-            @Param("workflowVersion") String workflowVersion,
-            @Param("status") ProcessStatus status
-    );
+    @Result(column = "_version", property = "version")
+    List<WorkflowInstance> findByWorkflowRef(@Param("workflowRef") String workflowRef);
 
-    @Select("select * from workflow_instance where workflow_ref = #{workflowRef} order by serial_no desc")
+    @Select("select * from workflow_instance where workflow_ref = #{workflowRef} order by serial_no desc limit 1")
     @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
     @Result(column = "serial_no", property = "serialNo")
     @Result(column = "workflow_ref", property = "workflowRef")
@@ -115,9 +122,17 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
-    List<WorkflowInstance> findByWorkflowRef(@Param("workflowRef") String workflowRef);
+    @Result(column = "_version", property = "version")
+    Optional<WorkflowInstance> findByRefAndSerialNoMax(@Param("workflowRef") String workflowRef);
 
-    @Select("select * from workflow_instance where workflow_ref = #{workflowRef} order by serial_no desc limit 1")
+    // 一次查询每个流程定义最新的流程实例
+    @Select("<script>" +
+            "select wi.* from workflow_instance wi " +
+            "join (select workflow_ref, max(serial_no) serial_no from workflow_instance where workflow_ref in " +
+            "<foreach collection='workflowRefs' item='ref' open='(' separator=',' close=')'>#{ref}</foreach>" +
+            " group by workflow_ref) latest " +
+            "on wi.workflow_ref = latest.workflow_ref and wi.serial_no = latest.serial_no" +
+            "</script>")
     @Result(column = "task_instances", property = "asyncTaskInstances", typeHandler = TaskInstanceListTypeHandler.class)
     @Result(column = "serial_no", property = "serialNo")
     @Result(column = "workflow_ref", property = "workflowRef")
@@ -127,5 +142,57 @@ public interface WorkflowInstanceMapper {
     @Result(column = "run_mode", property = "runMode")
     @Result(column = "start_time", property = "startTime")
     @Result(column = "end_time", property = "endTime")
-    Optional<WorkflowInstance> findByRefAndSerialNoMax(@Param("workflowRef") String workflowRef);
+    @Result(column = "_version", property = "version")
+    List<WorkflowInstance> findLatestByRefs(@Param("workflowRefs") Collection<String> workflowRefs);
+
+    // 按执行顺序号倒序翻页，lastSerialNo为上一页最后一条的顺序号
+    @Select("<script>" +
+            "select " + SUMMARY_COLUMNS + " from workflow_instance where workflow_ref = #{workflowRef}" +
+            "<if test='lastSerialNo != null'> and serial_no &lt; #{lastSerialNo}</if>" +
+            " order by serial_no desc" +
+            "<if test='limit != null'> limit #{limit}</if>" +
+            "</script>")
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "trigger_type", property = "triggerType")
+    @Result(column = "run_mode", property = "runMode")
+    @Result(column = "start_time", property = "startTime")
+    @Result(column = "end_time", property = "endTime")
+    @Result(column = "latest_task_status", property = "latestTaskStatus")
+    List<WorkflowInstanceSummary> findSummaryByWorkflowRef(
+            @Param("workflowRef") String workflowRef,
+            @Param("lastSerialNo") Integer lastSerialNo,
+            @Param("limit") Integer limit,
+            @Param("tableStorage") boolean tableStorage
+    );
+
+    // 只支持前缀匹配，可以使用索引
+    @Select("<script>" +
+            "SELECT " + SUMMARY_COLUMNS + " FROM `workflow_instance` " +
+            "<where>" +
+            "<if test='status != null'>status = #{status}</if>" +
+            "<if test='id != null and !id.isBlank()'> AND `id` like concat(#{id}, '%')</if>" +
+            "<if test='name != null and !name.isBlank()'> AND `name` like concat(#{name}, '%')</if>" +
+            "<if test='workflowVersion != null and !workflowVersion.isBlank()'> AND `workflow_version` like concat(#{workflowVersion}, '%')</if>" +
+            "</where>" +
+            " order by end_time desc" +
+            "</script>")
+    @Result(column = "serial_no", property = "serialNo")
+    @Result(column = "workflow_ref", property = "workflowRef")
+    @Result(column = "workflow_version", property = "workflowVersion")
+    @Result(column = "trigger_id", property = "triggerId")
+    @Result(column = "trigger_type", property = "triggerType")
+    @Result(column = "run_mode", property = "runMode")
+    @Result(column = "start_time", property = "startTime")
+    @Result(column = "end_time", property = "endTime")
+    @Result(column = "latest_task_status", property = "latestTaskStatus")
+    List<WorkflowInstanceSummary> findSummaryPage(
+            @Param("id") String id,
+            @Param("name") String name,
+            @Param("workflowVersion") String workflowVersion,
+            @Param("status") ProcessStatus status,
+            @Param("tableStorage") boolean tableStorage
+    );
 }
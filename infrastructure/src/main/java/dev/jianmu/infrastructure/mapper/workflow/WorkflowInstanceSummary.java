@@ -0,0 +1,31 @@
+package dev.jianmu.infrastructure.mapper.workflow;
+
+import dev.jianmu.workflow.aggregate.process.ProcessStatus;
+import dev.jianmu.workflow.aggregate.process.RunMode;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: WorkflowInstanceSummary
+ * @description: 流程实例摘要，不包含任务实例列表
+ * @author: Ethan Liu
+ * @create: 2021-10-22 16:20
+ **/
+@Data
+public class WorkflowInstanceSummary {
+    private String id;
+    private int serialNo;
+    private String triggerId;
+    private String triggerType;
+    private String name;
+    private String description;
+    private RunMode runMode;
+    private ProcessStatus status;
+    private String workflowRef;
+    private String workflowVersion;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    // 最后启动的任务状态，历史数据为空
+    private String latestTaskStatus;
+}
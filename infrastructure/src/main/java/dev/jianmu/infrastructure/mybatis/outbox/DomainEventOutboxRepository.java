@@ -0,0 +1,149 @@
+package dev.jianmu.infrastructure.mybatis.outbox;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mapper.outbox.DomainEventOutboxMapper;
+import dev.jianmu.infrastructure.mapper.outbox.DomainEventOutboxRow;
+import dev.jianmu.workflow.event.DomainEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @class: DomainEventOutboxRepository
+ * @description: 领域事件发件箱仓储
+ * 事件与产生事件的聚合在同一事务中写入，由投递程序按写入顺序读取
+ * @author: Ethan Liu
+ * @create: 2021-10-27 09:50
+ **/
+@Repository
+public class DomainEventOutboxRepository {
+    private final DomainEventOutboxMapper domainEventOutboxMapper;
+    private final ApplicationEventPublisher publisher;
+    private final ObjectMapper objectMapper;
+
+    public DomainEventOutboxRepository(DomainEventOutboxMapper domainEventOutboxMapper, ApplicationEventPublisher publisher) {
+        this.domainEventOutboxMapper = domainEventOutboxMapper;
+        this.publisher = publisher;
+        // 事件类没有setter与公开构造函数，按字段读写
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        // 注册JavaTime模块来支持LocalDataTime类型
+        this.objectMapper.registerModule(new JavaTimeModule());
+        this.objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+    }
+
+    /**
+     * 写入流程实例领域事件
+     *
+     * @param aggregateId 流程实例ID
+     * @param events      领域事件列表
+     */
+    public void addAll(String aggregateId, List<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        this.insert(events.stream()
+                .map(event -> this.toRow(aggregateId, event.getIdentify(), event))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 写入单个事件
+     *
+     * @param aggregateId 流程实例ID
+     * @param eventId     事件ID
+     * @param event       事件
+     */
+    public void add(String aggregateId, String eventId, Object event) {
+        this.insert(List.of(this.toRow(aggregateId, eventId, event)));
+    }
+
+    // 事务提交后通知投递程序
+    private void insert(List<DomainEventOutboxRow> rows) {
+        this.domainEventOutboxMapper.addAll(rows);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publisher.publishEvent(new OutboxAppendedEvent());
+                }
+            });
+        } else {
+            this.publisher.publishEvent(new OutboxAppendedEvent());
+        }
+    }
+
+    private DomainEventOutboxRow toRow(String aggregateId, String eventId, Object event) {
+        var row = new DomainEventOutboxRow();
+        row.setEventId(eventId);
+        row.setAggregateId(aggregateId);
+        row.setEventType(event.getClass().getName());
+        row.setPayload(this.toJson(event));
+        row.setCreatedTime(LocalDateTime.now());
+        return row;
+    }
+
+    public List<DomainEventOutboxRow> findFirst(int limit) {
+        return this.domainEventOutboxMapper.findFirst(limit);
+    }
+
+    /**
+     * 删除已投递的事件
+     *
+     * @param id 投递顺序号
+     * @return 事件已被其他投递删除时返回false
+     */
+    public boolean deleteById(Long id) {
+        return this.domainEventOutboxMapper.deleteById(id) > 0;
+    }
+
+    /**
+     * 记录事件处理失败，事件保留在发件箱中等待下次投递
+     *
+     * @param id 投递顺序号
+     */
+    public void increaseAttempts(Long id) {
+        this.domainEventOutboxMapper.increaseAttempts(id);
+    }
+
+    /**
+     * 将无法投递的事件移入死信表
+     *
+     * @param row   事件
+     * @param error 失败原因
+     */
+    public void moveToDeadLetter(DomainEventOutboxRow row, String error) {
+        this.domainEventOutboxMapper.addDeadLetter(row, error);
+        this.domainEventOutboxMapper.deleteById(row.getId());
+    }
+
+    public Object toEvent(DomainEventOutboxRow row) {
+        try {
+            return this.objectMapper.readValue(row.getPayload(), Class.forName(row.getEventType()));
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            throw new DBException.DataNotFound("无法解析领域事件: " + row.getEventType() + " " + row.getEventId());
+        }
+    }
+
+    private String toJson(Object event) {
+        try {
+            return this.objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new DBException.InsertFailed("领域事件序列化失败: " + event.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package dev.jianmu.infrastructure.mybatis.outbox;
+
+/**
+ * @class: OutboxAppendedEvent
+ * @description: 发件箱写入事务提交后的通知，用于唤醒事件投递
+ * @author: Ethan Liu
+ * @create: 2021-10-27 09:40
+ **/
+public class OutboxAppendedEvent {
+}
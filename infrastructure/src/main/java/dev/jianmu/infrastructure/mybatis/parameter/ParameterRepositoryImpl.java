@@ -1,12 +1,12 @@
 package dev.jianmu.infrastructure.mybatis.parameter;
 
+import dev.jianmu.el.LruCache;
 import dev.jianmu.infrastructure.mapper.parameter.ParameterMapper;
 import dev.jianmu.workflow.aggregate.parameter.Parameter;
 import dev.jianmu.workflow.repository.ParameterRepository;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @class: ParameterRepositoryImpl
@@ -16,7 +16,11 @@ import java.util.Set;
  **/
 @Repository
 public class ParameterRepositoryImpl implements ParameterRepository {
+    public static final int PARAMETER_CACHE_SIZE = 4096;
+
     private final ParameterMapper parameterMapper;
+    // 参数值不可变，按ID缓存
+    private final LruCache<String, Parameter> parameterCache = new LruCache<>(PARAMETER_CACHE_SIZE);
 
     public ParameterRepositoryImpl(ParameterMapper parameterMapper) {
         this.parameterMapper = parameterMapper;
@@ -24,9 +28,13 @@ public class ParameterRepositoryImpl implements ParameterRepository {
 
     @Override
     public void addAll(List<Parameter> parameters) {
-        if (!parameters.isEmpty()) {
-            this.parameterMapper.addAll(parameters);
+        if (parameters.isEmpty()) {
+            return;
         }
+        // 同一批次中相同内容的参数只写入一次
+        Map<String, Parameter> distinct = new LinkedHashMap<>();
+        parameters.forEach(parameter -> distinct.putIfAbsent(parameter.getId(), parameter));
+        this.parameterMapper.addAll(new ArrayList<>(distinct.values()));
     }
 
     @Override
@@ -34,6 +42,25 @@ public class ParameterRepositoryImpl implements ParameterRepository {
         if (ids.isEmpty()) {
             return List.of();
         }
-        return this.parameterMapper.findByIds(ids);
+        List<Parameter> parameters = new ArrayList<>(ids.size());
+        Set<String> missIds = new HashSet<>();
+        ids.forEach(id -> {
+            var parameter = this.parameterCache.getIfPresent(id);
+            if (parameter != null) {
+                parameters.add(parameter);
+            } else {
+                missIds.add(id);
+            }
+        });
+        if (!missIds.isEmpty()) {
+            var loaded = this.parameterMapper.findByIds(missIds);
+            loaded.forEach(parameter -> this.parameterCache.put(parameter.getId(), parameter));
+            parameters.addAll(loaded);
+        }
+        return parameters;
+    }
+
+    public LruCache<String, Parameter> getParameterCache() {
+        return parameterCache;
     }
 }
@@ -46,4 +46,9 @@ public class CronTriggerRepositoryImpl implements CronTriggerRepository {
     public List<CronTrigger> findByProjectId(String projectId) {
         return this.cronTriggerMapper.findByProjectId(projectId);
     }
+
+    @Override
+    public List<CronTrigger> findAll() {
+        return this.cronTriggerMapper.findAll();
+    }
 }
@@ -0,0 +1,50 @@
+package dev.jianmu.infrastructure.mybatis.project;
+
+import dev.jianmu.infrastructure.mapper.project.ProjectLastRunMapper;
+import dev.jianmu.project.aggregate.ProjectLastRun;
+import dev.jianmu.project.repository.ProjectLastRunRepository;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @class: ProjectLastRunRepositoryImpl
+ * @description: 项目最后一次执行摘要仓储实现
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:40
+ **/
+@Repository
+public class ProjectLastRunRepositoryImpl implements ProjectLastRunRepository {
+    private final ProjectLastRunMapper projectLastRunMapper;
+
+    public ProjectLastRunRepositoryImpl(ProjectLastRunMapper projectLastRunMapper) {
+        this.projectLastRunMapper = projectLastRunMapper;
+    }
+
+    @Override
+    public void save(ProjectLastRun projectLastRun) {
+        if (this.projectLastRunMapper.update(projectLastRun) > 0) {
+            return;
+        }
+        try {
+            this.projectLastRunMapper.add(projectLastRun);
+        } catch (DuplicateKeyException e) {
+            // 已存在更新的执行摘要，忽略本次写入
+        }
+    }
+
+    @Override
+    public List<ProjectLastRun> findByWorkflowRefs(Collection<String> workflowRefs) {
+        if (workflowRefs.isEmpty()) {
+            return List.of();
+        }
+        return this.projectLastRunMapper.findByWorkflowRefs(workflowRefs);
+    }
+
+    @Override
+    public void deleteByWorkflowRef(String workflowRef) {
+        this.projectLastRunMapper.deleteByWorkflowRef(workflowRef);
+    }
+}
@@ -5,6 +5,7 @@ import dev.jianmu.secret.aggregate.KVPair;
 import dev.jianmu.secret.repository.KVPairRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,4 +47,12 @@ public class KVPairRepositoryImpl implements KVPairRepository {
     public List<KVPair> findByNamespaceName(String namespaceName) {
         return this.kvPairMapper.findByNamespaceName(namespaceName);
     }
+
+    @Override
+    public List<KVPair> findByNamespaceNamesAndKeys(Collection<String> namespaceNames, Collection<String> keys) {
+        if (namespaceNames.isEmpty() || keys.isEmpty()) {
+            return List.of();
+        }
+        return this.kvPairMapper.findByNamespaceNamesAndKeys(namespaceNames, keys);
+    }
 }
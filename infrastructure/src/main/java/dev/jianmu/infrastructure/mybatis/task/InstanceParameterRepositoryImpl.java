@@ -5,6 +5,7 @@ import dev.jianmu.task.aggregate.InstanceParameter;
 import dev.jianmu.task.repository.InstanceParameterRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -45,6 +46,14 @@ public class InstanceParameterRepositoryImpl implements InstanceParameterReposit
         return this.instanceParameterMapper.findByInstanceIdAndType(instanceId, type);
     }
 
+    @Override
+    public List<InstanceParameter> findByInstanceIdsAndType(Collection<String> instanceIds, InstanceParameter.Type type) {
+        if (instanceIds.isEmpty()) {
+            return List.of();
+        }
+        return this.instanceParameterMapper.findByInstanceIdsAndType(instanceIds, type);
+    }
+
     @Override
     public List<InstanceParameter> findOutputParamByBusinessIdAndTriggerId(String businessId, String triggerId) {
         return this.instanceParameterMapper.findOutputParamByBusinessIdAndTriggerId(businessId, triggerId);
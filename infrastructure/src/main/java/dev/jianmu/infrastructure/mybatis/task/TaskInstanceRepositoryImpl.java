@@ -1,15 +1,16 @@
 package dev.jianmu.infrastructure.mybatis.task;
 
 import dev.jianmu.infrastructure.mapper.task.TaskInstanceMapper;
+import dev.jianmu.infrastructure.mybatis.outbox.DomainEventOutboxRepository;
 import dev.jianmu.task.aggregate.InstanceStatus;
 import dev.jianmu.task.aggregate.TaskInstance;
+import dev.jianmu.task.event.TaskInstanceCreatedEvent;
 import dev.jianmu.task.event.TaskInstanceFailedEvent;
 import dev.jianmu.task.event.TaskInstanceRunningEvent;
 import dev.jianmu.task.event.TaskInstanceSucceedEvent;
 import dev.jianmu.task.repository.TaskInstanceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,58 +26,63 @@ import java.util.Optional;
 public class TaskInstanceRepositoryImpl implements TaskInstanceRepository {
     private static final Logger logger = LoggerFactory.getLogger(TaskInstanceRepositoryImpl.class);
     private final TaskInstanceMapper taskInstanceMapper;
-    private final ApplicationEventPublisher applicationEventPublisher;
+    private final DomainEventOutboxRepository domainEventOutboxRepository;
 
     public TaskInstanceRepositoryImpl(
             TaskInstanceMapper taskInstanceMapper,
-            ApplicationEventPublisher applicationEventPublisher
+            DomainEventOutboxRepository domainEventOutboxRepository
     ) {
         this.taskInstanceMapper = taskInstanceMapper;
-        this.applicationEventPublisher = applicationEventPublisher;
+        this.domainEventOutboxRepository = domainEventOutboxRepository;
     }
 
     @Override
     public void add(TaskInstance taskInstance) {
         this.taskInstanceMapper.add(taskInstance);
-        this.applicationEventPublisher.publishEvent(taskInstance);
+        var event = TaskInstanceCreatedEvent.Builder.aTaskInstanceCreatedEvent()
+                .defKey(taskInstance.getDefKey())
+                .asyncTaskRef(taskInstance.getAsyncTaskRef())
+                .businessId(taskInstance.getBusinessId())
+                .taskInstanceId(taskInstance.getId())
+                .build();
+        // 创建事件与任务实例在同一事务中写入发件箱，提交后进程退出时由投递程序重新分发
+        this.domainEventOutboxRepository.add(taskInstance.getBusinessId(), event.getIdentify(), event);
     }
 
     @Override
     public void updateStatus(TaskInstance taskInstance) {
         this.taskInstanceMapper.updateStatus(taskInstance);
         if (taskInstance.getStatus().equals(InstanceStatus.RUNNING)) {
-            this.applicationEventPublisher.publishEvent(
-                    TaskInstanceRunningEvent.Builder.aTaskInstanceRunningEvent()
-                            .defKey(taskInstance.getDefKey())
-                            .asyncTaskRef(taskInstance.getAsyncTaskRef())
-                            .businessId(taskInstance.getBusinessId())
-                            .taskInstanceId(taskInstance.getId())
-                            .build()
-            );
+            var event = TaskInstanceRunningEvent.Builder.aTaskInstanceRunningEvent()
+                    .defKey(taskInstance.getDefKey())
+                    .asyncTaskRef(taskInstance.getAsyncTaskRef())
+                    .businessId(taskInstance.getBusinessId())
+                    .taskInstanceId(taskInstance.getId())
+                    .build();
+            this.domainEventOutboxRepository.add(taskInstance.getBusinessId(), event.getIdentify(), event);
         }
         if (taskInstance.getStatus().equals(InstanceStatus.EXECUTION_FAILED)) {
-            this.applicationEventPublisher.publishEvent(
-                    TaskInstanceFailedEvent.Builder.aTaskInstanceFailedEvent()
-                            .defKey(taskInstance.getDefKey())
-                            .asyncTaskRef(taskInstance.getAsyncTaskRef())
-                            .businessId(taskInstance.getBusinessId())
-                            .taskInstanceId(taskInstance.getId())
-                            .build()
-            );
+            var event = TaskInstanceFailedEvent.Builder.aTaskInstanceFailedEvent()
+                    .defKey(taskInstance.getDefKey())
+                    .asyncTaskRef(taskInstance.getAsyncTaskRef())
+                    .businessId(taskInstance.getBusinessId())
+                    .taskInstanceId(taskInstance.getId())
+                    .build();
+            this.domainEventOutboxRepository.add(taskInstance.getBusinessId(), event.getIdentify(), event);
         }
     }
 
     @Override
     public void saveSucceeded(TaskInstance taskInstance) {
         this.taskInstanceMapper.saveSucceeded(taskInstance);
-        this.applicationEventPublisher.publishEvent(
-                TaskInstanceSucceedEvent.Builder.aTaskInstanceSucceedEvent()
-                        .defKey(taskInstance.getDefKey())
-                        .asyncTaskRef(taskInstance.getAsyncTaskRef())
-                        .businessId(taskInstance.getBusinessId())
-                        .taskInstanceId(taskInstance.getId())
-                        .build()
-        );
+        var event = TaskInstanceSucceedEvent.Builder.aTaskInstanceSucceedEvent()
+                .defKey(taskInstance.getDefKey())
+                .asyncTaskRef(taskInstance.getAsyncTaskRef())
+                .businessId(taskInstance.getBusinessId())
+                .taskInstanceId(taskInstance.getId())
+                .build();
+        // 任务状态事件与任务实例在同一事务中写入发件箱
+        this.domainEventOutboxRepository.add(taskInstance.getBusinessId(), event.getIdentify(), event);
     }
 
     @Override
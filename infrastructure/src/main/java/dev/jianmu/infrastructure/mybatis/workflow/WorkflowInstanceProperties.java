@@ -0,0 +1,29 @@
+package dev.jianmu.infrastructure.mybatis.workflow;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * @class: WorkflowInstanceProperties
+ * @description: 流程实例存储配置项
+ * @author: Ethan Liu
+ * @create: 2021-10-20 14:10
+ **/
+@Data
+@Component
+@ConfigurationProperties(prefix = "jianmu.workflow-instance")
+public class WorkflowInstanceProperties {
+    public enum TaskStorage {
+        // 任务实例列表整体序列化保存在workflow_instance.task_instances字段
+        BLOB,
+        // 每个任务实例单独保存在async_task_instance表中，状态变化时只更新对应行
+        TABLE
+    }
+
+    // 任务实例存储方式
+    private TaskStorage taskStorage = TaskStorage.BLOB;
+
+    // 保存后是否重新查询流程实例，默认直接返回已保存的对象
+    private boolean reloadAfterSave = false;
+}
@@ -3,18 +3,23 @@ package dev.jianmu.infrastructure.mybatis.workflow;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import dev.jianmu.infrastructure.exception.DBException;
+import dev.jianmu.infrastructure.mapper.workflow.AsyncTaskInstanceMapper;
+import dev.jianmu.infrastructure.mapper.workflow.AsyncTaskInstanceRow;
 import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceMapper;
+import dev.jianmu.infrastructure.mapper.workflow.WorkflowInstanceSummary;
+import dev.jianmu.infrastructure.mybatis.outbox.DomainEventOutboxRepository;
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import dev.jianmu.workflow.repository.WorkflowInstanceRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Repository;
 
 import javax.annotation.Resource;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * @class: WorkflowInstanceRepositoryImpl
@@ -25,68 +30,191 @@ import java.util.Optional;
 @Repository
 public class WorkflowInstanceRepositoryImpl implements WorkflowInstanceRepository {
 
-    private static final Logger logger = LoggerFactory.getLogger(WorkflowInstanceRepositoryImpl.class);
     @Resource
     private ApplicationEventPublisher publisher;
 
     @Resource
     private WorkflowInstanceMapper workflowInstanceMapper;
 
+    @Resource
+    private AsyncTaskInstanceMapper asyncTaskInstanceMapper;
+
+    @Resource
+    private WorkflowInstanceProperties workflowInstanceProperties;
+
+    @Resource
+    private DomainEventOutboxRepository domainEventOutboxRepository;
+
+    // 最后启动的任务状态，没有已启动的任务时为空字符串
+    private static String latestTaskStatus(WorkflowInstance workflowInstance) {
+        return workflowInstance.findLatestAsyncTaskInstance()
+                .map(taskInstance -> taskInstance.getStatus().name())
+                .orElse("");
+    }
+
+    private boolean isTableStorage() {
+        return this.workflowInstanceProperties.getTaskStorage() == WorkflowInstanceProperties.TaskStorage.TABLE;
+    }
+
+    // 按行存储时，从async_task_instance表批量加载任务实例，覆盖task_instances字段中的历史数据
+    private <T extends Collection<WorkflowInstance>> T loadTaskInstances(T workflowInstances) {
+        if (!this.isTableStorage() || workflowInstances.isEmpty()) {
+            return workflowInstances;
+        }
+        var ids = workflowInstances.stream().map(WorkflowInstance::getId).collect(Collectors.toSet());
+        var rows = this.asyncTaskInstanceMapper.findByWorkflowInstanceIds(ids).stream()
+                .collect(Collectors.groupingBy(AsyncTaskInstanceRow::getWorkflowInstanceId));
+        workflowInstances.forEach(workflowInstance -> {
+            var instanceRows = rows.get(workflowInstance.getId());
+            if (instanceRows == null) {
+                return;
+            }
+            Map<String, AsyncTaskInstance> taskInstances = new LinkedHashMap<>();
+            workflowInstance.getAsyncTaskInstances().forEach(t -> taskInstances.put(t.getAsyncTaskRef(), t));
+            instanceRows.forEach(row -> {
+                taskInstances.remove(row.getTaskInstance().getAsyncTaskRef());
+                taskInstances.put(row.getTaskInstance().getAsyncTaskRef(), row.getTaskInstance());
+            });
+            // 与Mapper相同，通过MyBatis反射设置任务实例列表
+            SystemMetaObject.forObject(workflowInstance)
+                    .setValue("asyncTaskInstances", new ArrayList<>(taskInstances.values()));
+        });
+        return workflowInstances;
+    }
+
+    private Optional<WorkflowInstance> loadTaskInstances(Optional<WorkflowInstance> workflowInstance) {
+        workflowInstance.ifPresent(instance -> this.loadTaskInstances(List.of(instance)));
+        return workflowInstance;
+    }
+
     @Override
     public List<WorkflowInstance> findByRefAndVersionAndStatus(String workflowRef, String workflowVersion, ProcessStatus status) {
-        return this.workflowInstanceMapper.findByRefAndVersionAndStatus(workflowRef, workflowVersion, status);
+        return this.loadTaskInstances(this.workflowInstanceMapper.findByRefAndVersionAndStatus(workflowRef, workflowVersion, status));
     }
 
     @Override
     public Optional<WorkflowInstance> findById(String instanceId) {
-        return this.workflowInstanceMapper.findById(instanceId);
+        return this.loadTaskInstances(this.workflowInstanceMapper.findById(instanceId));
     }
 
     @Override
     public WorkflowInstance add(WorkflowInstance workflowInstance) {
-        boolean succeed = this.workflowInstanceMapper.add(workflowInstance, 1);
+        boolean succeed;
+        if (this.isTableStorage()) {
+            succeed = this.workflowInstanceMapper.addWithoutTaskInstances(workflowInstance, latestTaskStatus(workflowInstance), 1);
+            var taskInstances = workflowInstance.getAsyncTaskInstances();
+            if (!taskInstances.isEmpty()) {
+                this.asyncTaskInstanceMapper.addAll(workflowInstance.getId(), workflowInstance.getWorkflowRef(), 0, taskInstances);
+            }
+        } else {
+            succeed = this.workflowInstanceMapper.add(workflowInstance, latestTaskStatus(workflowInstance), 1);
+        }
         if (!succeed) {
             throw new DBException.InsertFailed("流程实例插入失败");
         }
-        Optional<WorkflowInstance> instanceOptional = this.workflowInstanceMapper.findById(workflowInstance.getId());
+        Optional<WorkflowInstance> instanceOptional = this.findById(workflowInstance.getId());
+        // 领域事件与流程实例在同一事务中写入发件箱
+        this.domainEventOutboxRepository.addAll(workflowInstance.getId(), workflowInstance.getUncommittedDomainEvents());
         publisher.publishEvent(workflowInstance);
         return instanceOptional.orElseThrow(() -> new DBException.DataNotFound("未找到流程实例"));
     }
 
     @Override
     public WorkflowInstance save(WorkflowInstance workflowInstance) {
-        int version = this.workflowInstanceMapper.getVersion(workflowInstance.getId());
-        logger.info("-------------------------the version is: {}", version);
-        boolean succeed = this.workflowInstanceMapper.save(workflowInstance, version);
-        if (!succeed) {
-            throw new DBException.OptimisticLocking("未找到对应的乐观锁版本数据，无法完成数据更新");
+        if (this.isTableStorage()) {
+            this.saveTaskInstances(workflowInstance);
+        } else {
+            // 以加载时的版本作为条件，一条UPDATE完成乐观锁检查
+            boolean succeed = this.workflowInstanceMapper.save(workflowInstance, latestTaskStatus(workflowInstance), workflowInstance.getVersion());
+            if (!succeed) {
+                throw new DBException.OptimisticLocking("未找到对应的乐观锁版本数据，无法完成数据更新");
+            }
+            this.increaseVersion(workflowInstance);
         }
-        Optional<WorkflowInstance> instanceOptional = this.workflowInstanceMapper.findById(workflowInstance.getId());
+        this.domainEventOutboxRepository.addAll(workflowInstance.getId(), workflowInstance.getUncommittedDomainEvents());
         this.publisher.publishEvent(workflowInstance);
-        return instanceOptional.orElseThrow(() -> new DBException.UpdateFailed("流程实例更新失败"));
+        if (!this.workflowInstanceProperties.isReloadAfterSave()) {
+            return workflowInstance;
+        }
+        return this.findById(workflowInstance.getId())
+                .orElseThrow(() -> new DBException.UpdateFailed("流程实例更新失败"));
+    }
+
+    // 与DB中的版本保持一致，同一对象可以继续保存
+    private void increaseVersion(WorkflowInstance workflowInstance) {
+        SystemMetaObject.forObject(workflowInstance).setValue("version", workflowInstance.getVersion() + 1);
+    }
+
+    // 按行存储时只更新发生变化的任务实例，流程实例行只在结束时更新状态与最后启动的任务状态
+    // 任务实例的写入以流程实例加载时的版本为条件，流程实例状态变化后持有旧数据的写入失败
+    private void saveTaskInstances(WorkflowInstance workflowInstance) {
+        var changed = workflowInstance.getChangedAsyncTaskInstances();
+        if (!changed.isEmpty()) {
+            var refs = workflowInstance.getAsyncTaskInstances().stream()
+                    .map(AsyncTaskInstance::getAsyncTaskRef)
+                    .collect(Collectors.toList());
+            changed.forEach(taskInstance -> {
+                int seq = refs.indexOf(taskInstance.getAsyncTaskRef());
+                int version = workflowInstance.getVersion();
+                if (this.asyncTaskInstanceMapper.update(workflowInstance.getId(), seq, taskInstance, version) > 0) {
+                    return;
+                }
+                if (this.asyncTaskInstanceMapper.count(workflowInstance.getId(), taskInstance.getAsyncTaskRef()) > 0) {
+                    throw new DBException.OptimisticLocking("未找到对应的乐观锁版本数据，无法完成数据更新");
+                }
+                int count;
+                try {
+                    count = this.asyncTaskInstanceMapper.addWithVersion(workflowInstance.getId(), workflowInstance.getWorkflowRef(), seq, taskInstance, version);
+                } catch (DuplicateKeyException e) {
+                    // 其他事务已插入同一任务实例
+                    throw new DBException.OptimisticLocking("任务实例已被其他事务创建，无法完成数据更新");
+                }
+                if (count == 0) {
+                    throw new DBException.OptimisticLocking("未找到对应的乐观锁版本数据，无法完成数据更新");
+                }
+            });
+        }
+        if (workflowInstance.getStatus() != ProcessStatus.RUNNING) {
+            if (!this.workflowInstanceMapper.saveStatus(workflowInstance, latestTaskStatus(workflowInstance))) {
+                throw new DBException.OptimisticLocking("未找到对应的乐观锁版本数据，无法完成数据更新");
+            }
+            this.increaseVersion(workflowInstance);
+        }
     }
 
     @Override
     public List<WorkflowInstance> findAll(int pageNum, int pageSize) {
-        return this.workflowInstanceMapper.findAll(pageNum, pageSize);
+        return this.loadTaskInstances(this.workflowInstanceMapper.findAll(pageNum, pageSize));
     }
 
     @Override
     public Optional<WorkflowInstance> findByRefAndSerialNoMax(String workflowRef) {
-        return this.workflowInstanceMapper.findByRefAndSerialNoMax(workflowRef);
+        return this.loadTaskInstances(this.workflowInstanceMapper.findByRefAndSerialNoMax(workflowRef));
     }
 
     @Override
     public void deleteByWorkflowRef(String workflowRef) {
         this.workflowInstanceMapper.deleteByWorkflowRef(workflowRef);
+        this.asyncTaskInstanceMapper.deleteByWorkflowRef(workflowRef);
     }
 
-    public PageInfo<WorkflowInstance> findAllPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
+    public PageInfo<WorkflowInstanceSummary> findSummaryPage(String id, String name, String workflowVersion, ProcessStatus status, int pageNum, int pageSize) {
         return PageHelper.startPage(pageNum, pageSize)
-                .doSelectPageInfo(() -> this.workflowInstanceMapper.findAllPage(id, name, workflowVersion, status));
+                .doSelectPageInfo(() -> this.workflowInstanceMapper.findSummaryPage(id, name, workflowVersion, status, this.isTableStorage()));
+    }
+
+    public List<WorkflowInstanceSummary> findSummaryByWorkflowRef(String workflowRef, Integer lastSerialNo, Integer limit) {
+        return this.workflowInstanceMapper.findSummaryByWorkflowRef(workflowRef, lastSerialNo, limit, this.isTableStorage());
     }
 
     public List<WorkflowInstance> findByWorkflowRef(String workflowRef) {
-        return this.workflowInstanceMapper.findByWorkflowRef(workflowRef);
+        return this.loadTaskInstances(this.workflowInstanceMapper.findByWorkflowRef(workflowRef));
+    }
+
+    public List<WorkflowInstance> findLatestByRefs(Collection<String> workflowRefs) {
+        if (workflowRefs.isEmpty()) {
+            return List.of();
+        }
+        return this.loadTaskInstances(this.workflowInstanceMapper.findLatestByRefs(workflowRefs));
     }
 }
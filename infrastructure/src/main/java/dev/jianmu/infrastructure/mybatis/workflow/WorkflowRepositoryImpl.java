@@ -1,10 +1,13 @@
 package dev.jianmu.infrastructure.mybatis.workflow;
 
+import dev.jianmu.el.LruCache;
 import dev.jianmu.infrastructure.exception.DBException;
 import dev.jianmu.infrastructure.mapper.workflow.WorkflowMapper;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
 import dev.jianmu.workflow.repository.WorkflowRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.Resource;
 import java.util.List;
@@ -18,18 +21,32 @@ import java.util.Optional;
  **/
 @Repository
 public class WorkflowRepositoryImpl implements WorkflowRepository {
+    /**
+     * 流程定义缓存最大数量
+     */
+    public static final int WORKFLOW_CACHE_SIZE = 256;
 
     @Resource
     private WorkflowMapper workflowMapper;
 
+    // 流程定义写入后不再修改，以ref_version为Key缓存，避免每次事件处理都重新查询与反序列化
+    private final LruCache<String, Workflow> workflowCache = new LruCache<>(WORKFLOW_CACHE_SIZE);
+
     @Override
     public Optional<Workflow> findByRefAndVersion(String ref, String version) {
-        return this.workflowMapper.findByRefAndVersion(ref + version);
+        return this.findByRefVersion(ref + version);
     }
 
     @Override
     public Optional<Workflow> findByRefVersion(String refVersion) {
-        return this.workflowMapper.findByRefAndVersion(refVersion);
+        var workflow = this.workflowCache.getIfPresent(refVersion);
+        if (workflow != null) {
+            return Optional.of(workflow);
+        }
+        // 不存在的流程定义不缓存
+        var workflowOptional = this.workflowMapper.findByRefAndVersion(refVersion);
+        workflowOptional.ifPresent(w -> this.workflowCache.put(refVersion, w));
+        return workflowOptional;
     }
 
     @Override
@@ -48,10 +65,29 @@ public class WorkflowRepositoryImpl implements WorkflowRepository {
     @Override
     public void deleteByRefAndVersion(String ref, String version) {
         this.workflowMapper.deleteByRefAndVersion(ref + version);
+        this.evict(() -> this.workflowCache.remove(ref + version));
     }
 
     @Override
     public void deleteByRef(String ref) {
         this.workflowMapper.deleteByRef(ref);
+        this.evict(() -> this.workflowCache.removeIf((refVersion, workflow) -> workflow.getRef().equals(ref)));
+    }
+
+    public LruCache<String, Workflow> getWorkflowCache() {
+        return workflowCache;
+    }
+
+    // 立即淘汰缓存，事务中删除时在事务结束后再淘汰一次，防止提交前被其他事务读回缓存
+    private void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
     }
 }
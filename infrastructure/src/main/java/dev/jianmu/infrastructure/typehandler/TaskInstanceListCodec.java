@@ -0,0 +1,241 @@
+package dev.jianmu.infrastructure.typehandler;
+
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * @class: TaskInstanceListCodec
+ * @description: 任务实例列表紧凑二进制编码
+ * 格式: 版本号(1字节) | 类型字典 | 任务数量 | 任务列表
+ * 每个任务: 标志位(1字节) | 状态码(1字节) | ref | 类型字典下标 | [name] | [description] | [startTime] | [endTime]
+ * 字符串为varint长度加UTF-8字节，时间为按UTC换算的epoch毫秒
+ * @author: Ethan Liu
+ * @create: 2021-10-20 10:30
+ **/
+public final class TaskInstanceListCodec {
+    /**
+     * 当前编码版本，JSON格式首字节为'['或空白字符，不会与版本号冲突
+     */
+    public static final byte SCHEMA_V1 = 0x01;
+
+    // 标志位，标识可为空的字段是否存在
+    private static final int HAS_NAME = 1;
+    private static final int HAS_DESCRIPTION = 1 << 1;
+    private static final int HAS_START_TIME = 1 << 2;
+    private static final int HAS_END_TIME = 1 << 3;
+    private static final int HAS_TYPE = 1 << 4;
+
+    // 状态码固定编码，不依赖枚举定义顺序，新增状态只能追加
+    private static final TaskStatus[] STATUS_CODES = {
+            TaskStatus.INIT,
+            TaskStatus.RUNNING,
+            TaskStatus.SKIPPED,
+            TaskStatus.FAILED,
+            TaskStatus.SUCCEEDED
+    };
+    private static final Map<TaskStatus, Integer> STATUS_INDEX = new EnumMap<>(TaskStatus.class);
+
+    private static final Field NAME;
+    private static final Field DESCRIPTION;
+    private static final Field STATUS;
+    private static final Field ASYNC_TASK_REF;
+    private static final Field ASYNC_TASK_TYPE;
+    private static final Field START_TIME;
+    private static final Field END_TIME;
+
+    static {
+        for (int i = 0; i < STATUS_CODES.length; i++) {
+            STATUS_INDEX.put(STATUS_CODES[i], i);
+        }
+        // 与Jackson一样通过字段反射还原任务实例状态
+        NAME = field("name");
+        DESCRIPTION = field("description");
+        STATUS = field("status");
+        ASYNC_TASK_REF = field("asyncTaskRef");
+        ASYNC_TASK_TYPE = field("asyncTaskType");
+        START_TIME = field("startTime");
+        END_TIME = field("endTime");
+    }
+
+    private TaskInstanceListCodec() {
+    }
+
+    private static Field field(String name) {
+        try {
+            Field field = AsyncTaskInstance.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("任务实例缺少字段: " + name, e);
+        }
+    }
+
+    /**
+     * 判断内容是否为二进制编码
+     *
+     * @param bytes 字段内容
+     * @return
+     */
+    public static boolean isBinary(byte[] bytes) {
+        return bytes.length > 0 && bytes[0] == SCHEMA_V1;
+    }
+
+    public static byte[] encode(List<AsyncTaskInstance> taskInstances) {
+        // 类型字典，同一流程中的任务类型大量重复
+        Map<String, Integer> types = new LinkedHashMap<>();
+        for (AsyncTaskInstance t : taskInstances) {
+            if (t.getAsyncTaskType() != null) {
+                types.putIfAbsent(t.getAsyncTaskType(), types.size());
+            }
+        }
+        Writer writer = new Writer(64 + taskInstances.size() * 48);
+        writer.writeByte(SCHEMA_V1);
+        writer.writeVarInt(types.size());
+        types.keySet().forEach(writer::writeString);
+        writer.writeVarInt(taskInstances.size());
+        for (AsyncTaskInstance t : taskInstances) {
+            int flags = 0;
+            if (t.getName() != null) {
+                flags |= HAS_NAME;
+            }
+            if (t.getDescription() != null) {
+                flags |= HAS_DESCRIPTION;
+            }
+            if (t.getStartTime() != null) {
+                flags |= HAS_START_TIME;
+            }
+            if (t.getEndTime() != null) {
+                flags |= HAS_END_TIME;
+            }
+            if (t.getAsyncTaskType() != null) {
+                flags |= HAS_TYPE;
+            }
+            writer.writeByte(flags);
+            writer.writeByte(STATUS_INDEX.get(t.getStatus()));
+            writer.writeString(t.getAsyncTaskRef());
+            if ((flags & HAS_TYPE) != 0) {
+                writer.writeVarInt(types.get(t.getAsyncTaskType()));
+            }
+            if ((flags & HAS_NAME) != 0) {
+                writer.writeString(t.getName());
+            }
+            if ((flags & HAS_DESCRIPTION) != 0) {
+                writer.writeString(t.getDescription());
+            }
+            if ((flags & HAS_START_TIME) != 0) {
+                writer.writeLong(toEpochMilli(t.getStartTime()));
+            }
+            if ((flags & HAS_END_TIME) != 0) {
+                writer.writeLong(toEpochMilli(t.getEndTime()));
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    public static List<AsyncTaskInstance> decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte schema = buffer.get();
+        if (schema != SCHEMA_V1) {
+            throw new IllegalArgumentException("不支持的任务实例编码版本: " + schema);
+        }
+        int typeCount = readVarInt(buffer);
+        String[] types = new String[typeCount];
+        for (int i = 0; i < typeCount; i++) {
+            types[i] = readString(buffer);
+        }
+        int size = readVarInt(buffer);
+        List<AsyncTaskInstance> taskInstances = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                int flags = buffer.get();
+                TaskStatus status = STATUS_CODES[buffer.get()];
+                String ref = readString(buffer);
+                String type = (flags & HAS_TYPE) != 0 ? types[readVarInt(buffer)] : null;
+                AsyncTaskInstance t = AsyncTaskInstance.Builder.anAsyncTaskInstance()
+                        .asyncTaskRef(ref)
+                        .asyncTaskType(type)
+                        .name((flags & HAS_NAME) != 0 ? readString(buffer) : null)
+                        .description((flags & HAS_DESCRIPTION) != 0 ? readString(buffer) : null)
+                        .build();
+                STATUS.set(t, status);
+                if ((flags & HAS_START_TIME) != 0) {
+                    START_TIME.set(t, toLocalDateTime(buffer.getLong()));
+                }
+                if ((flags & HAS_END_TIME) != 0) {
+                    END_TIME.set(t, toLocalDateTime(buffer.getLong()));
+                }
+                taskInstances.add(t);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("任务实例解码失败", e);
+        }
+        return taskInstances;
+    }
+
+    // LocalDateTime不带时区，按UTC换算保证读写对称且不受夏令时影响
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneOffset.UTC);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readVarInt(buffer);
+        String s = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    private static final class Writer extends ByteArrayOutputStream {
+        private Writer(int size) {
+            super(size);
+        }
+
+        private void writeByte(int b) {
+            this.write(b);
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                this.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.write(value);
+        }
+
+        private void writeLong(long value) {
+            for (int i = 56; i >= 0; i -= 8) {
+                this.write((int) (value >>> i));
+            }
+        }
+
+        private void writeString(String s) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            this.writeVarInt(bytes.length);
+            this.write(bytes, 0, bytes.length);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package dev.jianmu.infrastructure.typehandler;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
@@ -14,13 +13,12 @@ import org.apache.ibatis.type.JdbcType;
 
 import javax.sql.rowset.serial.SerialBlob;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.List;
 
 /**
  * @class: TaskInstanceListTypeHandler
- * @description: 自定义类型(List<AsyncTaskInstance>)转换器
+ * @description: 自定义类型(List<AsyncTaskInstance>)转换器，写入紧凑二进制格式，兼容读取JSON格式
  * @author: Ethan Liu
  * @create: 2021-03-21 21:32
  **/
@@ -44,10 +42,17 @@ public class TaskInstanceListTypeHandler extends BaseTypeHandler<List<AsyncTaskI
     }
 
     private List<AsyncTaskInstance> toTaskList(Blob blob) {
-        JavaType javaType = this.objectMapper.getTypeFactory().constructCollectionType(List.class, AsyncTaskInstance.class);
+        if (blob == null) {
+            return null;
+        }
         try {
-            List<AsyncTaskInstance> taskInstances = this.objectMapper.readValue(blob.getBytes(1, (int) blob.length()), javaType);
-            return taskInstances;
+            byte[] bytes = blob.getBytes(1, (int) blob.length());
+            if (TaskInstanceListCodec.isBinary(bytes)) {
+                return TaskInstanceListCodec.decode(bytes);
+            }
+            // 历史数据为JSON格式
+            JavaType javaType = this.objectMapper.getTypeFactory().constructCollectionType(List.class, AsyncTaskInstance.class);
+            return this.objectMapper.readValue(bytes, javaType);
         } catch (IOException | SQLException e) {
             e.printStackTrace();
         }
@@ -56,13 +61,8 @@ public class TaskInstanceListTypeHandler extends BaseTypeHandler<List<AsyncTaskI
 
     @Override
     public void setNonNullParameter(PreparedStatement ps, int i, List<AsyncTaskInstance> parameter, JdbcType jdbcType) throws SQLException {
-        try {
-            String tasks = this.objectMapper.writerFor(new TypeReference<List<AsyncTaskInstance>>() {}).writeValueAsString(parameter);
-            Blob blob = new SerialBlob(tasks.getBytes(StandardCharsets.UTF_8));
-            ps.setBlob(i, blob);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        Blob blob = new SerialBlob(TaskInstanceListCodec.encode(parameter));
+        ps.setBlob(i, blob);
     }
 
     @Override
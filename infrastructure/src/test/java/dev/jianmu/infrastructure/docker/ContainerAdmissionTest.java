@@ -0,0 +1,56 @@
+package dev.jianmu.infrastructure.docker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: ContainerAdmissionTest
+ * @description: 容器准入控制测试
+ * @author: Ethan Liu
+ * @create: 2021-10-24 10:40
+ **/
+@DisplayName("容器准入控制测试")
+public class ContainerAdmissionTest {
+
+    @Test
+    @DisplayName("超出准入上限的任务排队等待测试")
+    void admissionTest() {
+        List<Runnable> started = new ArrayList<>();
+        // 执行器只记录任务，模拟容器长时间运行
+        var admission = new ContainerAdmission(2, started::add);
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            var name = "task_" + i;
+            admission.submit(() -> order.add(name));
+        }
+        assertEquals(2, started.size());
+        assertEquals(2, admission.getRunningCount());
+        assertEquals(2, admission.getPendingCount());
+
+        // 容器结束后按提交顺序启动排队任务
+        admission.release();
+        assertEquals(3, started.size());
+        assertEquals(2, admission.getRunningCount());
+        assertEquals(1, admission.getPendingCount());
+        started.forEach(Runnable::run);
+        assertEquals(List.of("task_0", "task_1", "task_2"), order);
+
+        admission.release();
+        admission.release();
+        admission.release();
+        assertEquals(4, started.size());
+        assertEquals(0, admission.getRunningCount());
+        assertEquals(0, admission.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("准入上限必须大于0测试")
+    void maxRunningTest() {
+        assertThrows(IllegalArgumentException.class, () -> new ContainerAdmission(0, Runnable::run));
+    }
+}
@@ -0,0 +1,130 @@
+package dev.jianmu.infrastructure.docker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: ImageManagerTest
+ * @description: 镜像管理测试
+ * @author: Ethan Liu
+ * @create: 2021-10-29 11:00
+ **/
+@DisplayName("镜像管理测试")
+public class ImageManagerTest {
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    // 模拟Docker镜像存储，拉取时阻塞直到放行
+    private static class FakeClient implements ImageManager.ImageClient {
+        private final Set<String> local = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger inspects = new AtomicInteger();
+        private final AtomicInteger pulls = new AtomicInteger();
+        private final CountDownLatch pulling = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean failPull;
+
+        @Override
+        public String inspect(String imageName) {
+            this.inspects.incrementAndGet();
+            return this.local.contains(imageName) ? "sha256:" + imageName : null;
+        }
+
+        @Override
+        public void pull(String imageName) throws InterruptedException {
+            this.pulls.incrementAndGet();
+            this.pulling.countDown();
+            this.release.await();
+            if (this.failPull) {
+                throw new RuntimeException("拉取失败");
+            }
+            this.local.add(imageName);
+        }
+    }
+
+    @Test
+    @DisplayName("同一镜像并发使用时只拉取一次测试")
+    void singleFlightTest() throws Exception {
+        var client = new FakeClient();
+        var manager = new ImageManager(client, this.executor);
+        List<Future<String>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(this.executor.submit(() -> manager.ensure("alpine:3.13")));
+        }
+        assertTrue(client.pulling.await(5, TimeUnit.SECONDS));
+        client.release.countDown();
+        for (Future<String> future : futures) {
+            assertEquals("sha256:alpine:3.13", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, client.pulls.get());
+
+        // 已确认存在的镜像不再检查
+        var inspects = client.inspects.get();
+        manager.ensure("alpine:3.13");
+        assertEquals(inspects, client.inspects.get());
+
+        // 移除记录后重新检查，本地存在时不拉取
+        manager.evict("alpine:3.13");
+        manager.ensure("alpine:3.13");
+        assertEquals(inspects + 1, client.inspects.get());
+        assertEquals(1, client.pulls.get());
+    }
+
+    @Test
+    @DisplayName("拉取失败时等待中的任务同样失败且不记录镜像测试")
+    void pullFailedTest() throws Exception {
+        var client = new FakeClient();
+        client.failPull = true;
+        var manager = new ImageManager(client, this.executor);
+        var first = this.executor.submit(() -> manager.ensure("busybox"));
+        assertTrue(client.pulling.await(5, TimeUnit.SECONDS));
+        var second = this.executor.submit(() -> manager.ensure("busybox"));
+        client.release.countDown();
+        assertThrows(Exception.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertFalse(manager.isPresent("busybox"));
+
+        client.failPull = false;
+        manager.ensure("busybox");
+        assertTrue(manager.isPresent("busybox"));
+    }
+
+    @Test
+    @DisplayName("后台预拉取镜像测试")
+    void prePullTest() throws Exception {
+        var client = new FakeClient();
+        client.local.add("node:14");
+        client.release.countDown();
+        var manager = new ImageManager(client, this.executor);
+        manager.prePull(List.of("node:14", "maven:3", "maven:3"));
+        for (int i = 0; i < 100 && !(manager.isPresent("node:14") && manager.isPresent("maven:3")); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(manager.isPresent("node:14"));
+        assertTrue(manager.isPresent("maven:3"));
+        assertEquals(1, client.pulls.get());
+    }
+}
@@ -0,0 +1,91 @@
+package dev.jianmu.infrastructure.executor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: InstrumentedExecutorTest
+ * @description: 带运行指标的异步执行器测试
+ * @author: Ethan Liu
+ * @create: 2021-10-25 10:40
+ **/
+@DisplayName("带运行指标的异步执行器测试")
+public class InstrumentedExecutorTest {
+
+    private InstrumentedExecutor executor(ExecutorProperties.RejectionPolicy policy) {
+        var pool = new ExecutorProperties.Pool(1, 1, 1);
+        pool.setRejectionPolicy(policy);
+        var executor = new InstrumentedExecutor("testExecutor", pool);
+        executor.initialize();
+        return executor;
+    }
+
+    @Test
+    @DisplayName("队列深度、活动线程数与拒绝次数测试")
+    void metricsTest() throws InterruptedException {
+        var executor = this.executor(ExecutorProperties.RejectionPolicy.ABORT);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> {
+            });
+            // 线程与队列均已占满
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+            }));
+
+            var metrics = executor.getMetrics();
+            assertEquals("testExecutor", metrics.getName());
+            assertEquals(1, metrics.getActiveCount());
+            assertEquals(1, metrics.getQueueSize());
+            assertEquals(0, metrics.getQueueRemainingCapacity());
+            assertEquals(1, metrics.getRejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("CALLER_RUNS拒绝策略在提交线程执行测试")
+    void callerRunsTest() throws InterruptedException {
+        var executor = this.executor(ExecutorProperties.RejectionPolicy.CALLER_RUNS);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> {
+            });
+            var caller = Thread.currentThread();
+            var runner = new Thread[1];
+            executor.execute(() -> runner[0] = Thread.currentThread());
+            assertSame(caller, runner[0]);
+            assertEquals(1, executor.getRejectedCount());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
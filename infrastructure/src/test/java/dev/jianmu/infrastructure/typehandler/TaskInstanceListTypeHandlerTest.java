@@ -0,0 +1,105 @@
+package dev.jianmu.infrastructure.typehandler;
+
+import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
+import dev.jianmu.workflow.aggregate.process.TaskStatus;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.rowset.serial.SerialBlob;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: TaskInstanceListTypeHandlerTest
+ * @description: 任务实例列表转换器测试
+ * @author: Ethan Liu
+ * @create: 2021-10-20 11:20
+ **/
+@DisplayName("任务实例列表转换器测试")
+public class TaskInstanceListTypeHandlerTest {
+    // 旧版本转换器写入的JSON格式数据
+    private static final String LEGACY_JSON = "[\"java.util.ImmutableCollections$List12\",[" +
+            "[\"dev.jianmu.workflow.aggregate.process.AsyncTaskInstance\",{\"name\":\"Shell任务\",\"description\":\"描述\"," +
+            "\"status\":\"SUCCEEDED\",\"asyncTaskRef\":\"shell_1\",\"asyncTaskType\":\"shell:1.0\"," +
+            "\"startTime\":\"2021-10-20T10:30:15.123\",\"endTime\":\"2021-10-20T10:31:00\"}]," +
+            "[\"dev.jianmu.workflow.aggregate.process.AsyncTaskInstance\",{\"name\":\"Skip\",\"description\":null," +
+            "\"status\":\"INIT\",\"asyncTaskRef\":\"skip_1\",\"asyncTaskType\":\"shell:1.0\",\"startTime\":null,\"endTime\":null}]]]";
+
+    private final TaskInstanceListTypeHandler typeHandler = new TaskInstanceListTypeHandler();
+
+    @Test
+    @DisplayName("读取JSON格式历史数据测试")
+    void readLegacyJsonTest() throws SQLException {
+        List<AsyncTaskInstance> taskInstances = this.read(new SerialBlob(LEGACY_JSON.getBytes(StandardCharsets.UTF_8)));
+        this.assertTaskInstances(taskInstances);
+    }
+
+    @Test
+    @DisplayName("二进制格式读写测试")
+    void binaryRoundTripTest() throws SQLException {
+        List<AsyncTaskInstance> legacy = this.read(new SerialBlob(LEGACY_JSON.getBytes(StandardCharsets.UTF_8)));
+        Blob blob = this.write(legacy);
+        byte[] bytes = blob.getBytes(1, (int) blob.length());
+        assertEquals(TaskInstanceListCodec.SCHEMA_V1, bytes[0]);
+        assertTrue(bytes.length < LEGACY_JSON.getBytes(StandardCharsets.UTF_8).length / 3);
+        this.assertTaskInstances(this.read(blob));
+    }
+
+    @Test
+    @DisplayName("空列表读写测试")
+    void emptyListTest() throws SQLException {
+        assertTrue(this.read(this.write(List.of())).isEmpty());
+    }
+
+    private void assertTaskInstances(List<AsyncTaskInstance> taskInstances) {
+        assertEquals(2, taskInstances.size());
+        AsyncTaskInstance shell = taskInstances.get(0);
+        assertEquals("Shell任务", shell.getName());
+        assertEquals("描述", shell.getDescription());
+        assertEquals(TaskStatus.SUCCEEDED, shell.getStatus());
+        assertEquals("shell_1", shell.getAsyncTaskRef());
+        assertEquals("shell:1.0", shell.getAsyncTaskType());
+        assertEquals(LocalDateTime.of(2021, 10, 20, 10, 30, 15, 123000000), shell.getStartTime());
+        assertEquals(LocalDateTime.of(2021, 10, 20, 10, 31, 0), shell.getEndTime());
+        AsyncTaskInstance skip = taskInstances.get(1);
+        assertEquals("Skip", skip.getName());
+        assertNull(skip.getDescription());
+        assertEquals(TaskStatus.INIT, skip.getStatus());
+        assertEquals("skip_1", skip.getAsyncTaskRef());
+        assertEquals("shell:1.0", skip.getAsyncTaskType());
+        assertNull(skip.getStartTime());
+        assertNull(skip.getEndTime());
+    }
+
+    private Blob write(List<AsyncTaskInstance> taskInstances) throws SQLException {
+        Blob[] holder = new Blob[1];
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("setBlob")) {
+                        holder[0] = (Blob) args[1];
+                    }
+                    return null;
+                });
+        this.typeHandler.setNonNullParameter(ps, 1, taskInstances, JdbcType.BLOB);
+        return holder[0];
+    }
+
+    private List<AsyncTaskInstance> read(Blob blob) throws SQLException {
+        ResultSet rs = (ResultSet) Proxy.newProxyInstance(
+                ResultSet.class.getClassLoader(),
+                new Class[]{ResultSet.class},
+                (proxy, method, args) -> method.getName().equals("getBlob") ? blob : null);
+        return this.typeHandler.getNullableResult(rs, 1);
+    }
+}
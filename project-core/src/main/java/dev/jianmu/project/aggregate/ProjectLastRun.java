@@ -0,0 +1,105 @@
+package dev.jianmu.project.aggregate;
+
+import java.time.LocalDateTime;
+
+/**
+ * @class: ProjectLastRun
+ * @description: 项目最后一次执行摘要，由流程实例事件维护的读模型
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:15
+ **/
+public class ProjectLastRun {
+    // 流程定义Ref
+    private String workflowRef;
+    // 流程实例ID
+    private String workflowInstanceId;
+    // 执行顺序号
+    private int serialNo;
+    // 最后一次执行状态
+    private String status;
+    // 开始时间
+    private LocalDateTime startTime;
+    // 结束时间
+    private LocalDateTime endTime;
+
+    public String getWorkflowRef() {
+        return workflowRef;
+    }
+
+    public String getWorkflowInstanceId() {
+        return workflowInstanceId;
+    }
+
+    public int getSerialNo() {
+        return serialNo;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public static final class Builder {
+        private String workflowRef;
+        private String workflowInstanceId;
+        private int serialNo;
+        private String status;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+
+        private Builder() {
+        }
+
+        public static Builder aProjectLastRun() {
+            return new Builder();
+        }
+
+        public Builder workflowRef(String workflowRef) {
+            this.workflowRef = workflowRef;
+            return this;
+        }
+
+        public Builder workflowInstanceId(String workflowInstanceId) {
+            this.workflowInstanceId = workflowInstanceId;
+            return this;
+        }
+
+        public Builder serialNo(int serialNo) {
+            this.serialNo = serialNo;
+            return this;
+        }
+
+        public Builder status(String status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder startTime(LocalDateTime startTime) {
+            this.startTime = startTime;
+            return this;
+        }
+
+        public Builder endTime(LocalDateTime endTime) {
+            this.endTime = endTime;
+            return this;
+        }
+
+        public ProjectLastRun build() {
+            ProjectLastRun projectLastRun = new ProjectLastRun();
+            projectLastRun.workflowRef = this.workflowRef;
+            projectLastRun.workflowInstanceId = this.workflowInstanceId;
+            projectLastRun.serialNo = this.serialNo;
+            projectLastRun.status = this.status;
+            projectLastRun.startTime = this.startTime;
+            projectLastRun.endTime = this.endTime;
+            return projectLastRun;
+        }
+    }
+}
@@ -21,4 +21,6 @@ public interface CronTriggerRepository {
     Optional<CronTrigger> findById(String id);
 
     List<CronTrigger> findByProjectId(String projectId);
+
+    List<CronTrigger> findAll();
 }
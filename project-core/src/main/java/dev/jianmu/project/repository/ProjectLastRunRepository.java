@@ -0,0 +1,25 @@
+package dev.jianmu.project.repository;
+
+import dev.jianmu.project.aggregate.ProjectLastRun;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * @class: ProjectLastRunRepository
+ * @description: 项目最后一次执行摘要仓储
+ * @author: Ethan Liu
+ * @create: 2021-10-22 10:25
+ **/
+public interface ProjectLastRunRepository {
+    /**
+     * 保存执行摘要，已有更新的执行顺序号时不覆盖
+     *
+     * @param projectLastRun 执行摘要
+     */
+    void save(ProjectLastRun projectLastRun);
+
+    List<ProjectLastRun> findByWorkflowRefs(Collection<String> workflowRefs);
+
+    void deleteByWorkflowRef(String workflowRef);
+}
@@ -2,6 +2,7 @@ package dev.jianmu.secret.repository;
 
 import dev.jianmu.secret.aggregate.KVPair;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +22,13 @@ public interface KVPairRepository {
     Optional<KVPair> findByNamespaceNameAndKey(String namespaceName, String key);
 
     List<KVPair> findByNamespaceName(String namespaceName);
+
+    /**
+     * 批量查询键值对，返回命名空间与Key均在集合中的全部组合，调用方需按实际组合过滤
+     *
+     * @param namespaceNames 命名空间名称
+     * @param keys           参数key
+     * @return
+     */
+    List<KVPair> findByNamespaceNamesAndKeys(Collection<String> namespaceNames, Collection<String> keys);
 }
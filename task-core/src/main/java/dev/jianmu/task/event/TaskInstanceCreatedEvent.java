@@ -0,0 +1,59 @@
+package dev.jianmu.task.event;
+
+/**
+ * @class: TaskInstanceCreatedEvent
+ * @description: 任务实例创建事件
+ * @author: Ethan Liu
+ * @create: 2021-10-31 10:10
+ **/
+public class TaskInstanceCreatedEvent extends BaseEvent {
+    private TaskInstanceCreatedEvent() {
+    }
+
+    public static final class Builder {
+        // 任务实例ID
+        protected String taskInstanceId;
+        // 任务定义唯一Key
+        protected String defKey;
+        // 流程定义上下文中的AsyncTask唯一标识
+        protected String asyncTaskRef;
+        // 外部业务ID, 必须唯一
+        protected String businessId;
+
+        private Builder() {
+        }
+
+        public static Builder aTaskInstanceCreatedEvent() {
+            return new Builder();
+        }
+
+        public Builder taskInstanceId(String taskInstanceId) {
+            this.taskInstanceId = taskInstanceId;
+            return this;
+        }
+
+        public Builder defKey(String defKey) {
+            this.defKey = defKey;
+            return this;
+        }
+
+        public Builder asyncTaskRef(String asyncTaskRef) {
+            this.asyncTaskRef = asyncTaskRef;
+            return this;
+        }
+
+        public Builder businessId(String businessId) {
+            this.businessId = businessId;
+            return this;
+        }
+
+        public TaskInstanceCreatedEvent build() {
+            TaskInstanceCreatedEvent taskInstanceCreatedEvent = new TaskInstanceCreatedEvent();
+            taskInstanceCreatedEvent.defKey = this.defKey;
+            taskInstanceCreatedEvent.businessId = this.businessId;
+            taskInstanceCreatedEvent.taskInstanceId = this.taskInstanceId;
+            taskInstanceCreatedEvent.asyncTaskRef = this.asyncTaskRef;
+            return taskInstanceCreatedEvent;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package dev.jianmu.task.repository;
 
 import dev.jianmu.task.aggregate.InstanceParameter;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -21,5 +22,7 @@ public interface InstanceParameterRepository {
 
     List<InstanceParameter> findByInstanceIdAndType(String instanceId, InstanceParameter.Type type);
 
+    List<InstanceParameter> findByInstanceIdsAndType(Collection<String> instanceIds, InstanceParameter.Type type);
+
     List<InstanceParameter> findOutputParamByBusinessIdAndTriggerId(String businessId, String triggerId);
 }
@@ -10,6 +10,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * @class: ScheduleJobService
@@ -74,6 +77,28 @@ public class ScheduleJobService {
         return nextFireTime;
     }
 
+    /**
+     * 批量查询下次触发时间，未找到的触发器不在返回结果中
+     *
+     * @param triggerIds 触发器ID列表
+     * @return 以触发器ID为Key的下次触发时间
+     */
+    public Map<String, String> getNextFireTimes(Collection<String> triggerIds) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Map<String, String> nextFireTimes = new HashMap<>();
+        for (String triggerId : triggerIds) {
+            try {
+                var trigger = scheduler.getTrigger(TriggerKey.triggerKey(triggerId));
+                if (trigger != null && trigger.getNextFireTime() != null) {
+                    nextFireTimes.put(triggerId, sdf.format(trigger.getNextFireTime()));
+                }
+            } catch (SchedulerException e) {
+                logger.info("未找到触发器： {}", e.getMessage());
+            }
+        }
+        return nextFireTimes;
+    }
+
     public void startTriggers() {
         var triggers = this.triggerRepository.findAll();
         triggers.forEach(triggerEntity -> {
@@ -20,8 +20,6 @@ import java.util.Set;
 public class Condition extends BaseNode implements Gateway {
     private Map<Boolean, String> targetMap = new HashMap<>();
     private String expression;
-    private ExpressionLanguage expressionLanguage;
-    private EvaluationContext context;
 
     private Condition() {
         this.type = this.getClass().getSimpleName();
@@ -43,7 +41,8 @@ public class Condition extends BaseNode implements Gateway {
         super.setTargets(targets);
     }
 
-    private String getNext() {
+    // 流程定义在多个流程实例间共享，计算服务与上下文只通过参数传递，不保存在节点上
+    private String getNext(ExpressionLanguage expressionLanguage, EvaluationContext context) {
         Boolean expResult = false;
         Expression expression = expressionLanguage.parseExpression(this.expression);
         EvaluationResult evaluationResult = expressionLanguage.evaluateExpression(expression, context);
@@ -61,9 +60,7 @@ public class Condition extends BaseNode implements Gateway {
 
     @Override
     public String calculateTarget(ExpressionLanguage expressionLanguage, EvaluationContext context) {
-        this.expressionLanguage = expressionLanguage;
-        this.context = context;
-        return this.getNext();
+        return this.getNext(expressionLanguage, context);
     }
 
     public void setTargetMap(Map<Boolean, String> targetMap) {
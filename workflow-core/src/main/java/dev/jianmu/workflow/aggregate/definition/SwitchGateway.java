@@ -21,8 +21,6 @@ public class SwitchGateway extends BaseNode implements Gateway {
     private String expression;
     // Switch网关条件Case暂时只支持String类型比较，区分大小写
     private Map<String, String> cases = new HashMap<>();
-    private ExpressionLanguage expressionLanguage;
-    private EvaluationContext context;
 
     private SwitchGateway() {
         this.type = this.getClass().getSimpleName();
@@ -36,11 +34,12 @@ public class SwitchGateway extends BaseNode implements Gateway {
         return cases;
     }
 
-    private String getNext() {
+    // 流程定义在多个流程实例间共享，计算服务与上下文只通过参数传递，不保存在节点上
+    private String getNext(ExpressionLanguage expressionLanguage, EvaluationContext context) {
         // TODO expression 表达式求值返回String类型的Case，应支持number类型
         String expResult = "";
-        Expression expression = this.expressionLanguage.parseExpression(this.expression);
-        EvaluationResult evaluationResult = this.expressionLanguage.evaluateExpression(expression, context);
+        Expression expression = expressionLanguage.parseExpression(this.expression);
+        EvaluationResult evaluationResult = expressionLanguage.evaluateExpression(expression, context);
         if (!evaluationResult.isFailure() && evaluationResult.getValue() instanceof StringParameter) {
             expResult = ((StringParameter) evaluationResult.getValue()).getValue();
         }
@@ -56,9 +55,7 @@ public class SwitchGateway extends BaseNode implements Gateway {
 
     @Override
     public String calculateTarget(ExpressionLanguage expressionLanguage, EvaluationContext context) {
-        this.expressionLanguage = expressionLanguage;
-        this.context = context;
-        return this.getNext();
+        return this.getNext(expressionLanguage, context);
     }
 
     public static final class Builder {
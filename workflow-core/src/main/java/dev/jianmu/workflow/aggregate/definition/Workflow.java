@@ -6,10 +6,7 @@ import dev.jianmu.workflow.el.EvaluationResult;
 import dev.jianmu.workflow.el.Expression;
 import dev.jianmu.workflow.el.ExpressionLanguage;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.UUID;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -42,20 +39,60 @@ public class Workflow {
     private Set<GlobalParameter> globalParameters = Set.of();
     // DSL原始内容
     private String dslText;
-    // 表达式计算服务
-    private ExpressionLanguage expressionLanguage;
-    // 参数上下文
-    private EvaluationContext context;
+    // 节点索引，首次查询时构建
+    private volatile NodeIndex nodeIndex;
 
     private Workflow() {
     }
 
-    public void setExpressionLanguage(ExpressionLanguage expressionLanguage) {
-        this.expressionLanguage = expressionLanguage;
+    // 节点索引，流程定义写入后不再变化，构建一次即可在多线程间共享
+    private static final class NodeIndex {
+        // ref -> Node
+        private final Map<String, Node> nodes;
+        // ref -> 上游Task的ref List
+        private final Map<String, List<String>> upstreamTasks;
+        private final List<Node> tasks;
+        private final Node start;
+        private final Node end;
+
+        private NodeIndex(Set<Node> nodeSet) {
+            Map<String, Node> nodes = new HashMap<>();
+            List<Node> tasks = new ArrayList<>();
+            Node start = null;
+            Node end = null;
+            for (Node node : nodeSet) {
+                nodes.put(node.getRef(), node);
+                if (node instanceof AsyncTask) {
+                    tasks.add(node);
+                } else if (node instanceof Start) {
+                    start = node;
+                } else if (node instanceof End) {
+                    end = node;
+                }
+            }
+            Map<String, List<String>> upstreamTasks = new HashMap<>();
+            for (Node node : nodeSet) {
+                var refList = node.getSources().stream()
+                        .filter(source -> nodes.get(source) instanceof AsyncTask)
+                        .collect(Collectors.toUnmodifiableList());
+                upstreamTasks.put(node.getRef(), refList);
+            }
+            this.nodes = Collections.unmodifiableMap(nodes);
+            this.upstreamTasks = Collections.unmodifiableMap(upstreamTasks);
+            this.tasks = Collections.unmodifiableList(tasks);
+            this.start = start;
+            this.end = end;
+        }
     }
 
-    public void setContext(EvaluationContext context) {
-        this.context = context;
+    private NodeIndex index() {
+        var index = this.nodeIndex;
+        if (index == null) {
+            // 并发构建时结果相同，无需加锁
+            index = new NodeIndex(this.nodes);
+            this.nodeIndex = index;
+        }
+        return index;
     }
 
     public static Set<GlobalParameter> createGlobalParameters(Map<String, String> param) {
@@ -67,15 +104,16 @@ public class Workflow {
         ).collect(Collectors.toSet());
     }
 
-    public Map<String, Parameter<?>> calculateTaskParams(String taskRef) {
+    // 计算任务参数，表达式服务与上下文由调用方传入，流程定义本身不保存计算状态
+    public Map<String, Parameter<?>> calculateTaskParams(String taskRef, ExpressionLanguage expressionLanguage, EvaluationContext context) {
         var asyncTask = this.findTask(taskRef);
         return asyncTask.getTaskParameters().stream().map(taskParameter -> {
-            var parameter = this.calculateTaskParameter(taskParameter);
+            var parameter = this.calculateTaskParameter(taskParameter, expressionLanguage, context);
             return Map.entry(taskParameter.getRef(), parameter);
         }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
-    private Parameter<?> calculateTaskParameter(TaskParameter taskParameter) {
+    private Parameter<?> calculateTaskParameter(TaskParameter taskParameter, ExpressionLanguage expressionLanguage, EvaluationContext context) {
         // 密钥类型单独处理
         var secret = this.findSecret(taskParameter.getExpression());
         if (secret != null) {
@@ -123,41 +161,63 @@ public class Workflow {
     }
 
     public Node findStart() {
-        return this.nodes.stream()
-                .filter(n -> n instanceof Start)
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("未找到启动节点"));
+        var start = this.index().start;
+        if (start == null) {
+            throw new RuntimeException("未找到启动节点");
+        }
+        return start;
     }
 
     public Node findEnd() {
-        return this.nodes.stream()
-                .filter(n -> n instanceof End)
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("未找到结束节点"));
+        var end = this.index().end;
+        if (end == null) {
+            throw new RuntimeException("未找到结束节点");
+        }
+        return end;
     }
 
     public Node findNode(String nodeRef) {
-        return this.nodes.stream()
-                .filter(n -> n.getRef().equals(nodeRef))
-                .findFirst()
+        return this.findNodeByRef(nodeRef)
                 .orElseThrow(() -> new RuntimeException("未找到该节点定义: " + nodeRef));
     }
 
+    public Optional<Node> findNodeByRef(String nodeRef) {
+        return Optional.ofNullable(this.index().nodes.get(nodeRef));
+    }
+
     // 返回当前节点上游Task的ref List
     public List<String> findTasks(String nodeRef) {
-        Node node = this.findNode(nodeRef);
-        return this.nodes.stream()
-                .filter(n -> n instanceof AsyncTask)
-                .map(Node::getRef)
-                .filter(taskRef -> node.getSources().contains(taskRef))
-                .collect(Collectors.toList());
+        var refList = this.index().upstreamTasks.get(nodeRef);
+        if (refList == null) {
+            throw new RuntimeException("未找到该节点定义: " + nodeRef);
+        }
+        return refList;
     }
 
     // 返回AsyncTask列表
     public List<Node> findTasks() {
-        return this.nodes.stream()
-                .filter(n -> n instanceof AsyncTask)
-                .collect(Collectors.toList());
+        return this.index().tasks;
+    }
+
+    // 返回从给定节点开始需要跳过的节点列表，包含给定节点及其全部下游节点，每个节点只出现一次
+    public List<Node> findSkippedNodes(Collection<String> nodeRefs) {
+        Set<String> visited = new HashSet<>(nodeRefs);
+        Deque<String> queue = new ArrayDeque<>(nodeRefs);
+        List<Node> skipped = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            var node = this.findNode(queue.poll());
+            skipped.add(node);
+            // 结束节点不跳过，也没有下游节点
+            if (node instanceof End) {
+                continue;
+            }
+            node.getTargets().forEach(targetRef -> {
+                if (visited.add(targetRef)) {
+                    queue.add(targetRef);
+                }
+            });
+        }
+        return skipped;
     }
 
     public String getName() {
@@ -8,8 +8,7 @@ package dev.jianmu.workflow.aggregate.parameter;
  **/
 public class BoolParameter extends Parameter<Boolean> {
     public BoolParameter(Boolean value) {
-        super(value);
-        this.type = Type.BOOL;
+        super(Type.BOOL, value);
     }
 
     @Override
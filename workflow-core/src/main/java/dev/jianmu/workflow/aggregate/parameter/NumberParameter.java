@@ -10,8 +10,7 @@ import java.math.BigDecimal;
  **/
 public class NumberParameter extends Parameter<BigDecimal> {
     public NumberParameter(BigDecimal value) {
-        super(value);
-        this.type = Type.NUMBER;
+        super(Type.NUMBER, value);
     }
 
     @Override
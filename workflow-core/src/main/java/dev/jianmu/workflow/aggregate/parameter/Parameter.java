@@ -1,6 +1,9 @@
 package dev.jianmu.workflow.aggregate.parameter;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
@@ -94,16 +97,42 @@ public abstract class Parameter<T> {
         }
     }
 
+    // ID长度，与历史UUID格式的ID保持一致
+    private static final int ID_LENGTH = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     // ID
-    // TODO 暂时使用UUID的值
-    protected final String id = UUID.randomUUID().toString().replace("-", "");
+    protected final String id;
     // 参数类型
-    protected Type type;
+    protected final Type type;
     // 参数值
     protected final T value;
 
-    protected Parameter(T value) {
+    protected Parameter(Type type, T value) {
+        this.type = type;
         this.value = value;
+        this.id = this.createId();
+    }
+
+    // 按类型与值生成内容寻址ID，相同的值只存储一份
+    // 密钥参数仍使用随机ID，避免通过ID推测密钥内容
+    private String createId() {
+        if (this.type == Type.SECRET) {
+            return UUID.randomUUID().toString().replace("-", "");
+        }
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.type.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(this.getStringValue().getBytes(StandardCharsets.UTF_8));
+            var sb = new StringBuilder(ID_LENGTH);
+            for (int i = 0; i < ID_LENGTH / 2; i++) {
+                sb.append(HEX[(hash[i] >> 4) & 0xF]).append(HEX[hash[i] & 0xF]);
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("不支持SHA-256算法", e);
+        }
     }
 
     public abstract String getStringValue();
@@ -8,8 +8,7 @@ package dev.jianmu.workflow.aggregate.parameter;
  **/
 public class SecretParameter extends Parameter<String> {
     public SecretParameter(String value) {
-        super(value);
-        this.type = Type.SECRET;
+        super(Type.SECRET, value);
     }
 
     @Override
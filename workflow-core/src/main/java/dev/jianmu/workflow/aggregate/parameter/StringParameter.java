@@ -8,8 +8,7 @@ package dev.jianmu.workflow.aggregate.parameter;
  **/
 public class StringParameter extends Parameter<String> {
     public StringParameter(String value) {
-        super(value);
-        this.type = Type.STRING;
+        super(Type.STRING, value);
     }
 
     @Override
@@ -37,12 +37,16 @@ public class WorkflowInstance extends AggregateRoot {
     private String workflowRef;
     // 流程定义版本
     private String workflowVersion;
-    // 任务实例列表
-    private List<AsyncTaskInstance> asyncTaskInstances = new ArrayList<>();
+    // 任务实例索引，Key为任务定义Ref，按加入顺序保存
+    private Map<String, AsyncTaskInstance> asyncTaskInstances = new LinkedHashMap<>();
+    // 本次加载后状态发生变化的任务实例Ref，按行存储任务实例时只写入这部分
+    private final Set<String> changedTaskRefs = new LinkedHashSet<>();
     // 开始时间
     private final LocalDateTime startTime = LocalDateTime.now();
     // 结束时间
     private LocalDateTime endTime;
+    // 乐观锁版本，从DB加载时设置，保存时作为更新条件
+    private int version;
     // 表达式计算服务
     private ExpressionLanguage expressionLanguage;
     // 参数上下文
@@ -59,24 +63,47 @@ public class WorkflowInstance extends AggregateRoot {
         this.context = context;
     }
 
+    // 从DB读取任务实例列表时重建索引
+    private void setAsyncTaskInstances(List<AsyncTaskInstance> asyncTaskInstances) {
+        Map<String, AsyncTaskInstance> instances = new LinkedHashMap<>();
+        if (asyncTaskInstances != null) {
+            asyncTaskInstances.forEach(i -> instances.put(i.getAsyncTaskRef(), i));
+        }
+        this.asyncTaskInstances = instances;
+    }
+
+    // 任务实例放到索引末尾，保持与原列表一致的顺序
+    private void putAsyncTaskInstance(AsyncTaskInstance taskInstance) {
+        this.asyncTaskInstances.remove(taskInstance.getAsyncTaskRef());
+        this.asyncTaskInstances.put(taskInstance.getAsyncTaskRef(), taskInstance);
+        this.changedTaskRefs.add(taskInstance.getAsyncTaskRef());
+    }
+
     public Optional<AsyncTaskInstance> findLatestAsyncTaskInstance() {
         if (asyncTaskInstances.isEmpty()) {
             return Optional.empty();
         }
         Comparator<AsyncTaskInstance> byStartTime = Comparator.comparing(AsyncTaskInstance::getStartTime);
-        return asyncTaskInstances.stream().filter(asyncTaskInstance -> asyncTaskInstance.getStartTime() != null).max(byStartTime);
+        return asyncTaskInstances.values().stream().filter(asyncTaskInstance -> asyncTaskInstance.getStartTime() != null).max(byStartTime);
     }
 
     // 根据上游节点列表，统计已完成的任务数量
-    public long countCompletedTask(List<String> refList) {
-        return this.asyncTaskInstances.stream()
-                .filter(t -> refList.contains(t.getAsyncTaskRef()) &&
-                        (
-                                t.getStatus().equals(TaskStatus.FAILED)
-                                        || t.getStatus().equals(TaskStatus.SUCCEEDED)
-                                        || t.getStatus().equals(TaskStatus.SKIPPED)
-                        ))
-                .count();
+    public long countCompletedTask(Collection<String> refList) {
+        long completed = 0;
+        // 按上游节点逐个查询索引
+        for (String ref : refList) {
+            AsyncTaskInstance t = this.asyncTaskInstances.get(ref);
+            if (t != null && isCompleted(t.getStatus())) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    private static boolean isCompleted(TaskStatus status) {
+        return status == TaskStatus.FAILED
+                || status == TaskStatus.SUCCEEDED
+                || status == TaskStatus.SKIPPED;
     }
 
     // 终止流程实例
@@ -87,6 +114,11 @@ public class WorkflowInstance extends AggregateRoot {
 
     // 激活节点
     public void activateNode(Node node) {
+        this.activateNode(null, node);
+    }
+
+    // 激活节点，网关节点需要流程定义计算未选中分支的下游节点
+    public void activateNode(Workflow workflow, Node node) {
         if (this.getStatus().equals(ProcessStatus.FINISHED)) {
             throw new RuntimeException("该流程实例已结束");
         }
@@ -119,11 +151,7 @@ public class WorkflowInstance extends AggregateRoot {
                                     .asyncTaskType(node.getType())
                                     .build()
                     );
-            // 处理反序列化后asyncTaskInstances为不可变List的情况
-            List<AsyncTaskInstance> instances = new ArrayList<>(this.asyncTaskInstances);
-            instances.removeIf(i -> i.getAsyncTaskRef().equals(node.getRef()));
-            instances.add(taskInstance);
-            this.asyncTaskInstances = instances;
+            this.putAsyncTaskInstance(taskInstance);
             // 发布任务激活事件并返回
             TaskActivatingEvent taskActivatingEvent = TaskActivatingEvent.Builder.aTaskActivatingEvent()
                     .nodeRef(node.getRef())
@@ -137,21 +165,15 @@ public class WorkflowInstance extends AggregateRoot {
             return;
         }
         if (node instanceof Gateway) {
+            if (workflow == null) {
+                throw new RuntimeException("激活网关节点需要流程定义");
+            }
             String nextNodeRef = ((Gateway) node).calculateTarget(expressionLanguage, context);
-            // 发布其他节点跳过事件
+            // 未选中分支的下游节点一次遍历计算，与网关激活在同一次保存中跳过
             var targets = node.getTargets().stream()
                     .filter(targetRef -> !targetRef.equals(nextNodeRef))
                     .collect(Collectors.toList());
-            targets.forEach(targetRef -> {
-                var nodeSkipEvent = NodeSkipEvent.Builder.aNodeSkipEvent()
-                        .nodeRef(targetRef)
-                        .triggerId(this.triggerId)
-                        .workflowInstanceId(this.id)
-                        .workflowRef(this.workflowRef)
-                        .workflowVersion(this.workflowVersion)
-                        .build();
-                this.raiseEvent(nodeSkipEvent);
-            });
+            this.skipNodes(workflow.findSkippedNodes(targets));
             // 发布下一个节点激活事件并返回
             NodeActivatingEvent activatingEvent = NodeActivatingEvent.Builder.aNodeActivatingEvent()
                     .nodeRef(nextNodeRef)
@@ -188,12 +210,12 @@ public class WorkflowInstance extends AggregateRoot {
         });
     }
 
-    // 跳过节点
-    public void skipNode(Node node) {
-        if (node instanceof End) {
-            return;
-        }
-        if (node instanceof AsyncTask) {
+    // 跳过节点，节点列表由流程定义一次遍历计算，不再逐个发布下游节点跳过事件
+    public void skipNodes(Collection<Node> nodes) {
+        nodes.forEach(node -> {
+            if (!(node instanceof AsyncTask)) {
+                return;
+            }
             // 跳过任务节点时也需要创建任务实例，状态为已跳过
             AsyncTaskInstance taskInstance = this.findInstanceByRef(node.getRef())
                     .orElse(
@@ -206,23 +228,7 @@ public class WorkflowInstance extends AggregateRoot {
                                     .build()
                     );
             taskInstance.skip();
-            // 处理反序列化后asyncTaskInstances为不可变List的情况
-            List<AsyncTaskInstance> instances = new ArrayList<>(this.asyncTaskInstances);
-            instances.removeIf(i -> i.getAsyncTaskRef().equals(node.getRef()));
-            instances.add(taskInstance);
-            this.asyncTaskInstances = instances;
-        }
-        // 发布下游节点跳过事件
-        var targets = node.getTargets();
-        targets.forEach(targetRef -> {
-            var nodeSkipEvent = NodeSkipEvent.Builder.aNodeSkipEvent()
-                    .nodeRef(targetRef)
-                    .triggerId(this.triggerId)
-                    .workflowInstanceId(this.id)
-                    .workflowRef(this.workflowRef)
-                    .workflowVersion(this.workflowVersion)
-                    .build();
-            this.raiseEvent(nodeSkipEvent);
+            this.putAsyncTaskInstance(taskInstance);
         });
     }
 
@@ -255,6 +261,7 @@ public class WorkflowInstance extends AggregateRoot {
         AsyncTaskInstance taskInstance = this.findInstanceByRef(asyncTaskRef)
                 .orElseThrow(() -> new RuntimeException("未找到该任务"));
         taskInstance.run();
+        this.changedTaskRefs.add(taskInstance.getAsyncTaskRef());
         // 发布任务开始执行事件
         this.raiseEvent(
                 TaskRunningEvent.Builder.aTaskRunningEvent()
@@ -273,6 +280,7 @@ public class WorkflowInstance extends AggregateRoot {
         AsyncTaskInstance taskInstance = this.findInstanceByRef(asyncTaskRef)
                 .orElseThrow(() -> new RuntimeException("未找到该任务"));
         taskInstance.fail();
+        this.changedTaskRefs.add(taskInstance.getAsyncTaskRef());
         // 发布任务执行失败事件
         this.raiseEvent(
                 TaskFailedEvent.Builder.aTaskFailedEvent()
@@ -291,6 +299,7 @@ public class WorkflowInstance extends AggregateRoot {
         AsyncTaskInstance taskInstance = this.findInstanceByRef(node.getRef())
                 .orElseThrow(() -> new RuntimeException("未找到该任务"));
         taskInstance.succeed();
+        this.changedTaskRefs.add(taskInstance.getAsyncTaskRef());
         // 发布任务执行成功事件
         this.raiseEvent(
                 TaskSucceededEvent.Builder.aTaskSucceededEvent()
@@ -318,9 +327,7 @@ public class WorkflowInstance extends AggregateRoot {
 
     // 根据任务定义Ref查找任务实例
     public Optional<AsyncTaskInstance> findInstanceByRef(String asyncTaskRef) {
-        return asyncTaskInstances.stream()
-                .filter(i -> i.getAsyncTaskRef().equals(asyncTaskRef))
-                .findFirst();
+        return Optional.ofNullable(this.asyncTaskInstances.get(asyncTaskRef));
     }
 
     public String getId() {
@@ -364,7 +371,14 @@ public class WorkflowInstance extends AggregateRoot {
     }
 
     public List<AsyncTaskInstance> getAsyncTaskInstances() {
-        return List.copyOf(asyncTaskInstances);
+        return List.copyOf(asyncTaskInstances.values());
+    }
+
+    // 返回本次加载后状态发生变化的任务实例
+    public List<AsyncTaskInstance> getChangedAsyncTaskInstances() {
+        return this.changedTaskRefs.stream()
+                .map(this.asyncTaskInstances::get)
+                .collect(Collectors.toList());
     }
 
     public LocalDateTime getStartTime() {
@@ -375,6 +389,10 @@ public class WorkflowInstance extends AggregateRoot {
         return endTime;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public static final class Builder {
         // ID
         // TODO 暂时使用UUID的值
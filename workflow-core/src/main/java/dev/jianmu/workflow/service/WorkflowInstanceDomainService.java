@@ -2,14 +2,12 @@ package dev.jianmu.workflow.service;
 
 import dev.jianmu.workflow.aggregate.definition.Node;
 import dev.jianmu.workflow.aggregate.definition.Workflow;
-import dev.jianmu.workflow.aggregate.process.AsyncTaskInstance;
 import dev.jianmu.workflow.aggregate.process.ProcessStatus;
 import dev.jianmu.workflow.aggregate.process.WorkflowInstance;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * @program: workflow
@@ -36,28 +34,27 @@ public class WorkflowInstanceDomainService {
     // 激活节点
     public void activateNode(Workflow workflow, WorkflowInstance workflowInstance, String nodeRef) {
         Node node = workflow.findNode(nodeRef);
-        // 返回当前节点上游Task的ref List
+        // 上游Task的ref List在流程定义中预先计算，列表大小即为节点入度
         List<String> refList = workflow.findTasks(nodeRef);
-        List<String> instanceList = workflowInstance.getAsyncTaskInstances().stream()
-                .map(AsyncTaskInstance::getAsyncTaskRef)
-                .collect(Collectors.toList());
-        instanceList.retainAll(refList);
-        // 统计上游Task已完成数量
-        long completed = workflowInstance.countCompletedTask(instanceList);
-        logger.info("当前节点{}上游Task数量为{}", nodeRef, refList.size());
-        logger.info("当前节点{}上游Task已完成数量为{}", nodeRef, completed);
-        // 如果上游任务执行完成数量小于上游任务总数，则当前节点不激活
-        if (completed < refList.size()) {
-            logger.info("当前节点{}上游任务执行完成数量{}小于上游任务总数{}", nodeRef, completed, refList.size());
-            return;
+        int inDegree = refList.size();
+        // 入度为0的节点没有上游任务，无需统计
+        if (inDegree > 0) {
+            // 统计上游Task已完成数量
+            long completed = workflowInstance.countCompletedTask(refList);
+            logger.info("当前节点{}上游Task数量为{}", nodeRef, inDegree);
+            logger.info("当前节点{}上游Task已完成数量为{}", nodeRef, completed);
+            // 如果上游任务执行完成数量小于上游任务总数，则当前节点不激活
+            if (completed < inDegree) {
+                logger.info("当前节点{}上游任务执行完成数量{}小于上游任务总数{}", nodeRef, completed, inDegree);
+                return;
+            }
         }
-        workflowInstance.activateNode(node);
+        workflowInstance.activateNode(workflow, node);
     }
 
-    // 跳过节点
+    // 跳过节点及其全部下游节点
     public void skipNode(Workflow workflow, WorkflowInstance workflowInstance, String nodeRef) {
-        Node node = workflow.findNode(nodeRef);
-        workflowInstance.skipNode(node);
+        workflowInstance.skipNodes(workflow.findSkippedNodes(List.of(nodeRef)));
     }
 
     // 中止节点
@@ -68,18 +65,14 @@ public class WorkflowInstanceDomainService {
         if (workflowInstance.getStatus().equals(ProcessStatus.TERMINATED)) {
             throw new RuntimeException("该流程实例已终止，不能中止节点");
         }
-        Node node = workflow.getNodes().stream()
-                .filter(n -> n.getRef().equals(nodeRef))
-                .findFirst()
+        Node node = workflow.findNodeByRef(nodeRef)
                 .orElseThrow(() -> new RuntimeException("未找到要中止的节点: " + nodeRef));
         workflowInstance.terminateNode(node);
     }
 
     // 任务执行成功
     public void taskSucceed(Workflow workflow, WorkflowInstance workflowInstance, String asyncTaskRef) {
-        Node node = workflow.getNodes().stream()
-                .filter(n -> n.getRef().equals(asyncTaskRef))
-                .findFirst()
+        Node node = workflow.findNodeByRef(asyncTaskRef)
                 .orElseThrow(() -> new RuntimeException("未找到执行完成的任务节点: " + asyncTaskRef));
         workflowInstance.taskSucceed(node);
     }
@@ -0,0 +1,120 @@
+package dev.jianmu.workflow.aggregate.definition;
+
+import dev.jianmu.workflow.aggregate.parameter.BoolParameter;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.aggregate.parameter.StringParameter;
+import dev.jianmu.workflow.el.EvaluationContext;
+import dev.jianmu.workflow.el.EvaluationResult;
+import dev.jianmu.workflow.el.Expression;
+import dev.jianmu.workflow.el.ExpressionLanguage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * @class: GatewayConcurrencyTest
+ * @description: 共享网关节点并发计算测试
+ * @author: Ethan Liu
+ * @create: 2021-10-30 10:20
+ **/
+@DisplayName("共享网关节点并发计算测试")
+public class GatewayConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 2000;
+
+    // 直接返回上下文中的变量值，解析后让出CPU以放大并发交错
+    private static final ExpressionLanguage VARIABLE_EL = new ExpressionLanguage() {
+        @Override
+        public Expression parseExpression(String expression) {
+            Thread.yield();
+            return null;
+        }
+
+        @Override
+        public EvaluationResult evaluateExpression(Expression expression, EvaluationContext context) {
+            var value = context.getVariable("value");
+            return new EvaluationResult() {
+                @Override
+                public String getExpression() {
+                    return null;
+                }
+
+                @Override
+                public boolean isFailure() {
+                    return false;
+                }
+
+                @Override
+                public String getFailureMessage() {
+                    return null;
+                }
+
+                @Override
+                public Parameter<?> getValue() {
+                    return value instanceof Boolean ? new BoolParameter((Boolean) value) : new StringParameter((String) value);
+                }
+            };
+        }
+    };
+
+    private void calculateConcurrently(Gateway gateway, Map<Integer, Object> values, Map<Integer, String> expected) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            var start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                var index = i % values.size();
+                EvaluationContext context = variableName -> values.get(index);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < ROUNDS; round++) {
+                        assertEquals(expected.get(index), gateway.calculateTarget(VARIABLE_EL, context));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("条件网关并发计算测试")
+    void conditionTest() throws Exception {
+        var condition = Condition.Builder.aCondition()
+                .ref("condition_1")
+                .expression("${value}")
+                .targetMap(Map.of(true, "task_a", false, "task_b"))
+                .build();
+        condition.setTargets(Set.of("task_a", "task_b"));
+        this.calculateConcurrently(condition, Map.of(0, true, 1, false), Map.of(0, "task_a", 1, "task_b"));
+    }
+
+    @Test
+    @DisplayName("Switch网关并发计算测试")
+    void switchGatewayTest() throws Exception {
+        var switchGateway = SwitchGateway.Builder.aSwitchGateway()
+                .ref("switch_1")
+                .expression("${value}")
+                .cases(Map.of("a", "task_a", "b", "task_b", "c", "task_c"))
+                .build();
+        switchGateway.setTargets(Set.of("task_a", "task_b", "task_c"));
+        this.calculateConcurrently(switchGateway, Map.of(0, "a", 1, "b", 2, "c"),
+                Map.of(0, "task_a", 1, "task_b", 2, "task_c"));
+    }
+}
@@ -4,10 +4,13 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * @program: workflow
@@ -119,4 +122,32 @@ public class WorkflowTest {
         });
         assertEquals("节点唯一引用名称不允许重复", exception.getMessage(), "节点唯一引用名称不允许重复");
     }
+
+    @Test
+    @DisplayName("节点索引查询测试")
+    void nodeIndexTest() {
+        var start = Start.Builder.aStart().name("Start").ref("start").build();
+        var task1 = AsyncTask.Builder.anAsyncTask().name("Task1").ref("task_1").type("shell").build();
+        var task2 = AsyncTask.Builder.anAsyncTask().name("Task2").ref("task_2").type("shell").build();
+        var end = End.Builder.anEnd().name("End").ref("end").build();
+        start.setTargets(Set.of(task1.getRef(), task2.getRef()));
+        task1.setSources(Set.of(start.getRef()));
+        task2.setSources(Set.of(start.getRef()));
+        end.setSources(Set.of(start.getRef(), task1.getRef(), task2.getRef()));
+        Workflow workflow = Workflow.Builder.aWorkflow()
+                .name("TestWL")
+                .ref("test_wl")
+                .nodes(Set.of(start, task1, task2, end))
+                .globalParameters(Set.of())
+                .build();
+        assertSame(start, workflow.findStart());
+        assertSame(end, workflow.findEnd());
+        assertSame(task1, workflow.findNode("task_1"));
+        assertEquals(Set.of("task_1", "task_2"), Set.copyOf(workflow.findTasks("end")));
+        assertEquals(List.of(), workflow.findTasks("task_1"));
+        assertEquals(2, workflow.findTasks().size());
+        assertTrue(workflow.findNodeByRef("task_3").isEmpty());
+        Throwable exception = assertThrows(RuntimeException.class, () -> workflow.findTasks("task_3"));
+        assertEquals("未找到该节点定义: task_3", exception.getMessage());
+    }
 }
@@ -0,0 +1,41 @@
+package dev.jianmu.workflow.aggregate.parameter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: ParameterTest
+ * @description: 参数ID测试
+ * @author: Ethan Liu
+ * @create: 2021-10-22 14:30
+ **/
+@DisplayName("参数ID测试")
+public class ParameterTest {
+
+    @Test
+    @DisplayName("相同类型与值生成相同ID")
+    void sameContentTest() {
+        var p1 = Parameter.Type.STRING.newParameter("mvn package");
+        var p2 = Parameter.Type.STRING.newParameter("mvn package");
+        assertEquals(p1.getId(), p2.getId());
+        assertEquals(32, p1.getId().length());
+        assertEquals(Parameter.Type.NUMBER.newParameter(1).getId(), Parameter.Type.NUMBER.newParameter(new BigDecimal("1")).getId());
+    }
+
+    @Test
+    @DisplayName("不同类型或值生成不同ID")
+    void differentContentTest() {
+        assertNotEquals(Parameter.Type.STRING.newParameter("a").getId(), Parameter.Type.STRING.newParameter("b").getId());
+        assertNotEquals(Parameter.Type.STRING.newParameter("true").getId(), Parameter.Type.BOOL.newParameter(true).getId());
+    }
+
+    @Test
+    @DisplayName("密钥参数使用随机ID")
+    void secretTest() {
+        assertNotEquals(Parameter.Type.SECRET.newParameter("ns.key").getId(), Parameter.Type.SECRET.newParameter("ns.key").getId());
+    }
+}
@@ -0,0 +1,150 @@
+package dev.jianmu.workflow.aggregate.process;
+
+import dev.jianmu.workflow.aggregate.definition.*;
+import dev.jianmu.workflow.aggregate.parameter.Parameter;
+import dev.jianmu.workflow.el.EvaluationContext;
+import dev.jianmu.workflow.el.EvaluationResult;
+import dev.jianmu.workflow.el.Expression;
+import dev.jianmu.workflow.el.ExpressionLanguage;
+import dev.jianmu.workflow.event.NodeActivatingEvent;
+import dev.jianmu.workflow.event.NodeSkipEvent;
+import dev.jianmu.workflow.service.WorkflowInstanceDomainService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @class: GatewaySkipTest
+ * @description: 网关未选中分支跳过测试
+ * @author: Ethan Liu
+ * @create: 2021-10-28 10:20
+ **/
+@DisplayName("网关未选中分支跳过测试")
+public class GatewaySkipTest {
+    private final WorkflowInstanceDomainService workflowInstanceDomainService = new WorkflowInstanceDomainService();
+    private Workflow workflow;
+    private WorkflowInstance instance;
+
+    // 表达式计算失败时条件网关取false分支
+    private static final ExpressionLanguage FAILED_EL = new ExpressionLanguage() {
+        @Override
+        public Expression parseExpression(String expression) {
+            return null;
+        }
+
+        @Override
+        public EvaluationResult evaluateExpression(Expression expression, EvaluationContext context) {
+            return new EvaluationResult() {
+                @Override
+                public String getExpression() {
+                    return null;
+                }
+
+                @Override
+                public boolean isFailure() {
+                    return true;
+                }
+
+                @Override
+                public String getFailureMessage() {
+                    return "计算失败";
+                }
+
+                @Override
+                public Parameter<?> getValue() {
+                    return null;
+                }
+            };
+        }
+    };
+
+    private static AsyncTask task(String ref, Set<String> sources, Set<String> targets) {
+        var task = AsyncTask.Builder.anAsyncTask().name(ref).ref(ref).type("shell:1.0").build();
+        task.setSources(sources);
+        task.setTargets(targets);
+        return task;
+    }
+
+    @BeforeEach
+    void setUp() {
+        // condition_1 -> false: task_a -> end_1
+        //             -> true: task_b -> task_c -> end_1, task_b -> task_d -> task_c
+        Start start = Start.Builder.aStart().name("Start1").ref("start_1").build();
+        start.setTargets(Set.of("condition_1"));
+        Condition condition = Condition.Builder.aCondition()
+                .ref("condition_1")
+                .expression("`true`")
+                .targetMap(Map.of(false, "task_a", true, "task_b"))
+                .build();
+        condition.setSources(Set.of("start_1"));
+        condition.setTargets(Set.of("task_a", "task_b"));
+        End end = End.Builder.anEnd().name("End1").ref("end_1").build();
+        end.setSources(Set.of("task_a", "task_c"));
+        Set<Node> nodes = Set.of(
+                start,
+                condition,
+                task("task_a", Set.of("condition_1"), Set.of("end_1")),
+                task("task_b", Set.of("condition_1"), Set.of("task_c", "task_d")),
+                task("task_c", Set.of("task_b", "task_d"), Set.of("end_1")),
+                task("task_d", Set.of("task_b"), Set.of("task_c")),
+                end
+        );
+        this.workflow = Workflow.Builder.aWorkflow()
+                .name("SkipWL")
+                .ref("skip_wl")
+                .nodes(nodes)
+                .globalParameters(Set.of())
+                .build();
+        this.instance = this.workflowInstanceDomainService.create("trigger_skip", "MANUAL", 1, this.workflow);
+        this.instance.setExpressionLanguage(FAILED_EL);
+    }
+
+    @Test
+    @DisplayName("未选中分支的下游节点一次全部跳过测试")
+    void gatewaySkipTest() {
+        this.workflowInstanceDomainService.activateNode(this.workflow, this.instance, "condition_1");
+
+        var skipped = this.instance.getAsyncTaskInstances().stream()
+                .filter(t -> t.getStatus() == TaskStatus.SKIPPED)
+                .map(AsyncTaskInstance::getAsyncTaskRef)
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("task_b", "task_c", "task_d"), skipped);
+        assertTrue(this.instance.findInstanceByRef("task_a").isEmpty());
+
+        // 只发布选中分支的激活事件，不再发布逐个节点的跳过事件
+        var events = this.instance.getUncommittedDomainEvents();
+        assertEquals(1, events.size());
+        assertEquals("task_a", ((NodeActivatingEvent) events.get(0)).getNodeRef());
+        assertTrue(events.stream().noneMatch(e -> e instanceof NodeSkipEvent));
+    }
+
+    @Test
+    @DisplayName("跳过节点列表计算测试")
+    void findSkippedNodesTest() {
+        var refs = this.workflow.findSkippedNodes(List.of("task_b")).stream()
+                .map(Node::getRef)
+                .collect(Collectors.toList());
+        // 汇聚节点只出现一次，结束节点包含在内但不跳过
+        assertEquals(4, refs.size());
+        assertEquals(Set.of("task_b", "task_c", "task_d", "end_1"), Set.copyOf(refs));
+        assertEquals("task_b", refs.get(0));
+
+        this.workflowInstanceDomainService.skipNode(this.workflow, this.instance, "task_d");
+        assertEquals(2, this.instance.getAsyncTaskInstances().size());
+        assertEquals(ProcessStatus.RUNNING, this.instance.getStatus());
+        assertTrue(this.instance.getUncommittedDomainEvents().isEmpty());
+    }
+
+    @Test
+    @DisplayName("未传入流程定义时不能激活网关节点测试")
+    void gatewayWithoutWorkflowTest() {
+        assertThrows(RuntimeException.class, () -> this.instance.activateNode(this.workflow.findNode("condition_1")));
+    }
+}